@@ -0,0 +1,29 @@
+package group2.sdp.pc.benchmarks;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *<p><b>BenchmarkRunner:</b> Runs the benchmarks</br>
+ *<p><b>Description:</b></br>
+ *Runs the benchmarks of the vision whose names match the first argument,
+ *or all of them, e.g. "ScanBenchmark" or "Orientation.*". Must be run from
+ *the Benchmarks project, so that the {@link Corpus} is found, after the
+ *annotation processor of JMH has generated the benchmark classes. JMH and
+ *the libraries it needs are in lib/jmh, on the build path and the factory
+ *path of the project.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException {
+		String include = args.length > 0 
+			? args[0] 
+			: BenchmarkRunner.class.getPackage().getName() + ".*";
+		Options options = new OptionsBuilder()
+			.include(include)
+			.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,63 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.Blob;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.VisualCortex;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *<p><b>BlobBenchmark:</b> Benchmark of finding the largest areas</br>
+ *<p><b>Description:</b></br>
+ *Finds the largest connected area of the pixels of each object in a frame
+ *of the {@link Corpus}, with
+ *{@link VisualCortex#getGreatestArea(Blob, Blob)}, which labels them with a
+ *{@link group2.sdp.pc.vision.BlobFinder}. This is what was done by
+ *mindFlower before the finder replaced it. The pixels are found once, in
+ *the setup, with a {@link FrameScanner}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BlobBenchmark {
+
+	@Param({ Corpus.BUSY_1, Corpus.NOISY })
+	public String scene;
+
+	private VisualCortex cortex;
+	private FrameScanner scanner = new FrameScanner();
+	private Blob area = new Blob();
+
+
+	@Setup
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		cortex = new VisualCortex(null);
+		Corpus.scan(scene, scanner);
+	}
+
+	@Benchmark
+	public int getGreatestArea() {
+		int size = 0;
+		for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+			size += cortex.getGreatestArea(scanner.getPixels(object), area).getSize();
+		}
+		return size;
+	}
+}
@@ -0,0 +1,109 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LCHColourSettings;
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.LCHColour;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ *<p><b>ColourBenchmark:</b> Benchmarks of the colour conversions</br>
+ *<p><b>Description:</b></br>
+ *Converts and classifies every pixel of the pitch in a frame of the
+ *{@link Corpus}: the conversion from RGB to LCH, both packed and into an
+ *{@link LCHColour}, the classification of an LCH colour by the
+ *{@link LCHColourSettings}, and the lookup in the
+ *{@link ColourLookupTable} that replaces both of them while scanning.
+ *Each benchmark covers the whole pitch, so that the times can be compared
+ *with those of the {@link ScanBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ColourBenchmark {
+
+	@Param({ Corpus.BUSY_1, Corpus.NOISY })
+	public String scene;
+
+	/**
+	 * The colours of the pixels of the pitch, as 0xRRGGBB.
+	 */
+	private int[] pixels;
+
+	private LCHColour colour = new LCHColour(0, 0, 0);
+	private LCHColourSettings settings;
+	private ColourLookupTable colourTable = new ColourLookupTable();
+
+
+	@Setup
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		BufferedImage frame = Corpus.load(scene);
+		Rectangle crop = GlobalInfo.getCamera().getPitchCrop();
+		pixels = frame.getRGB(crop.x, crop.y, crop.width, crop.height,
+				null, 0, crop.width);
+		for (int i = 0; i < pixels.length; ++i) {
+			pixels[i] &= 0xFFFFFF;
+		}
+		settings = GlobalInfo.getColourSettings();
+		colourTable.update();
+	}
+
+	@Benchmark
+	public int packLCH() {
+		int hash = 0;
+		for (int rgb : pixels) {
+			hash += LCHColour.packLCH(
+					(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int lchColour() {
+		int hash = 0;
+		for (int rgb : pixels) {
+			colour.setRGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+			hash += colour.getHue() + colour.getChroma() + colour.getLuma();
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public void getColourClass(Blackhole blackhole) {
+		for (int rgb : pixels) {
+			colour.setRGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+			ColourClass colourClass = settings.getColourClass(colour);
+			blackhole.consume(colourClass);
+		}
+	}
+
+	@Benchmark
+	public int lookupTable() {
+		int hash = 0;
+		for (int rgb : pixels) {
+			hash += colourTable.classify(rgb);
+		}
+		return hash;
+	}
+}
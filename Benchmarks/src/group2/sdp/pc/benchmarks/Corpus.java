@@ -0,0 +1,278 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.BackgroundModel;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.Eye;
+import group2.sdp.pc.vision.FrameReplayer;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.PixelReader;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ *<p><b>Corpus:</b> The frames the benchmarks run on</br>
+ *<p><b>Description:</b></br>
+ *Loads the frames of the corpus, in the corpus directory of the project, in
+ *the layout of the frames of the {@link Eye}. The frames are of pitch one:
+ *<ul>
+ *<li>background: the empty pitch, that the others are compared to;</li>
+ *<li>empty: the empty pitch again, with different noise;</li>
+ *<li>busy-1 and busy-2: both robots, the ball and a hand reaching in, with
+ *the objects moved by a few pixels between the two;</li>
+ *<li>noisy: the busy scene under dimmer, uneven light and with stronger
+ *noise.</li>
+ *</ul>
+ *The checked-in frames are drawn by {@link #main(String[])} in the colours
+ *of the default settings of pitch one, unless captured ones replaced them.
+ *The drawing is kept here rather than shared with the test fixtures, so
+ *that changing the tests does not change the corpus.
+ *<p><b>Capturing:</b></br>
+ *Tick "Record frames" in the ControlStation and run the vision on the
+ *pitch: first empty, then with the robots, the ball and a hand in it. The
+ *footage goes to recordings/match-&lt;time&gt; in the Commander project.
+ *Then pick the frames of the corpus by their numbers in the recording, e.g.
+ *<pre>
+ *Corpus ../Commander/recordings/match-1234 background=0 empty=40 busy-1=200 busy-2=201 noisy=350
+ *</pre>
+ *and save the settings of the pitch the footage was taken on with them.
+ */
+public class Corpus {
+
+	public static final String BACKGROUND = "background";
+	public static final String EMPTY = "empty";
+	public static final String BUSY_1 = "busy-1";
+	public static final String BUSY_2 = "busy-2";
+	public static final String NOISY = "noisy";
+
+	private static final String DIRECTORY = "corpus";
+
+	private static final int WIDTH = 640;
+	private static final int HEIGHT = 480;
+
+	private static final Color PITCH = new Color(96, 150, 90);
+	private static final Color YELLOW = new Color(200, 195, 180);
+	private static final Color BLUE = new Color(40, 60, 200);
+	private static final Color RED = new Color(220, 30, 30);
+	private static final Color HAND = new Color(200, 160, 130);
+	private static final Color WALL = new Color(40, 40, 40);
+
+	/**
+	 * The diameter of the ball in pixels.
+	 */
+	private static final int BALL_SIZE = 12;
+
+
+	/**
+	 * Loads a frame of the corpus.
+	 * @param name The name of the frame, e.g. {@link #BUSY_1}.
+	 * @return The frame, in the layout of the frames of the {@link Eye}.
+	 */
+	public static BufferedImage load(String name) {
+		File file = new File(DIRECTORY, name + ".png");
+		BufferedImage png;
+		try {
+			png = ImageIO.read(file);
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read " + file.getAbsolutePath(), e);
+		}
+		BufferedImage frame = Eye.createRGBImage(
+				new byte[png.getWidth() * png.getHeight() * 3],
+				png.getWidth(), png.getHeight());
+		Graphics2D g = frame.createGraphics();
+		g.drawImage(png, 0, 0, null);
+		g.dispose();
+		return frame;
+	}
+
+	/**
+	 * Scans the pitch of a frame of the corpus against the background, to
+	 * get the pixels of the objects in it.
+	 * @param name The name of the frame.
+	 * @param scanner The scanner to scan the frame with.
+	 */
+	public static void scan(String name, FrameScanner scanner) {
+		PixelReader reader = new PixelReader();
+		BackgroundModel background = new BackgroundModel();
+		reader.setImage(load(BACKGROUND));
+		background.reset(reader);
+		reader.setImage(load(name));
+		ColourLookupTable colourTable = new ColourLookupTable();
+		colourTable.update();
+		Rectangle crop = GlobalInfo.getCamera().getPitchCrop();
+		ColourClassMask mask = new ColourClassMask();
+		mask.reset(crop);
+		scanner.reset(reader.getWidth(), crop.width * crop.height);
+		scanner.scan(reader, background, colourTable, mask, crop.x, crop.y, 
+				crop.x + crop.width, crop.y + crop.height, 
+				GlobalInfo.getCamera().getPixelDifferenceThreshold());
+	}
+
+	/**
+	 * Draws the frames of the corpus and saves them in the corpus directory.
+	 * Given the prefix of a recording of the FrameRecorder and pairs of 
+	 * name=frame, saves the given frames of the recording instead.
+	 */
+	public static void main(String[] args) throws IOException {
+		GlobalInfo.setPitchOne(true);
+		new File(DIRECTORY).mkdirs();
+		if (args.length > 0) {
+			Map<Integer, String> names = new HashMap<Integer, String>();
+			for (int i = 1; i < args.length; ++i) {
+				String[] pair = args[i].split("=");
+				names.put(Integer.parseInt(pair[1]), pair[0]);
+			}
+			extract(args[0], names);
+			return;
+		}
+		save(BACKGROUND, drawScene(-1, 1.0, 0, 2, 1));
+		save(EMPTY, drawScene(-1, 1.0, 0, 2, 2));
+		save(BUSY_1, drawScene(0, 1.0, 0, 2, 3));
+		save(BUSY_2, drawScene(1, 1.0, 0, 2, 4));
+		save(NOISY, drawScene(0, 0.93, 0.1, 5, 5));
+	}
+
+	/**
+	 * Saves frames of a recording of the FrameRecorder in the corpus.
+	 * @param filePrefix The prefix the recording was made with.
+	 * @param names The names to save the frames as, by the numbers of the
+	 * frames in the recording.
+	 */
+	private static void extract(String filePrefix, 
+			final Map<Integer, String> names) throws IOException {
+		final int[] frame = new int[1];
+		ImageConsumer saver = new ImageConsumer() {
+			@Override
+			public void consume(BufferedImage image) {
+				String name = names.get(frame[0]++);
+				if (name != null) {
+					try {
+						save(name, image);
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+		};
+		FrameReplayer replayer = 
+			new FrameReplayer(saver, filePrefix, FrameReplayer.ReplayMode.STEP);
+		while (replayer.step()) {
+		}
+		if (frame[0] <= maxKey(names)) {
+			System.out.println("The recording has only " + frame[0] + " frames.");
+		}
+	}
+
+	private static int maxKey(Map<Integer, String> names) {
+		int max = -1;
+		for (int key : names.keySet()) {
+			max = Math.max(max, key);
+		}
+		return max;
+	}
+
+	private static void save(String name, BufferedImage image) throws IOException {
+		ImageIO.write(image, "png", new File(DIRECTORY, name + ".png"));
+		System.out.println("Saved " + name);
+	}
+
+	/**
+	 * Draws a frame of the pitch.
+	 * @param step -1 for the empty pitch; otherwise the objects are moved by
+	 * a few pixels for each step.
+	 * @param brightness The brightness of the light, 1 as in the background.
+	 * @param unevenness How much darker the right edge is than the left one.
+	 * @param noise The standard deviation of the noise of each channel.
+	 * @param seed The seed of the noise.
+	 * @return The frame.
+	 */
+	private static BufferedImage drawScene(int step, double brightness,
+			double unevenness, double noise, long seed) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(WALL);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		Rectangle crop = GlobalInfo.getCamera().getPitchCrop();
+		g.setColor(PITCH);
+		g.fillRect(crop.x, crop.y, crop.width, crop.height);
+		if (step >= 0) {
+			drawT(g, YELLOW, 
+					180 + 5 * step, 230, 30 + 4 * step);
+			drawT(g, BLUE, 
+					430 - 4 * step, 300, 200 - 6 * step);
+			g.setColor(RED);
+			g.fillOval(320 + 3 * step, 180, BALL_SIZE, BALL_SIZE);
+			// A hand reaching in from the bottom edge.
+			g.setColor(HAND);
+			g.fillRect(520, 380 - 2 * step, 40, 61 + 2 * step);
+			g.fillOval(510, 360 - 2 * step, 60, 40);
+		}
+		g.dispose();
+		light(image, brightness, unevenness, noise, seed);
+		return image;
+	}
+
+	/**
+	 * Draws the T on the top of a robot. The stem of the T points in the
+	 * facing direction of the robot.
+	 * @param g The graphics to draw with.
+	 * @param colour The colour of the T.
+	 * @param x The x coordinate of the centre of the robot.
+	 * @param y The y coordinate of the centre of the robot.
+	 * @param deg The facing direction of the robot in degrees, as the
+	 * vision system reports it.
+	 */
+	private static void drawT(Graphics2D g, Color colour, double x, double y,
+			double deg) {
+		AffineTransform old = g.getTransform();
+		g.translate(x, y);
+		g.rotate(Math.toRadians(-deg));
+		g.setColor(colour);
+		g.fillRect(-12, -20, 10, 40);
+		g.fillRect(-12, -5, 38, 10);
+		g.setTransform(old);
+	}
+
+	/**
+	 * Applies the light and the noise of the camera to a frame: a vignette,
+	 * a gradient from left to right and gaussian noise.
+	 */
+	private static void light(BufferedImage image, double brightness,
+			double unevenness, double noise, long seed) {
+		Random random = new Random(seed);
+		double centreX = WIDTH / 2.0, centreY = HEIGHT / 2.0;
+		double radius2 = centreX * centreX + centreY * centreY;
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				double dx = x - centreX, dy = y - centreY;
+				double factor = brightness
+					* (1 - 0.1 * (dx * dx + dy * dy) / radius2)
+					* (1 - unevenness * x / WIDTH);
+				int rgb = image.getRGB(x, y);
+				int r = channel((rgb >> 16) & 0xFF, factor, noise, random);
+				int gr = channel((rgb >> 8) & 0xFF, factor, noise, random);
+				int b = channel(rgb & 0xFF, factor, noise, random);
+				image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+			}
+		}
+	}
+
+	private static int channel(int value, double factor, double noise,
+			Random random) {
+		int result = (int) Math.round(value * factor + random.nextGaussian() * noise);
+		return Math.max(0, Math.min(255, result));
+	}
+}
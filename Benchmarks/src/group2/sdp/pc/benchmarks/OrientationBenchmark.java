@@ -0,0 +1,86 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.Blob;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.VisualCortex;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *<p><b>OrientationBenchmark:</b> Benchmarks of finding the directions of the robots</br>
+ *<p><b>Description:</b></br>
+ *Finds the directions of both robots in a frame of the {@link Corpus}: from
+ *the moments of their pixels, by walking lines out of their centroids with
+ *{@link VisualCortex#findFacingDirection(BufferedImage, Point, boolean)},
+ *and with {@link VisualCortex#regressionAndDirection(BufferedImage, Blob, boolean)},
+ *which uses either of them. The visual cortex processes the frame in the
+ *setup, since the lines are walked in its colour class mask.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrientationBenchmark {
+
+	@Param({ Corpus.BUSY_1, Corpus.NOISY })
+	public String scene;
+
+	private VisualCortex cortex;
+	private BufferedImage frame;
+	private Blob yellow, blue;
+	private Point yellowCentroid, blueCentroid;
+
+
+	@Setup
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		cortex = new VisualCortex(null);
+		cortex.setRecordLatencies(false);
+		cortex.setBackground(Corpus.load(Corpus.BACKGROUND));
+		frame = Corpus.load(scene);
+		cortex.detect(frame);
+
+		FrameScanner scanner = new FrameScanner();
+		Corpus.scan(scene, scanner);
+		yellow = cortex.getGreatestArea(
+				scanner.getPixels(FrameScanner.YELLOW), new Blob());
+		blue = cortex.getGreatestArea(
+				scanner.getPixels(FrameScanner.BLUE), new Blob());
+		yellowCentroid = yellow.getCentroid();
+		blueCentroid = blue.getCentroid();
+	}
+
+	@Benchmark
+	public double momentDirection() {
+		return cortex.momentDirection(yellow) + cortex.momentDirection(blue);
+	}
+
+	@Benchmark
+	public int findFacingDirection() {
+		return cortex.findFacingDirection(frame, yellowCentroid, true)
+			+ cortex.findFacingDirection(frame, blueCentroid, false);
+	}
+
+	@Benchmark
+	public double regressionAndDirection() {
+		return cortex.regressionAndDirection(frame, yellow, true)
+			+ cortex.regressionAndDirection(frame, blue, false);
+	}
+}
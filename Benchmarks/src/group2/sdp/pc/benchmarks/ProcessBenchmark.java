@@ -0,0 +1,66 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.DetectorVariant;
+import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *<p><b>ProcessBenchmark:</b> Benchmark of processing whole frames</br>
+ *<p><b>Description:</b></br>
+ *Detects the robots and the ball in the frames of the {@link Corpus} with
+ *the visual cortex, configured as each {@link DetectorVariant}. The busy
+ *frames are given in turns, so that the objects move between frames as
+ *they do in a match and the tracking and incremental variants see the
+ *changes they are meant for.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProcessBenchmark {
+
+	@Param({ "STANDARD", "INCREMENTAL", "PYRAMID_2", "PYRAMID_4", 
+		"WEIGHTED", "REGRESSION" })
+	public DetectorVariant variant;
+
+	private VisualCortex cortex;
+	private BufferedImage[] frames;
+	private int next;
+
+
+	@Setup
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		cortex = new VisualCortex(null);
+		cortex.setRecordLatencies(false);
+		variant.apply(cortex);
+		cortex.setBackground(Corpus.load(Corpus.BACKGROUND));
+		frames = new BufferedImage[] { 
+			Corpus.load(Corpus.BUSY_1), Corpus.load(Corpus.BUSY_2) 
+		};
+	}
+
+	@Benchmark
+	public FrameDetections detect() {
+		next = 1 - next;
+		return cortex.detect(frames[next]);
+	}
+}
@@ -0,0 +1,80 @@
+package group2.sdp.pc.benchmarks;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.BackgroundModel;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.PixelReader;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ *<p><b>ScanBenchmark:</b> Benchmark of the background subtraction</br>
+ *<p><b>Description:</b></br>
+ *Scans the whole pitch of a frame of the {@link Corpus} with a
+ *{@link FrameScanner}, as the visual cortex does on a full scan: the
+ *pixels that differ from the background are found and their colours are
+ *classified in the same pass. This is what was done by
+ *getDifferentPixels before the scanner replaced it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScanBenchmark {
+
+	@Param({ Corpus.EMPTY, Corpus.BUSY_1, Corpus.NOISY })
+	public String scene;
+
+	private PixelReader reader = new PixelReader();
+	private BackgroundModel background = new BackgroundModel();
+	private ColourLookupTable colourTable = new ColourLookupTable();
+	private ColourClassMask mask = new ColourClassMask();
+	private FrameScanner scanner = new FrameScanner();
+
+	private Rectangle crop;
+	private int width;
+	private int threshold;
+
+
+	@Setup
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		reader.setImage(Corpus.load(Corpus.BACKGROUND));
+		background.reset(reader);
+		BufferedImage frame = Corpus.load(scene);
+		reader.setImage(frame);
+		width = frame.getWidth();
+		crop = GlobalInfo.getCamera().getPitchCrop();
+		threshold = GlobalInfo.getCamera().getPixelDifferenceThreshold();
+		colourTable.update();
+		mask.reset(crop);
+	}
+
+	@Benchmark
+	public int scan() {
+		mask.clear(scanner.getForeground(), scanner.getForegroundCount(), 
+				scanner.getWidth());
+		scanner.reset(width, crop.width * crop.height);
+		scanner.scan(reader, background, colourTable, mask, crop.x, crop.y, 
+				crop.x + crop.width, crop.y + crop.height, threshold);
+		return scanner.getForegroundCount();
+	}
+}
@@ -0,0 +1,184 @@
+package group2.sdp.pc.breadbin;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Description: The history of the positions of one object on the pitch (the
+ *               ball or a robot), oldest first, up to a fixed number of
+ *               entries. When it is full, adding an entry forgets the oldest
+ *               one.
+ * Contains:    The coordinates, facing directions and time stamps of the
+ *               entries, each in an array of its own that is used as a ring
+ *               buffer. Any entry can be read in constant time and adding
+ *               one allocates nothing.
+ */
+public class ObjectHistory {
+
+	private double[] x;
+	private double[] y;
+	private double[] facingDirection;
+	private long[] timeStamp;
+
+	/**
+	 * The index in the arrays of the oldest entry, and the number of entries.
+	 */
+	private int start;
+	private int size;
+
+	/**
+	 * Indicates whether the object is Alfie.
+	 */
+	private boolean alfie;
+
+
+	/**
+	 * Creates an empty history.
+	 * @param capacity The largest number of entries to keep.
+	 * @param alfie True if the object is Alfie.
+	 */
+	public ObjectHistory(int capacity, boolean alfie) {
+		x = new double[capacity];
+		y = new double[capacity];
+		facingDirection = new double[capacity];
+		timeStamp = new long[capacity];
+		this.alfie = alfie;
+	}
+
+	/**
+	 * Adds an entry as the newest one, forgetting the oldest one if the
+	 * history is full.
+	 * @param position The position of the object.
+	 * @param facingDirection The facing direction of the object; 0 for the
+	 * ball.
+	 * @param timeStamp The time the object was seen at.
+	 */
+	public void add(Point2D position, double facingDirection, long timeStamp) {
+		int index;
+		if (size < x.length) {
+			index = physicalIndex(size);
+			++size;
+		} else {
+			index = start;
+			start = physicalIndex(1);
+		}
+		this.x[index] = position.getX();
+		this.y[index] = position.getY();
+		this.facingDirection[index] = facingDirection;
+		this.timeStamp[index] = timeStamp;
+	}
+
+	/**
+	 * Adds the position of the ball as the newest entry.
+	 * @param ballInfo The static info of the ball.
+	 */
+	public void add(StaticBallInfo ballInfo) {
+		add(ballInfo.getPosition(), 0, ballInfo.getTimeStamp());
+	}
+
+	/**
+	 * Adds the position and facing direction of a robot as the newest entry.
+	 * @param robotInfo The static info of the robot.
+	 */
+	public void add(StaticRobotInfo robotInfo) {
+		add(robotInfo.getPosition(), robotInfo.getFacingDirection(), 
+				robotInfo.getTimeStamp());
+	}
+
+	/**
+	 * Forgets all entries.
+	 */
+	public void clear() {
+		start = 0;
+		size = 0;
+	}
+
+	/**
+	 * Get the number of entries.
+	 * @return The number of entries.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get whether there are no entries.
+	 * @return True if there are no entries.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Get the largest number of entries that are kept.
+	 * @return The largest number of entries that are kept.
+	 */
+	public int getCapacity() {
+		return x.length;
+	}
+
+	/**
+	 * Get the x coordinate of an entry.
+	 * @param i The index of the entry; 0 is the oldest one.
+	 * @return The x coordinate of the object.
+	 */
+	public double getX(int i) {
+		return x[checkedIndex(i)];
+	}
+
+	/**
+	 * Get the y coordinate of an entry.
+	 * @param i The index of the entry; 0 is the oldest one.
+	 * @return The y coordinate of the object.
+	 */
+	public double getY(int i) {
+		return y[checkedIndex(i)];
+	}
+
+	/**
+	 * Get the facing direction of an entry.
+	 * @param i The index of the entry; 0 is the oldest one.
+	 * @return The facing direction of the object.
+	 */
+	public double getFacingDirection(int i) {
+		return facingDirection[checkedIndex(i)];
+	}
+
+	/**
+	 * Get the time stamp of an entry.
+	 * @param i The index of the entry; 0 is the oldest one.
+	 * @return The time the object was seen at.
+	 */
+	public long getTimeStamp(int i) {
+		return timeStamp[checkedIndex(i)];
+	}
+
+	/**
+	 * Get whether the object is Alfie.
+	 * @return True if the object is Alfie.
+	 */
+	public boolean isAlfie() {
+		return alfie;
+	}
+
+	/**
+	 * Gets the index in the arrays of an entry, checking that it exists.
+	 * @param i The index of the entry; 0 is the oldest one.
+	 * @return The index in the arrays.
+	 */
+	private int checkedIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException(
+					"Index: " + i + ", Size: " + size);
+		}
+		return physicalIndex(i);
+	}
+
+	/**
+	 * Gets the index in the arrays of the entry that is i after the oldest
+	 * one, wrapping around the end of the arrays.
+	 */
+	private int physicalIndex(int i) {
+		int index = start + i;
+		return index < x.length ? index : index - x.length;
+	}
+}
@@ -1,40 +1,109 @@
 package group2.sdp.pc.breadbin;
 
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 /**
- * Description: A wrapper around a Linked List of Static Pitch Info objects. 
- *               Can generate lists of the Static Ball Info objects, Alfie's 
- *               Static Robot Info objects, and opponent's Static Robot Info
- *               objects that are contained in the list of SPIs. Convenient.
- * Contains:    Nothing, just extends LinkedList <StaticPitchInfo> and adds new
- *               methods.
+ * Description: The history of the Static Info objects, oldest first, up to a
+ *               fixed number of them. Keeps the history of each object
+ *               separately, so that the histories of the ball, Alfie and
+ *               Alfie's opponent can be read without building lists.
+ *               Convenient.
+ * Contains:    An Object History for the ball, Alfie and Alfie's opponent
+ *               each, and the last Static Info added.
  */
-// We don't use serialisation.
-@SuppressWarnings("serial")
-public class StaticInfoHistory extends LinkedList<StaticInfo> {
-	
-		public LinkedList<StaticBallInfo> getBallInfos() {
-			LinkedList<StaticBallInfo> result = new LinkedList<StaticBallInfo>();
-			for (StaticInfo spi : this) {
-				result.add(spi.getBallInfo());
-			}
-			return result;
-		}
-		
-		public LinkedList<StaticRobotInfo> getOpponentInfos() {
-			LinkedList<StaticRobotInfo> result = new LinkedList<StaticRobotInfo>();
-			for (StaticInfo spi : this) {
-				result.add(spi.getOpponentInfo());
-			}
-			return result;
-		}
-		
-		public LinkedList<StaticRobotInfo> getAlfieInfos() {
-			LinkedList<StaticRobotInfo> result = new LinkedList<StaticRobotInfo>();
-			for (StaticInfo spi : this) {
-				result.add(spi.getAlfieInfo());
-			}
-			return result;
+public class StaticInfoHistory {
+
+	private ObjectHistory ballHistory;
+	private ObjectHistory alfieHistory;
+	private ObjectHistory opponentHistory;
+
+	/**
+	 * The last static info added, or null if there is none.
+	 */
+	private StaticInfo last;
+
+
+	/**
+	 * Creates an empty history.
+	 * @param capacity The largest number of static infos to keep.
+	 */
+	public StaticInfoHistory(int capacity) {
+		ballHistory = new ObjectHistory(capacity, false);
+		alfieHistory = new ObjectHistory(capacity, true);
+		opponentHistory = new ObjectHistory(capacity, false);
+	}
+
+	/**
+	 * Adds a static info as the newest one, forgetting the oldest one if the
+	 * history is full. The positions of all objects must be known.
+	 * @param spi The static info to add.
+	 */
+	public void add(StaticInfo spi) {
+		ballHistory.add(spi.getBallInfo());
+		alfieHistory.add(spi.getAlfieInfo());
+		opponentHistory.add(spi.getOpponentInfo());
+		last = spi;
+	}
+
+	/**
+	 * Forgets all static infos.
+	 */
+	public void clear() {
+		ballHistory.clear();
+		alfieHistory.clear();
+		opponentHistory.clear();
+		last = null;
+	}
+
+	/**
+	 * Get the number of static infos in the history.
+	 * @return The number of static infos in the history.
+	 */
+	public int size() {
+		return ballHistory.size();
+	}
+
+	/**
+	 * Get whether the history is empty.
+	 * @return True if the history is empty.
+	 */
+	public boolean isEmpty() {
+		return last == null;
+	}
+
+	/**
+	 * Get the last static info added.
+	 * @return The last static info added.
+	 * @throws NoSuchElementException If the history is empty.
+	 */
+	public StaticInfo getLast() {
+		if (last == null) {
+			throw new NoSuchElementException();
 		}
+		return last;
+	}
+
+	/**
+	 * Get the history of the ball.
+	 * @return The history of the ball.
+	 */
+	public ObjectHistory getBallHistory() {
+		return ballHistory;
+	}
+
+	/**
+	 * Get the history of Alfie.
+	 * @return The history of Alfie.
+	 */
+	public ObjectHistory getAlfieHistory() {
+		return alfieHistory;
+	}
+
+	/**
+	 * Get the history of Alfie's opponent.
+	 * @return The history of Alfie's opponent.
+	 */
+	public ObjectHistory getOpponentHistory() {
+		return opponentHistory;
+	}
 }
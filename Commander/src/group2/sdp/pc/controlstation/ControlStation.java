@@ -1,6 +1,7 @@
 package group2.sdp.pc.controlstation;
 
 import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
 import group2.sdp.pc.globalinfo.Salvator;
 import group2.sdp.pc.mouth.Mouth;
 import group2.sdp.pc.planner.FieldMarshal;
@@ -8,12 +9,19 @@ import group2.sdp.pc.planner.Overlord;
 import group2.sdp.pc.planner.PathFinder;
 import group2.sdp.pc.vision.Artist;
 import group2.sdp.pc.vision.Bakery;
+import group2.sdp.pc.vision.DetectorVariant;
 import group2.sdp.pc.vision.Eye;
+import group2.sdp.pc.vision.Eye.CaptureMode;
+import group2.sdp.pc.vision.FrameRecorder;
+import group2.sdp.pc.vision.OpticNerve;
+import group2.sdp.pc.vision.ShadowDetector;
 import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
 
 import java.awt.Button;
 import java.awt.Checkbox;
 import java.awt.CheckboxGroup;
+import java.awt.Choice;
 import java.awt.Color;
 import java.awt.EventQueue;
 import java.awt.event.ActionEvent;
@@ -53,6 +61,12 @@ public class ControlStation {
 	private Checkbox leftAlfieCheckbox;
 
 	private Checkbox processImageCheckbox;
+	private Checkbox recordFramesCheckbox;
+	private Checkbox trackObjectsCheckbox;
+	private Checkbox drawOverlayCheckbox;
+	private Choice detectorChoice;
+	private Choice shadowChoice;
+	private Choice threadsChoice;
 
 	private Button connectButton;
 	private Button runButton;
@@ -62,6 +76,7 @@ public class ControlStation {
 	private Button kickButton;
 	private Button penaltyButton;
 	private Button goalieButton;
+	private Button latencyButton;
 
 
 	private static JTextPane txtLog;
@@ -195,15 +210,48 @@ public class ControlStation {
 			// don't load ram if we aren't connected to Alfie
 			alfieMouth.sendLoadRam();
 		}
+		ImageConsumer consumer;
 		if (processImageCheckbox.getState()) {
 			processor = new VisualCortex(bakery, previewer);
-			new Eye(processor);
+			processor.setTracking(trackObjectsCheckbox.getState());
+			processor.setParallelism(threadsChoice.getSelectedIndex() + 1);
+			processor.setDrawOverlay(drawOverlayCheckbox.getState());
+			DetectorVariant.values()[detectorChoice.getSelectedIndex()].apply(processor);
+			setShadow();
+			// The optic nerve moves processing off the capture thread.
+			consumer = new OpticNerve(processor);
 		} else {
-			new Eye(previewer);
+			consumer = previewer;
 		}
+		if (recordFramesCheckbox.getState()) {
+			consumer = new FrameRecorder(consumer, 
+					"recordings/match-" + System.currentTimeMillis(),
+					Eye.DEFAULT_WIDTH, Eye.DEFAULT_HEIGHT);
+		}
+		new Eye(consumer, CaptureMode.RGB);
 
 	}
 
+	/**
+	 * Starts the detector variant selected in the shadow choice in the 
+	 * shadow of the processor, replacing the one that ran before. The report
+	 * of the replaced one is logged.
+	 */
+	private void setShadow() {
+		ShadowDetector old = processor.getShadow();
+		if (old != null) {
+			log(old.getReport());
+		}
+		int index = shadowChoice.getSelectedIndex();
+		if (index == 0) {
+			processor.setShadow(null);
+		} else {
+			DetectorVariant variant = DetectorVariant.values()[index - 1];
+			processor.setShadow(
+					new ShadowDetector(variant.createShadow(processor)));
+		}
+	}
+
 	/**
 	 * Initialise the contents of the frame.
 	 */
@@ -251,6 +299,91 @@ public class ControlStation {
 		processImageCheckbox.setBounds(332, 150, 160, 25);
 		processImageCheckbox.setState(true);
 
+		recordFramesCheckbox = new Checkbox();
+		recordFramesCheckbox.setLabel("Record frames");
+		recordFramesCheckbox.setBounds(514, 150, 160, 25);
+		recordFramesCheckbox.setState(false);
+
+		trackObjectsCheckbox = new Checkbox();
+		trackObjectsCheckbox.setLabel("Track objects");
+		trackObjectsCheckbox.setBounds(332, 178, 160, 25);
+		trackObjectsCheckbox.setState(true);
+		trackObjectsCheckbox.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				if (processor != null) {
+					processor.setTracking(trackObjectsCheckbox.getState());
+				}
+			}
+		});
+
+		// The number of threads that process a frame.
+		threadsChoice = new Choice();
+		int processors = Runtime.getRuntime().availableProcessors();
+		for (int i = 1; i <= processors; ++i) {
+			threadsChoice.add(i == 1 ? "1 thread" : i + " threads");
+		}
+		threadsChoice.setBounds(514, 178, 100, 25);
+		threadsChoice.select(0);
+		threadsChoice.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				if (processor != null) {
+					processor.setParallelism(threadsChoice.getSelectedIndex() + 1);
+				}
+			}
+		});
+
+		// Switch the overlay off during a match, so that the vision never 
+		// spends time on drawing.
+		drawOverlayCheckbox = new Checkbox();
+		drawOverlayCheckbox.setLabel("Draw overlay");
+		drawOverlayCheckbox.setBounds(514, 208, 100, 25);
+		drawOverlayCheckbox.setState(true);
+		drawOverlayCheckbox.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				if (processor != null) {
+					processor.setDrawOverlay(drawOverlayCheckbox.getState());
+				}
+			}
+		});
+
+		// The detector to run, and the one to compare it to in its shadow.
+		detectorChoice = new Choice();
+		shadowChoice = new Choice();
+		shadowChoice.add("No shadow");
+		for (DetectorVariant variant : DetectorVariant.values()) {
+			detectorChoice.add(variant.toString());
+			shadowChoice.add("Shadow: " + variant);
+		}
+		detectorChoice.setBounds(332, 240, 160, 25);
+		detectorChoice.select(0);
+		detectorChoice.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				if (processor != null) {
+					DetectorVariant.values()[detectorChoice.getSelectedIndex()]
+					                         .apply(processor);
+				}
+			}
+		});
+		shadowChoice.setBounds(514, 240, 100, 25);
+		shadowChoice.select(0);
+		shadowChoice.addItemListener(new ItemListener() {
+
+			@Override
+			public void itemStateChanged(ItemEvent e) {
+				if (processor != null) {
+					setShadow();
+				}
+			}
+		});
+
 		runButton = new Button();
 		runButton.setLabel("Initialise");
 		runButton.setBounds(332, 208, 100, 25);
@@ -275,6 +408,7 @@ public class ControlStation {
 
 				connectButton.setEnabled(false);
 				processImageCheckbox.setEnabled(false);
+				recordFramesCheckbox.setEnabled(false);
 				runButton.setEnabled(false);
 			}
 		});
@@ -321,6 +455,8 @@ public class ControlStation {
 				if (lord != null) {
 					lord.start();
 				}
+				// The latencies of the match only.
+				LatencyMonitor.reset();
 				if(!isProcessing){
 					log("IMAGE IS NOT BEING PROCESSED");
 				}
@@ -381,11 +517,23 @@ public class ControlStation {
 						log("Mouth is already shut.");
 					}
 				}
+				LatencyMonitor.dump("recordings/latency-" 
+						+ System.currentTimeMillis() + ".txt");
 			}
 
 
 		});
 
+		latencyButton = new Button();
+		latencyButton.setLabel("Latencies");
+		latencyButton.setBounds(332, 270, 100, 25);
+		latencyButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				log(LatencyMonitor.getReport());
+			}
+		});
+
 		chargeButton = new Button();
 		chargeButton.setLabel("Charge!");
 		chargeButton.setBounds(332, 400, 100, 25);
@@ -433,6 +581,12 @@ public class ControlStation {
 
 		frmAlfieCommandCentre.getContentPane().add(connectButton);
 		frmAlfieCommandCentre.getContentPane().add(processImageCheckbox);
+		frmAlfieCommandCentre.getContentPane().add(recordFramesCheckbox);
+		frmAlfieCommandCentre.getContentPane().add(trackObjectsCheckbox);
+		frmAlfieCommandCentre.getContentPane().add(threadsChoice);
+		frmAlfieCommandCentre.getContentPane().add(drawOverlayCheckbox);
+		frmAlfieCommandCentre.getContentPane().add(detectorChoice);
+		frmAlfieCommandCentre.getContentPane().add(shadowChoice);
 		frmAlfieCommandCentre.getContentPane().add(runButton);
 
 		frmAlfieCommandCentre.getContentPane().add(startPlanningButton);
@@ -441,6 +595,7 @@ public class ControlStation {
 		frmAlfieCommandCentre.getContentPane().add(stopPlanningButton);
 		frmAlfieCommandCentre.getContentPane().add(chargeButton);
 		frmAlfieCommandCentre.getContentPane().add(kickButton);
+		frmAlfieCommandCentre.getContentPane().add(latencyButton);
 		
 		frmAlfieCommandCentre.getContentPane().add(txtLog);
 
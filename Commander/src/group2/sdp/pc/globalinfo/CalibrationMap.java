@@ -0,0 +1,200 @@
+package group2.sdp.pc.globalinfo;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Description: The map from the pixels of the image of a camera to the
+ *               coordinates on its pitch, in centimetres, with the origin at
+ *               the centre of the pitch and the Y coordinate growing from
+ *               bottom to top. It is computed once for a configuration of
+ *               the camera and the pitch, so that converting a position
+ *               takes a single lookup.
+ * Contains:    The coordinates of the points of a grid over the pitch crop,
+ *               every {@link #GRID_STEP} pixels, both for points on the
+ *               pitch and for points at the height of the plates of the
+ *               robots. The positions between the points of the grid are
+ *               interpolated bilinearly.
+ *
+ * Each point of the grid goes through three corrections:
+ *
+ * 1. The radial distortion of the lens: a pixel at distance r from the
+ *    centre of the crop, in half diagonals of the crop, is moved to
+ *    distance r * (1 + k1 * r^2), see {@link Camera#getRadialDistortion()}.
+ *
+ * 2. The linear map from the pitch crop to the pitch.
+ *
+ * 3. For the plates of the robots, the parallax. The camera sees a plate at
+ *    height h at the position of the point of the pitch that is further
+ *    from the centre by delta:
+ *
+ * Camera
+ *   .
+ *   |\
+ *   | \
+ *   |  \
+ * H |   \
+ *   |____\  <- robot plate.
+ *   |   h|\
+ *   |____|_\
+ *       delta
+ *      d
+ *
+ *    so delta = d * h / H and the position of the plate is the one of the
+ *    pitch scaled by (d - delta) / d = 1 - h / H.
+ */
+public class CalibrationMap {
+
+	/**
+	 * The distance between the points of the grid, in pixels.
+	 */
+	public static final int GRID_STEP = 4;
+
+	/**
+	 * The configuration the map was computed for.
+	 */
+	private Rectangle pitchCrop;
+	private Rectangle2D pitchRectangle;
+	private double distanceFromPitch;
+	private double radialDistortion;
+	private double plateHeight;
+
+	/**
+	 * The number of points of the grid across and down.
+	 */
+	private int columns, rows;
+
+	/**
+	 * The coordinates of the points of the grid on the pitch and at the
+	 * height of the plates, indexed by row * columns + column.
+	 */
+	private float[] groundX, groundY;
+	private float[] plateX, plateY;
+
+
+	/**
+	 * Computes the map of the given pitch, as seen by its camera.
+	 * @param pitch The pitch.
+	 * @param plateHeight The height of the plates of the robots, in
+	 * centimetres.
+	 */
+	public CalibrationMap(Pitch pitch, double plateHeight) {
+		Camera camera = pitch.getCamera();
+		this.pitchCrop = new Rectangle(camera.getPitchCrop());
+		this.pitchRectangle = (Rectangle2D) pitch.getMinimumEnclosingRectangle().clone();
+		this.distanceFromPitch = camera.getDistanceFromPitch();
+		this.radialDistortion = camera.getRadialDistortion();
+		this.plateHeight = plateHeight;
+
+		columns = (pitchCrop.width + GRID_STEP - 1) / GRID_STEP + 1;
+		rows = (pitchCrop.height + GRID_STEP - 1) / GRID_STEP + 1;
+		groundX = new float[columns * rows];
+		groundY = new float[columns * rows];
+		plateX = new float[columns * rows];
+		plateY = new float[columns * rows];
+
+		double centreX = pitchCrop.getCenterX();
+		double centreY = pitchCrop.getCenterY();
+		double halfDiagonal2 =
+			(pitchCrop.getWidth() * pitchCrop.getWidth()
+					+ pitchCrop.getHeight() * pitchCrop.getHeight()) / 4;
+		double scaleX = pitchRectangle.getWidth() / pitchCrop.getWidth();
+		double scaleY = pitchRectangle.getHeight() / pitchCrop.getHeight();
+		double parallax = 1 - plateHeight / distanceFromPitch;
+		for (int row = 0; row < rows; ++row) {
+			for (int column = 0; column < columns; ++column) {
+				double dx = pitchCrop.x + column * GRID_STEP - centreX;
+				double dy = pitchCrop.y + row * GRID_STEP - centreY;
+				double r2 = (dx * dx + dy * dy) / halfDiagonal2;
+				double factor = 1 + radialDistortion * r2;
+				double x = centreX + dx * factor;
+				double y = centreY + dy * factor;
+
+				x = (x - pitchCrop.getMinX()) * scaleX + pitchRectangle.getMinX();
+				y = -((y - pitchCrop.getMinY()) * scaleY + pitchRectangle.getMinY());
+
+				int index = row * columns + column;
+				groundX[index] = (float) x;
+				groundY[index] = (float) y;
+				plateX[index] = (float) (x * parallax);
+				plateY[index] = (float) (y * parallax);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the map was computed for the current configuration of the
+	 * given pitch and its camera.
+	 * @param pitch The pitch.
+	 * @param plateHeight The height of the plates of the robots.
+	 * @return True if the map is up to date.
+	 */
+	public boolean isFor(Pitch pitch, double plateHeight) {
+		Camera camera = pitch.getCamera();
+		return pitchCrop.equals(camera.getPitchCrop())
+			&& pitchRectangle.equals(pitch.getMinimumEnclosingRectangle())
+			&& distanceFromPitch == camera.getDistanceFromPitch()
+			&& radialDistortion == camera.getRadialDistortion()
+			&& this.plateHeight == plateHeight;
+	}
+
+	/**
+	 * Converts a position in the image to the coordinates on the pitch.
+	 * Positions outside the pitch crop are extrapolated from the closest
+	 * cell of the grid.
+	 * @param x The x coordinate of the position in the image, in pixels.
+	 * @param y The y coordinate of the position in the image, in pixels.
+	 * @param plate True for a position at the height of the plates of the
+	 * robots, false for a position on the pitch.
+	 * @return The coordinates on the pitch, in centimetres.
+	 */
+	public Point2D toPitch(double x, double y, boolean plate) {
+		return toPitch(x, y, plate, new Point2D.Float());
+	}
+
+	/**
+	 * Converts a position in the image to the coordinates on the pitch, see
+	 * {@link #toPitch(double, double, boolean)}, without allocating.
+	 * @param x The x coordinate of the position in the image, in pixels.
+	 * @param y The y coordinate of the position in the image, in pixels.
+	 * @param plate True for a position at the height of the plates of the
+	 * robots, false for a position on the pitch.
+	 * @param result The point to put the coordinates in.
+	 * @return The given point, set to the coordinates on the pitch, in 
+	 * centimetres.
+	 */
+	public Point2D toPitch(double x, double y, boolean plate, Point2D result) {
+		double gridX = (x - pitchCrop.x) / GRID_STEP;
+		double gridY = (y - pitchCrop.y) / GRID_STEP;
+		int column = Math.max(0, Math.min(columns - 2, (int) Math.floor(gridX)));
+		int row = Math.max(0, Math.min(rows - 2, (int) Math.floor(gridY)));
+		double tx = gridX - column;
+		double ty = gridY - row;
+		int index = row * columns + column;
+		float[] xs = plate ? plateX : groundX;
+		float[] ys = plate ? plateY : groundY;
+		// The grid is in single precision.
+		result.setLocation(
+				(float) interpolate(xs, index, tx, ty),
+				(float) interpolate(ys, index, tx, ty)
+		);
+		return result;
+	}
+
+	/**
+	 * Interpolates the values of a cell of the grid bilinearly.
+	 * @param values The values of the points of the grid.
+	 * @param index The index of the top left point of the cell.
+	 * @param tx The horizontal position within the cell, 0 to 1.
+	 * @param ty The vertical position within the cell, 0 to 1.
+	 * @return The interpolated value.
+	 */
+	private double interpolate(float[] values, int index, double tx, double ty) {
+		double top = values[index]
+		                    + (values[index + 1] - values[index]) * tx;
+		double bottom = values[index + columns]
+		                    + (values[index + columns + 1] - values[index + columns]) * tx;
+		return top + (bottom - top) * ty;
+	}
+}
@@ -59,6 +59,14 @@ public class Camera {
 	 */
 	private int pixelDifferenceThreshold;
 
+	/**
+	 * The coefficient k1 of the radial distortion of the lens: a pixel at 
+	 * distance r from the centre of the pitch crop, in half diagonals of the
+	 * crop, shows the point at distance r * (1 + k1 * r^2). 0 for a lens 
+	 * without distortion.
+	 */
+	private double radialDistortion;
+
 	
 	/**
 	 * Default constructor.
@@ -152,4 +160,23 @@ public class Camera {
 	public int getPixelDifferenceThreshold() {
 		return pixelDifferenceThreshold;
 	}
+
+	/**
+	 * Set the coefficient k1 of the radial distortion of the lens: a pixel
+	 * at distance r from the centre of the pitch crop, in half diagonals of
+	 * the crop, shows the point at distance r * (1 + k1 * r^2).
+	 * @param radialDistortion The coefficient of the radial distortion of 
+	 * the lens; 0 for no distortion.
+	 */
+	public void setRadialDistortion(double radialDistortion) {
+		this.radialDistortion = radialDistortion;
+	}
+
+	/**
+	 * Get the coefficient k1 of the radial distortion of the lens.
+	 * @return The coefficient of the radial distortion of the lens.
+	 */
+	public double getRadialDistortion() {
+		return radialDistortion;
+	}
 }
@@ -1,5 +1,7 @@
 package group2.sdp.pc.globalinfo;
 
+import group2.sdp.pc.breadbin.StaticRobotInfo;
+
 import java.awt.geom.Point2D;
 
 /**
@@ -44,6 +46,12 @@ public class GlobalInfo {
 	 */
 	private static Pitch pitch = new Pitch();
 
+	/**
+	 * The map from the pixels of the camera to the coordinates on the pitch;
+	 * computed when first needed.
+	 */
+	private static CalibrationMap calibrationMap;
+
 	/**
 	 * Get the camera of the pitch of the global info. 
 	 * @return The camera of the pitch of the global info.
@@ -196,6 +204,7 @@ public class GlobalInfo {
 	 */
 	public static void setPitchOne(boolean pitchOne) {
 		GlobalInfo.pitchOne = pitchOne;
+		calibrationMap = null;
 		if (pitchOne) {
 			setPitch(Pitch.ONE);
 		} else {
@@ -213,6 +222,21 @@ public class GlobalInfo {
 		return pitch;
 	}
 
+	/**
+	 * Get the map from the pixels of the camera to the coordinates on the 
+	 * pitch on which the game is being played. It is computed again if the
+	 * pitch or its camera changed since it was last computed.
+	 * @return The calibration map of the pitch.
+	 */
+	public static CalibrationMap getCalibrationMap() {
+		CalibrationMap map = calibrationMap;
+		if (map == null || !map.isFor(pitch, StaticRobotInfo.getHeight())) {
+			map = new CalibrationMap(pitch, StaticRobotInfo.getHeight());
+			calibrationMap = map;
+		}
+		return map;
+	}
+
 	/**
 	 * Set the non-changing information about the pitch on which the game is 
 	 * being played.
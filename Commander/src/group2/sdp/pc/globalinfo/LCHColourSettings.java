@@ -167,6 +167,12 @@ public class LCHColourSettings {
 	private int grayChromaStart;
 	private int grayChromaEnd;
 	
+	/**
+	 * Incremented whenever a setting changes, so that objects derived from 
+	 * the settings (e.g. lookup tables) know when to update.
+	 */
+	private volatile int version;
+	
 	
 	/**
 	 * Default constructor.
@@ -579,115 +585,167 @@ public class LCHColourSettings {
 
 	public void setPlateHueStart(int plateHueStart) {
 		this.plateHueStart = plateHueStart;
+		changed();
 	}
 	public void setPlateHueEnd(int plateHueEnd) {
 		this.plateHueEnd = plateHueEnd;
+		changed();
 	}
 	public void setPlateLumaStart(int plateLumaStart) {
 		this.plateLumaStart = plateLumaStart;
+		changed();
 	}
 	public void setPlateLumaEnd(int plateLumaEnd) {
 		this.plateLumaEnd = plateLumaEnd;
+		changed();
 	}
 	public void setPlateChromaStart(int plateChromaStart) {
 		this.plateChromaStart = plateChromaStart;
+		changed();
 	}
 	public void setPlateChromaEnd(int plateChromaEnd) {
 		this.plateChromaEnd = plateChromaEnd;
+		changed();
 	}
 
 	public void setPitchHueStart(int pitchHueStart) {
 		this.pitchHueStart = pitchHueStart;
+		changed();
 	}
 	public void setPitchHueEnd(int pitchHueEnd) {
 		this.pitchHueEnd = pitchHueEnd;
+		changed();
 	}
 	public void setPitchLumaStart(int pitchLumaStart) {
 		this.pitchLumaStart = pitchLumaStart;
+		changed();
 	}
 	public void setPitchLumaEnd(int pitchLumaEnd) {
 		this.pitchLumaEnd = pitchLumaEnd;
+		changed();
 	}
 	public void setPitchChromaStart(int pitchChromaStart) {
 		this.pitchChromaStart = pitchChromaStart;
+		changed();
 	}
 	public void setPitchChromaEnd(int pitchChromaEnd) {
 		this.pitchChromaEnd = pitchChromaEnd;
+		changed();
 	}
 	
 	public void setBlueHueStart(int blueHueStart) {
 		this.blueHueStart = blueHueStart;
+		changed();
 	}
 	public void setBlueHueEnd(int blueHueEnd) {
 		this.blueHueEnd = blueHueEnd;
+		changed();
 	}
 	public void setBlueLumaStart(int blueLumaStart) {
 		this.blueLumaStart = blueLumaStart;
+		changed();
 	}
 	public void setBlueLumaEnd(int blueLumaEnd) {
 		this.blueLumaEnd = blueLumaEnd;
+		changed();
 	}
 	public void setBlueChromaStart(int blueChromaStart) {
 		this.blueChromaStart = blueChromaStart;
+		changed();
 	}
 	public void setBlueChromaEnd(int blueChromaEnd) {
 		this.blueChromaEnd = blueChromaEnd;
+		changed();
 	}
 	
 	public void setRedHueStart(int redHueStart) {
 		this.redHueStart = redHueStart;
+		changed();
 	}
 	public void setRedHueEnd(int redHueEnd) {
 		this.redHueEnd = redHueEnd;
+		changed();
 	}
 	public void setRedLumaStart(int redLumaStart) {
 		this.redLumaStart = redLumaStart;
+		changed();
 	}
 	public void setRedLumaEnd(int redLumaEnd) {
 		this.redLumaEnd = redLumaEnd;
+		changed();
 	}
 	public void setRedChromaStart(int redChromaStart) {
 		this.redChromaStart = redChromaStart;
+		changed();
 	}
 	public void setRedChromaEnd(int redChromaEnd) {
 		this.redChromaEnd = redChromaEnd;
+		changed();
 	}
 	
 	public void setYellowHueStart(int yellowHueStart) {
 		this.yellowHueStart = yellowHueStart;
+		changed();
 	}
 	public void setYellowHueEnd(int yellowHueEnd) {
 		this.yellowHueEnd = yellowHueEnd;
+		changed();
 	}
 	public void setYellowLumaStart(int yellowLumaStart) {
 		this.yellowLumaStart = yellowLumaStart;
+		changed();
 	}
 	public void setYellowLumaEnd(int yellowLumaEnd) {
 		this.yellowLumaEnd = yellowLumaEnd;
+		changed();
 	}
 	public void setYellowChromaStart(int yellowChromaStart) {
 		this.yellowChromaStart = yellowChromaStart;
+		changed();
 	}
 	public void setYellowChromaEnd(int yellowChromaEnd) {
 		this.yellowChromaEnd = yellowChromaEnd;
+		changed();
 	}
 	
 	public void setGrayHueStart(int grayHueStart) {
 		this.grayHueStart = grayHueStart;
+		changed();
 	}
 	public void setGrayHueEnd(int grayHueEnd) {
 		this.grayHueEnd = grayHueEnd;
+		changed();
 	}
 	public void setGrayLumaStart(int grayLumaStart) {
 		this.grayLumaStart = grayLumaStart;
+		changed();
 	}
 	public void setGrayLumaEnd(int grayLumaEnd) {
 		this.grayLumaEnd = grayLumaEnd;
+		changed();
 	}
 	public void setGrayChromaStart(int grayChromaStart) {
 		this.grayChromaStart = grayChromaStart;
+		changed();
 	}
 	public void setGrayChromaEnd(int grayChromaEnd) {
 		this.grayChromaEnd = grayChromaEnd;
+		changed();
+	}
+	
+	/**
+	 * Get the number of changes made to the settings. Changes whenever a 
+	 * setting changes.
+	 * @return The number of changes made to the settings.
+	 */
+	public int getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Records that a setting changed.
+	 */
+	private void changed() {
+		++version;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,153 @@
+package group2.sdp.pc.globalinfo;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Description: A histogram of durations in nanoseconds, with a bounded
+ *               relative error, in the manner of an HDR histogram. The
+ *               buckets are allocated once; recording a duration allocates
+ *               nothing and takes no lock, so it can be done on every frame
+ *               from any thread.
+ * Contains:    The number of durations in each bucket, their count, sum
+ *               and maximum. Durations below 2 * {@link #SUB_BUCKET_COUNT}
+ *               nanoseconds have a bucket each. Above that, each power of
+ *               two is split into {@link #SUB_BUCKET_COUNT} buckets, so a
+ *               duration is known to within 1 / SUB_BUCKET_COUNT of it
+ *               (about 3%). Durations above {@link #MAX_VALUE} are counted
+ *               in the last bucket.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of buckets each power of two is split into, and its
+	 * logarithm.
+	 */
+	private static final int SUB_BUCKET_BITS = 5;
+	public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The largest duration that is told apart from longer ones, about 18
+	 * minutes.
+	 */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	private static final int BUCKET_COUNT = bucketOf(MAX_VALUE) + 1;
+
+	private AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private AtomicLong count = new AtomicLong();
+	private AtomicLong sum = new AtomicLong();
+	private AtomicLong max = new AtomicLong();
+
+
+	/**
+	 * Records a duration.
+	 * @param nanos The duration, in nanoseconds; negative ones are counted
+	 * as 0.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucketOf(Math.min(nanos, MAX_VALUE)));
+		count.incrementAndGet();
+		sum.addAndGet(nanos);
+		long oldMax = max.get();
+		while (nanos > oldMax && !max.compareAndSet(oldMax, nanos)) {
+			oldMax = max.get();
+		}
+	}
+
+	/**
+	 * Forgets the durations recorded so far. Durations that are recorded
+	 * at the same time may be lost or half counted.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; ++i) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Get the number of durations recorded.
+	 * @return The number of durations recorded.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Get the longest duration recorded, exactly.
+	 * @return The longest duration, in nanoseconds.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get the mean of the durations recorded, exactly.
+	 * @return The mean duration, in nanoseconds, or 0 if there are none.
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double) sum.get() / n;
+	}
+
+	/**
+	 * Gets the duration that the given percentage of the recorded ones do
+	 * not exceed, to within the precision of the buckets.
+	 * @param percentile The percentage, from 0 to 100.
+	 * @return The highest duration of the bucket the percentile falls in,
+	 * but no more than the maximum, in nanoseconds; 0 if there are none.
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Gets the bucket of a duration.
+	 * @param value The duration, from 0 to {@link #MAX_VALUE}.
+	 * @return The index of the bucket.
+	 */
+	static int bucketOf(long value) {
+		if (value < 2 * SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int top = (int) (value >> shift);
+		return SUB_BUCKET_COUNT * shift + top;
+	}
+
+	/**
+	 * Gets the highest duration that falls in a bucket.
+	 * @param bucket The index of the bucket.
+	 * @return The highest duration of the bucket.
+	 */
+	static long highestValueOf(int bucket) {
+		if (bucket < 2 * SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKET_COUNT - 1;
+		long top = SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT;
+		return ((top + 1) << shift) - 1;
+	}
+}
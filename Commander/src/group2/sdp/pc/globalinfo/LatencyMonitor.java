@@ -0,0 +1,252 @@
+package group2.sdp.pc.globalinfo;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Description: The latencies of the stages of the pipeline, from capturing
+ *               a frame to writing a command to Alfie. Each stage records
+ *               the time it took when it is done, in its own histogram.
+ *               The stages pass the data to the next stage at their end, so
+ *               a stage only times its own work, up to the call of the next
+ *               stage. A stage that calls another one in the middle of its
+ *               work, as the PathFinder calls the Mouth, records its time
+ *               without the time of the nested stage, see 
+ *               {@link #recordNestedSince(Stage, long)}. Thus the stages
+ *               are disjoint, and only TOTAL spans the others.
+ * Contains:    A {@link LatencyHistogram} for each {@link Stage}, and the
+ *               means to summarise them, for the ControlStation, and to
+ *               save the summary at the end of a match.
+ */
+public class LatencyMonitor {
+
+	/**
+	 * The stages of the pipeline, in order.
+	 */
+	public enum Stage {
+		/**
+		 * From the capture time-stamp of the driver to handing the frame
+		 * over, on the capture thread: the driver, the conversion of the
+		 * frame and the capture callback.
+		 */
+		CAPTURE("Capture"),
+		/**
+		 * Copying the frame into a slot of the OpticNerve, on the capture
+		 * thread.
+		 */
+		COPY("Slot copy"),
+		/**
+		 * Waiting for the processing thread to take the copied frame.
+		 */
+		QUEUE("Queue"),
+		/**
+		 * Subtracting the background and classifying the colours of the
+		 * foreground, which are done in a single pass over the frame.
+		 */
+		SCAN("Subtraction and classification"),
+		/**
+		 * Finding the largest connected area of each object.
+		 */
+		BLOB_FINDING("Blob finding"),
+		/**
+		 * Finding the directions of the robots.
+		 */
+		ORIENTATION("Orientation"),
+		BAKERY("Bakery"),
+		OVERLORD("Overlord"),
+		FIELD_MARSHAL("FieldMarshal"),
+		/**
+		 * Without the writes to Alfie it makes, which are MOUTH_WRITE.
+		 */
+		PATH_FINDER("PathFinder"),
+		MOUTH_WRITE("Mouth write"),
+		/**
+		 * From the capture time-stamp of the driver to the end of the
+		 * processing of the frame, through all of the stages above.
+		 * Frames that do not come from the driver are timed from their
+		 * hand-off instead, see {@link group2.sdp.pc.vision.Eye#getCaptureTime()}.
+		 */
+		TOTAL("Capture to end");
+
+		private String name;
+
+		private Stage(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private static final Stage[] STAGES = Stage.values();
+
+	private static LatencyHistogram[] histograms =
+		new LatencyHistogram[STAGES.length];
+	static {
+		for (int i = 0; i < STAGES.length; ++i) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Indicates whether to record the latencies at all.
+	 */
+	private static volatile boolean enabled = true;
+
+	/**
+	 * The time spent in nested stages on each thread so far, in 
+	 * nanoseconds, see {@link #recordNestedSince(Stage, long)}.
+	 */
+	private static final ThreadLocal<long[]> nestedTime = 
+		new ThreadLocal<long[]>() {
+			@Override
+			protected long[] initialValue() {
+				return new long[1];
+			}
+		};
+
+
+	/**
+	 * Records the time a stage took, if enabled.
+	 * @param stage The stage.
+	 * @param nanos The time the stage took, in nanoseconds.
+	 */
+	public static void record(Stage stage, long nanos) {
+		if (enabled) {
+			histograms[stage.ordinal()].record(nanos);
+		}
+	}
+
+	/**
+	 * Records the time a stage took, from its start until now, if enabled.
+	 * @param stage The stage.
+	 * @param start The value of System.nanoTime() when the stage started.
+	 * @return The current value of System.nanoTime(), for the next stage to
+	 * start from.
+	 */
+	public static long recordSince(Stage stage, long start) {
+		long now = System.nanoTime();
+		record(stage, now - start);
+		return now;
+	}
+
+	/**
+	 * Records the time of a stage that may be called by another stage in
+	 * the middle of its work, from its start until now, if enabled. The 
+	 * time is also added to the nested time of the current thread, for the
+	 * calling stage to leave out, see 
+	 * {@link #recordExcludingNested(Stage, long, long)}.
+	 * @param stage The nested stage.
+	 * @param start The value of System.nanoTime() when the stage started.
+	 * @return The current value of System.nanoTime().
+	 */
+	public static long recordNestedSince(Stage stage, long start) {
+		long now = System.nanoTime();
+		record(stage, now - start);
+		nestedTime.get()[0] += now - start;
+		return now;
+	}
+
+	/**
+	 * Get the time spent in nested stages on the current thread so far. A
+	 * stage that calls nested stages takes it when it starts.
+	 * @return The time spent in nested stages, in nanoseconds.
+	 */
+	public static long getNestedTime() {
+		return nestedTime.get()[0];
+	}
+
+	/**
+	 * Records the time a stage took, from its start until now, without the
+	 * nested stages it called on the current thread meanwhile, if enabled.
+	 * @param stage The stage.
+	 * @param start The value of System.nanoTime() when the stage started.
+	 * @param nestedStart The value of {@link #getNestedTime()} when the 
+	 * stage started.
+	 * @return The current value of System.nanoTime().
+	 */
+	public static long recordExcludingNested(Stage stage, long start, 
+			long nestedStart) {
+		long now = System.nanoTime();
+		record(stage, now - start - (getNestedTime() - nestedStart));
+		return now;
+	}
+
+	/**
+	 * Get the histogram of a stage.
+	 * @param stage The stage.
+	 * @return The histogram of the stage.
+	 */
+	public static LatencyHistogram getHistogram(Stage stage) {
+		return histograms[stage.ordinal()];
+	}
+
+	/**
+	 * Forgets the latencies recorded so far, e.g. at the start of a match.
+	 */
+	public static void reset() {
+		for (LatencyHistogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Gets a summary of the latencies: the count, the mean, the median, the
+	 * 99th percentile and the maximum of each stage, in milliseconds.
+	 * @return The summary, one line per stage.
+	 */
+	public static String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-32s %8s %8s %8s %8s %8s",
+				"Stage (ms)", "count", "mean", "p50", "p99", "max"));
+		for (Stage stage : STAGES) {
+			LatencyHistogram histogram = getHistogram(stage);
+			report.append(String.format("%n%-32s %8d %8.3f %8.3f %8.3f %8.3f",
+					stage, histogram.getCount(),
+					histogram.getMean() / 1e6,
+					histogram.getPercentile(50) / 1e6,
+					histogram.getPercentile(99) / 1e6,
+					histogram.getMax() / 1e6));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Saves the summary of the latencies in the given file, creating its
+	 * directory if needed.
+	 * @param fileName The name of the file.
+	 */
+	public static void dump(String fileName) {
+		File file = new File(fileName);
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		try {
+			FileWriter fout = new FileWriter(file);
+			fout.write(getReport());
+			fout.write(String.format("%n"));
+			fout.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Set whether to record the latencies.
+	 * @param enabled True to record the latencies.
+	 */
+	public static void setEnabled(boolean enabled) {
+		LatencyMonitor.enabled = enabled;
+	}
+
+	/**
+	 * Get whether the latencies are recorded.
+	 * @return True if the latencies are recorded.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+}
@@ -1,6 +1,8 @@
 package group2.sdp.pc.mouth;
 
 import group2.sdp.common.candypacket.CandyPacket;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -216,7 +218,7 @@ public class Mouth implements MouthInterface {
 	 * @param VERBOSE If true, the bytes are printed before being sent.
 	 */
 	private void sendCandyPacket(CandyPacket packet) {
-		//long start = System.currentTimeMillis();
+		long start = System.nanoTime();
 		boolean success = false;
 		do {
 			try {
@@ -259,7 +261,7 @@ public class Mouth implements MouthInterface {
 //			}
 		} while (!success) ;
 		
-		//System.out.println(System.currentTimeMillis() - start);
+		LatencyMonitor.recordNestedSince(Stage.MOUTH_WRITE, start);
 	}
 	
 	/**
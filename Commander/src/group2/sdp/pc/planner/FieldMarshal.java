@@ -6,6 +6,8 @@ import group2.sdp.pc.breadbin.StaticBallInfo;
 import group2.sdp.pc.breadbin.StaticRobotInfo;
 import group2.sdp.pc.globalinfo.DynamicInfoChecker;
 import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 import group2.sdp.pc.planner.operation.Operation;
 import group2.sdp.pc.planner.operation.OperationOverload;
 import group2.sdp.pc.planner.operation.OperationPenaltyDefend;
@@ -415,6 +417,7 @@ public class FieldMarshal implements DynamicInfoConsumer, StrategyConsumer {
 	 */
 	@Override
 	public void consumeInfo(DynamicInfo dpi) {
+		long start = System.nanoTime();
 		boolean success = operationSuccessful(dpi);
 		boolean fail = operationFailed(dpi);
 		if (replan || success || fail) {
@@ -428,6 +431,7 @@ public class FieldMarshal implements DynamicInfoConsumer, StrategyConsumer {
 			plannedStrategy = currentStrategy;
 			replan = false;
 		}
+		LatencyMonitor.recordSince(Stage.FIELD_MARSHAL, start);
 		dynamicInfoConsumer.consumeInfo(dpi);
 	}
 	
@@ -5,6 +5,8 @@ import group2.sdp.pc.breadbin.DynamicInfo;
 import group2.sdp.pc.breadbin.DynamicRobotInfo;
 import group2.sdp.pc.controlstation.ControlStation;
 import group2.sdp.pc.globalinfo.DynamicInfoChecker;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 import group2.sdp.pc.planner.skeleton.StrategyConsumer;
 import group2.sdp.pc.planner.strategy.Strategy;
 import group2.sdp.pc.vision.Bakery;
@@ -134,6 +136,7 @@ public class Overlord implements DynamicInfoConsumer {
 	@Override
 	public void consumeInfo(DynamicInfo dpi) {
 		if (running) {
+			long start = System.nanoTime();
 			long now = System.currentTimeMillis();
 			if (now - lastStrategyIssueTime > REPLAN_PERIOD) {
 				lastStrategyIssueTime = now;
@@ -143,6 +146,7 @@ public class Overlord implements DynamicInfoConsumer {
 					currentStrategy = strategy;
 				}
 			}
+			LatencyMonitor.recordSince(Stage.OVERLORD, start);
 			dynamicInfoConsumer.consumeInfo(dpi);
 		}
 	}
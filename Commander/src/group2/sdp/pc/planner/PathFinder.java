@@ -7,6 +7,8 @@ import group2.sdp.pc.breadbin.DynamicRobotInfo;
 import group2.sdp.pc.breadbin.StaticRobotInfo;
 import group2.sdp.pc.globalinfo.DynamicInfoChecker;
 import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 import group2.sdp.pc.mouth.MouthInterface;
 import group2.sdp.pc.planner.operation.Operation;
 import group2.sdp.pc.planner.operation.OperationPenaltyDefend;
@@ -77,6 +79,8 @@ public class PathFinder implements DynamicInfoConsumer, OperationConsumer{
 	
 	@Override
 	public void consumeInfo(DynamicInfo dpi) {
+		long start = System.nanoTime();
+		long nestedStart = LatencyMonitor.getNestedTime();
 		if (replan || currentStep == null) {
 			plan(dpi);
 			executeNextStep(dpi);
@@ -96,6 +100,7 @@ public class PathFinder implements DynamicInfoConsumer, OperationConsumer{
 				plan(dpi);
 			}
 		}
+		LatencyMonitor.recordExcludingNested(Stage.PATH_FINDER, start, nestedStart);
 	}
 	
 	public void executeNextStep(DynamicInfo dpi) {	
@@ -0,0 +1,82 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.BackgroundModel;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.PixelReader;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class BackgroundModelTest {
+
+	private static final int WIDTH = 64;
+	private static final int HEIGHT = 48;
+
+	private BufferedImage makeImage(Color colour) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+				BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		g.setColor(colour);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.dispose();
+		return image;
+	}
+
+	@Test
+	public void testFollowsLighting() {
+		PixelReader reader = new PixelReader();
+		reader.setImage(makeImage(new Color(100, 150, 90)));
+		BackgroundModel model = new BackgroundModel();
+		model.reset(reader);
+		Assert.assertEquals(0x64965A, model.getColours()[0]);
+
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		ColourClassMask mask = new ColourClassMask();
+		mask.reset(bounds);
+		BufferedImage brighter = makeImage(new Color(120, 170, 110));
+		// One pixel flickers, so its threshold should go up. Its tile is
+		// updated every 12 frames.
+		for (int frame = 0; frame < 3000; ++frame) {
+			brighter.setRGB(5, 5, (frame / 12) % 2 == 0
+					? new Color(80, 130, 70).getRGB()
+					: new Color(160, 210, 150).getRGB());
+			reader.setImage(brighter);
+			model.update(reader, mask, bounds);
+		}
+		int colour = model.getColours()[10 * WIDTH + 20];
+		Assert.assertTrue(Math.abs(((colour >> 16) & 0xFF) - 120) <= 1);
+		Assert.assertTrue(Math.abs(((colour >> 8) & 0xFF) - 170) <= 1);
+		Assert.assertTrue(Math.abs((colour & 0xFF) - 110) <= 1);
+		Assert.assertTrue(model.getThresholds()[5 * WIDTH + 5] > 100);
+		Assert.assertTrue(model.getThresholds()[10 * WIDTH + 20] < 10);
+	}
+
+	@Test
+	public void testObjectsDoNotBlendIn() {
+		PixelReader reader = new PixelReader();
+		reader.setImage(makeImage(new Color(100, 150, 90)));
+		BackgroundModel model = new BackgroundModel();
+		model.reset(reader);
+
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		ColourClassMask mask = new ColourClassMask();
+		mask.reset(bounds);
+		// The whole frame is yellow foreground.
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				mask.set(x, y, 0);
+			}
+		}
+		reader.setImage(makeImage(Color.YELLOW));
+		for (int frame = 0; frame < 100; ++frame) {
+			model.update(reader, mask, bounds);
+		}
+		Assert.assertEquals(0x64965A, model.getColours()[0]);
+	}
+}
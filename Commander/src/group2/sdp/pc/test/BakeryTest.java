@@ -2,18 +2,20 @@ package group2.sdp.pc.test;
 
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import group2.sdp.pc.breadbin.ObjectHistory;
 import group2.sdp.pc.breadbin.StaticBallInfo;
 import group2.sdp.pc.breadbin.StaticRobotInfo;
 import group2.sdp.pc.vision.Bakery;
 import group2.sdp.pc.vision.skeleton.DynamicInfoConsumer;
 
 import java.awt.geom.Point2D;
-import java.util.LinkedList;
 
 import org.junit.Test;
 
 public class BakeryTest extends Bakery {
 
+	private static final int HISTORY_LENGTH = 64;
+
 	
 	public BakeryTest(DynamicInfoConsumer consumer) {
 		super(consumer);
@@ -42,7 +44,7 @@ public class BakeryTest extends Bakery {
 		StaticBallInfo ball8=new StaticBallInfo(position8,0);
 		
 		//creates ball history and robot history infos
-		LinkedList<StaticBallInfo> ballHistoryInfos= new LinkedList<StaticBallInfo>();
+		ObjectHistory ballHistoryInfos= new ObjectHistory(HISTORY_LENGTH, false);
 
 
 		// top right quadrant
@@ -114,7 +116,7 @@ public class BakeryTest extends Bakery {
 		StaticBallInfo ball1=new StaticBallInfo(position1,0);
 		StaticBallInfo ball2=new StaticBallInfo(position2,1000);
 		
-		LinkedList<StaticBallInfo> ballHistoryInfos= new LinkedList<StaticBallInfo>();
+		ObjectHistory ballHistoryInfos= new ObjectHistory(HISTORY_LENGTH, false);
 	
 		//0 balls should equal 0
 		assertTrue("0 balls does not equal zero",this.computeBallRollingSpeed(ballHistoryInfos)==0.0 );
@@ -154,7 +156,7 @@ public class BakeryTest extends Bakery {
 		StaticRobotInfo robot7=new StaticRobotInfo(position7,0,true,true,0);
 		StaticRobotInfo robot8=new StaticRobotInfo(position8,0,true,true,0);
 		
-		LinkedList<StaticRobotInfo> robotHistoryInfos= new LinkedList<StaticRobotInfo>();
+		ObjectHistory robotHistoryInfos= new ObjectHistory(HISTORY_LENGTH, true);
 		
 		assertTrue("0 robots does not equal zero",this.computeRobotTravelDirection(robotHistoryInfos)==0.0 );
 		//
@@ -0,0 +1,97 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Blob;
+import group2.sdp.pc.vision.BlobFinder;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class BlobFinderTest {
+
+	private static final int WIDTH = 640;
+
+	private void addRectangle(Blob blob, int x0, int y0, int x1, int y1) {
+		for (int y = y0; y <= y1; ++y) {
+			for (int x = x0; x <= x1; ++x) {
+				blob.add(y * WIDTH + x, x, y);
+			}
+		}
+	}
+
+	@Test
+	public void testSeparateAreas() {
+		Blob pixels = new Blob();
+		pixels.reset(WIDTH);
+		addRectangle(pixels, 10, 10, 12, 12);
+		addRectangle(pixels, 100, 50, 119, 59);
+		// Touches the first one only diagonally.
+		pixels.add(13 * WIDTH + 13, 13, 13);
+
+		BlobFinder finder = new BlobFinder();
+		Assert.assertEquals(3, finder.label(pixels));
+		int largest = finder.getLargestArea();
+		Assert.assertEquals(200, finder.getSize(largest));
+		Assert.assertEquals(100, finder.getMinX(largest));
+		Assert.assertEquals(59, finder.getMaxY(largest));
+		Assert.assertEquals(109.5, finder.getCentroidX(largest), 1e-9);
+
+		Blob area = new Blob();
+		finder.extract(largest, area);
+		Assert.assertEquals(200, area.getSize());
+		Assert.assertEquals(119, area.getMaxX());
+	}
+
+	@Test
+	public void testUShapeIsOneArea() {
+		Blob pixels = new Blob();
+		pixels.reset(WIDTH);
+		// The two arms only meet at the bottom row, which comes last.
+		for (int y = 0; y < 10; ++y) {
+			pixels.add(y * WIDTH + 0, 0, y);
+			pixels.add(y * WIDTH + 5, 5, y);
+		}
+		for (int x = 1; x < 5; ++x) {
+			pixels.add(9 * WIDTH + x, x, 9);
+		}
+		BlobFinder finder = new BlobFinder();
+		Assert.assertEquals(1, finder.label(pixels));
+		Assert.assertEquals(24, finder.getSize(0));
+	}
+
+	@Test
+	public void testLargeArea() {
+		// Large enough to overflow the stack of a recursive flood fill.
+		Blob pixels = new Blob();
+		pixels.reset(WIDTH);
+		addRectangle(pixels, 0, 0, WIDTH - 1, 399);
+		BlobFinder finder = new BlobFinder();
+		Assert.assertEquals(1, finder.label(pixels));
+		Assert.assertEquals(WIDTH * 400, finder.getSize(0));
+		// Labelling again gives the same result, since the label image is
+		// cleared after each call.
+		Assert.assertEquals(1, finder.label(pixels));
+	}
+
+	@Test
+	public void testWeightedCentroid() {
+		Blob pixels = new Blob();
+		pixels.reset(WIDTH);
+		// A 4 by 1 bar whose right end is three times as strong, and a
+		// separate pixel.
+		pixels.add(5 * WIDTH + 10, 10, 5, 10);
+		pixels.add(5 * WIDTH + 11, 11, 5, 10);
+		pixels.add(5 * WIDTH + 12, 12, 5, 30);
+		pixels.add(5 * WIDTH + 13, 13, 5, 30);
+		pixels.add(50 * WIDTH + 50, 50, 50, 100);
+
+		BlobFinder finder = new BlobFinder();
+		Assert.assertEquals(2, finder.label(pixels));
+		Blob bar = new Blob();
+		finder.extract(finder.getLargestArea(), bar);
+		Assert.assertEquals(11.5, bar.getCentroidX(false), 1e-9);
+		Assert.assertEquals(12.0, bar.getCentroidX(true), 1e-9);
+		Assert.assertEquals(5.0, bar.getCentroidY(true), 1e-9);
+		// The whole pixel centroid is rounded down.
+		Assert.assertEquals(11, bar.getCentroid().x);
+	}
+}
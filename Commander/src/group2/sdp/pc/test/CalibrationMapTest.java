@@ -0,0 +1,111 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.breadbin.StaticRobotInfo;
+import group2.sdp.pc.globalinfo.CalibrationMap;
+import group2.sdp.pc.globalinfo.Camera;
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LCHColourSettings;
+import group2.sdp.pc.globalinfo.Pitch;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class CalibrationMapTest {
+
+	private static final double TOLERANCE = 0.001;
+
+	private Pitch makePitch() {
+		Camera camera = new Camera(new Rectangle(8, 87, 614, 354),
+				new LCHColourSettings(), 248.0, 60);
+		return new Pitch(new Rectangle2D.Float(-122, -60.5f, 244, 121),
+				30.25f, -30.25f, camera);
+	}
+
+	/**
+	 * The linear conversion and the parallax correction the map replaced.
+	 */
+	private Point2D convertExact(Pitch pitch, double x, double y, boolean plate) {
+		Rectangle crop = pitch.getCamera().getPitchCrop();
+		Rectangle2D physical = pitch.getMinimumEnclosingRectangle();
+		double cmX = (x - crop.getMinX()) * (physical.getWidth() / crop.getWidth())
+			+ physical.getMinX();
+		double cmY = (y - crop.getMinY()) * (physical.getHeight() / crop.getHeight())
+			+ physical.getMinY();
+		double quotient = plate
+			? 1 - StaticRobotInfo.getHeight() / pitch.getCamera().getDistanceFromPitch()
+			: 1;
+		return new Point2D.Double(cmX * quotient, -cmY * quotient);
+	}
+
+	@Test
+	public void testMatchesLinearConversion() {
+		Pitch pitch = makePitch();
+		CalibrationMap map = new CalibrationMap(pitch, StaticRobotInfo.getHeight());
+		Random random = new Random(1);
+		Point2D reused = new Point2D.Double();
+		for (int i = 0; i < 10000; ++i) {
+			// Some of the points are outside the crop.
+			double x = random.nextDouble() * 640;
+			double y = random.nextDouble() * 480;
+			for (int plate = 0; plate < 2; ++plate) {
+				Point2D exact = convertExact(pitch, x, y, plate == 1);
+				Point2D mapped = map.toPitch(x, y, plate == 1);
+				Assert.assertEquals(exact.getX(), mapped.getX(), TOLERANCE);
+				Assert.assertEquals(exact.getY(), mapped.getY(), TOLERANCE);
+				Assert.assertSame(reused, map.toPitch(x, y, plate == 1, reused));
+				Assert.assertEquals(mapped.getX(), reused.getX(), 0);
+				Assert.assertEquals(mapped.getY(), reused.getY(), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testRadialDistortion() {
+		Pitch pitch = makePitch();
+		Rectangle crop = pitch.getCamera().getPitchCrop();
+		CalibrationMap straight = new CalibrationMap(pitch, 0);
+		pitch.getCamera().setRadialDistortion(0.1);
+		CalibrationMap barrel = new CalibrationMap(pitch, 0);
+
+		// The centre does not move, the corners move outwards by k1.
+		Point2D centre = barrel.toPitch(crop.getCenterX(), crop.getCenterY(), false);
+		Assert.assertEquals(0, centre.getX(), TOLERANCE);
+		Assert.assertEquals(0, centre.getY(), TOLERANCE);
+		Point2D corner = straight.toPitch(crop.getMinX(), crop.getMinY(), false);
+		Point2D movedCorner = barrel.toPitch(crop.getMinX(), crop.getMinY(), false);
+		Assert.assertEquals(corner.getX() * 1.1, movedCorner.getX(), TOLERANCE);
+		Assert.assertEquals(corner.getY() * 1.1, movedCorner.getY(), TOLERANCE);
+		// Between the points of the grid the error of the interpolation is
+		// small.
+		double x = crop.getMinX() + 1.5;
+		double y = crop.getMinY() + 2.5;
+		Point2D between = barrel.toPitch(x, y, false);
+		double dx = x - crop.getCenterX();
+		double dy = y - crop.getCenterY();
+		double factor = 1 + 0.1 * (dx * dx + dy * dy)
+			/ ((crop.getWidth() * crop.getWidth() + crop.getHeight() * crop.getHeight()) / 4);
+		Point2D exact = convertExact(pitch, crop.getCenterX() + dx * factor,
+				crop.getCenterY() + dy * factor, false);
+		Assert.assertEquals(exact.getX(), between.getX(), 0.01);
+		Assert.assertEquals(exact.getY(), between.getY(), 0.01);
+	}
+
+	@Test
+	public void testInvalidation() {
+		GlobalInfo.setPitchOne(true);
+		CalibrationMap one = GlobalInfo.getCalibrationMap();
+		Assert.assertSame(one, GlobalInfo.getCalibrationMap());
+		GlobalInfo.setPitchOne(false);
+		CalibrationMap two = GlobalInfo.getCalibrationMap();
+		Assert.assertNotSame(one, two);
+		Assert.assertTrue(two.isFor(Pitch.TWO, StaticRobotInfo.getHeight()));
+		Assert.assertFalse(two.isFor(Pitch.ONE, StaticRobotInfo.getHeight()));
+		GlobalInfo.setPitchOne(true);
+	}
+}
@@ -0,0 +1,96 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LCHColourSettings;
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.LCHColour;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ColourLookupTableTest {
+
+	private static final int SHIFT = 8 - ColourLookupTable.BITS_PER_CHANNEL;
+	private static final int CELLS = 1 << ColourLookupTable.BITS_PER_CHANNEL;
+
+	/**
+	 * How long to wait for a table to be rebuilt, in milliseconds.
+	 */
+	private static final long TIMEOUT = 5000;
+
+	private LCHColourSettings settings;
+	private ColourLookupTable table;
+
+	@Before
+	public void setUp() {
+		GlobalInfo.setPitchOne(true);
+		settings = GlobalInfo.getColourSettings();
+		table = new ColourLookupTable();
+		table.update();
+	}
+
+	private ColourClass classifyDirectly(int rgb) {
+		LCHColour colour = new LCHColour(
+				(rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+		return settings.getColourClass(colour);
+	}
+
+	@Test
+	public void testCellCentresMatchSettings() {
+		int half = (1 << SHIFT) >> 1;
+		for (int r = 0; r < CELLS; ++r) {
+			for (int g = 0; g < CELLS; ++g) {
+				for (int b = 0; b < CELLS; ++b) {
+					int rgb = (((r << SHIFT) | half) << 16)
+						| (((g << SHIFT) | half) << 8)
+						| ((b << SHIFT) | half);
+					Assert.assertEquals(classifyDirectly(rgb), 
+							table.getColourClass(rgb));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFewColoursChangeClass() {
+		Random random = new Random(1);
+		int count = 100000;
+		int changed = 0;
+		for (int i = 0; i < count; ++i) {
+			int rgb = random.nextInt(0x1000000);
+			if (classifyDirectly(rgb) != table.getColourClass(rgb)) {
+				++changed;
+			}
+		}
+		// About 1.3% with the default settings of pitch one.
+		Assert.assertTrue(changed < count * 0.02);
+	}
+
+	@Test
+	public void testRebuildsWhenSettingsChange() throws InterruptedException {
+		int red = 0xDC1E1E;
+		Assert.assertEquals(ColourClass.RED, table.getColourClass(red));
+		int version = settings.getVersion();
+		int lumaStart = settings.getRedLumaStart();
+		try {
+			// Too bright for the red of the ball.
+			settings.setRedLumaStart(200);
+			Assert.assertTrue(settings.getVersion() > version);
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (table.getColourClass(red) == ColourClass.RED
+					&& System.currentTimeMillis() < end) {
+				table.update();
+				Thread.sleep(5);
+			}
+			Assert.assertEquals(classifyDirectly(red), table.getColourClass(red));
+			Assert.assertFalse(table.getColourClass(red) == ColourClass.RED);
+		} finally {
+			settings.setRedLumaStart(lumaStart);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.breadbin.StaticInfo;
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+import group2.sdp.pc.vision.skeleton.StaticInfoConsumer;
+import group2.sdp.pc.vision.skeleton.VisualCortexSkeleton;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class FrameDetectionsTest {
+
+	/**
+	 * Detects the same objects in every frame, in one reused result.
+	 */
+	private class FixedCortex extends VisualCortexSkeleton {
+		FrameDetections detections = new FrameDetections();
+		int detectCalls = 0;
+
+		public FixedCortex(StaticInfoConsumer consumer) {
+			super(consumer);
+		}
+
+		@Override
+		protected FrameDetections detect(BufferedImage image) {
+			++detectCalls;
+			detections.reset();
+			detections.setFound(FrameDetections.BALL, 10, 20, 1, 100);
+			detections.setFound(FrameDetections.YELLOW, -30, 5, 0.5, 400);
+			detections.setFacingDirection(FrameDetections.YELLOW, 90);
+			// The blue robot is not found.
+			return detections;
+		}
+	}
+
+	private class InfoCollector implements StaticInfoConsumer {
+		ArrayList<StaticInfo> infos = new ArrayList<StaticInfo>();
+
+		@Override
+		public void consumeInfo(StaticInfo staticInfo) {
+			infos.add(staticInfo);
+		}
+	}
+
+	@Test
+	public void testOneDetectionPerFrame() {
+		GlobalInfo.setYellowAlfie(true);
+		InfoCollector collector = new InfoCollector();
+		FixedCortex cortex = new FixedCortex(collector);
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR);
+		cortex.consume(image);
+		cortex.consume(image);
+
+		Assert.assertEquals(2, cortex.detectCalls);
+		Assert.assertEquals(2, collector.infos.size());
+		StaticInfo info = collector.infos.get(1);
+		Assert.assertEquals(10.0, info.getBallInfo().getPosition().getX(), 1e-6);
+		Assert.assertEquals(20.0, info.getBallInfo().getPosition().getY(), 1e-6);
+		Assert.assertEquals(-30.0, info.getAlfieInfo().getPosition().getX(), 1e-6);
+		Assert.assertEquals(90.0, info.getAlfieInfo().getFacingDirection(), 1e-6);
+		Assert.assertEquals(0.0, info.getOpponentInfo().getPosition().getX(), 1e-6);
+		Assert.assertEquals(-1.0, info.getOpponentInfo().getFacingDirection(), 1e-6);
+		// The positions are copied, as the detections are reused.
+		Assert.assertNotSame(collector.infos.get(0).getBallInfo().getPosition(),
+				info.getBallInfo().getPosition());
+		GlobalInfo.setYellowAlfie(false);
+	}
+
+	@Test
+	public void testReset() {
+		FrameDetections detections = new FrameDetections();
+		detections.setFound(FrameDetections.BLUE, 1, 2, 0.75, 300);
+		Assert.assertTrue(detections.isFound(FrameDetections.BLUE));
+		Assert.assertEquals(0.75, detections.getConfidence(FrameDetections.BLUE), 1e-9);
+		Assert.assertEquals(300, detections.getPixelCount(FrameDetections.BLUE));
+		detections.reset();
+		Assert.assertFalse(detections.isFound(FrameDetections.BLUE));
+		Assert.assertEquals(0, detections.getPixelCount(FrameDetections.BLUE));
+		Assert.assertEquals(-1.0, detections.getFacingDirection(FrameDetections.BLUE), 1e-9);
+		Assert.assertEquals(FrameDetections.YELLOW, FrameDetections.robot(true));
+	}
+}
@@ -0,0 +1,108 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Eye;
+import group2.sdp.pc.vision.FrameRecorder;
+import group2.sdp.pc.vision.FrameReplayer;
+import group2.sdp.pc.vision.FrameReplayer.ReplayMode;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameReplayerTest {
+
+	private static final int WIDTH = 8, HEIGHT = 4;
+
+	/**
+	 * The directory the log is recorded in; deleted after each test.
+	 */
+	private File directory;
+
+	/**
+	 * Collects the colour of the first pixel of every frame it gets.
+	 */
+	private class PixelCollector implements ImageConsumer {
+		ArrayList<Integer> pixels = new ArrayList<Integer>();
+
+		@Override
+		public void consume(BufferedImage image) {
+			pixels.add(image.getRGB(0, 0) & 0xFFFFFF);
+		}
+	}
+
+	private BufferedImage makeFrame(int rgb) {
+		BufferedImage image = Eye.createRGBImage(new byte[WIDTH * HEIGHT * 3], WIDTH, HEIGHT);
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		return image;
+	}
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("frames", "");
+		directory.delete();
+	}
+
+	@After
+	public void deleteDirectory() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testRecordAndReplay() throws Exception {
+		String prefix = new File(directory, "log").getPath();
+
+		long start = System.currentTimeMillis();
+		FrameRecorder recorder = new FrameRecorder(null, prefix, WIDTH, HEIGHT);
+		recorder.consume(makeFrame(0x102030));
+		recorder.consume(makeFrame(0x405060));
+		// Skipped, since it does not have the size of the log.
+		recorder.consume(Eye.createRGBImage(new byte[WIDTH * 3], WIDTH, 1));
+		recorder.consume(makeFrame(0x708090));
+		recorder.close();
+		recorder.join();
+
+		Assert.assertEquals(1, recorder.getSkippedFrames());
+		Assert.assertEquals(3, recorder.getRecordedFrames());
+
+		PixelCollector collector = new PixelCollector();
+		FrameReplayer replayer = new FrameReplayer(collector, prefix, ReplayMode.STEP);
+		Assert.assertEquals(3, replayer.getFrameCount());
+		Assert.assertEquals(0, replayer.getSequenceNumber(0));
+		Assert.assertEquals(3, replayer.getSequenceNumber(2));
+		// There is no frame past the end.
+		Assert.assertEquals(-1, replayer.getSequenceNumber(3));
+		Assert.assertEquals(0, replayer.getTimeStamp(3));
+		Assert.assertTrue(replayer.getTimeStamp(0) >= start - 1000);
+		Assert.assertTrue(replayer.getTimeStamp(2) >= replayer.getTimeStamp(0));
+
+		Assert.assertTrue(replayer.step());
+		Assert.assertTrue(replayer.step());
+		Assert.assertTrue(replayer.step());
+		Assert.assertFalse(replayer.step());
+		Assert.assertEquals(0x102030, collector.pixels.get(0).intValue());
+		Assert.assertEquals(0x405060, collector.pixels.get(1).intValue());
+		Assert.assertEquals(0x708090, collector.pixels.get(2).intValue());
+
+		replayer.seek(1);
+		Assert.assertTrue(replayer.step());
+		Assert.assertEquals(0x405060, collector.pixels.get(3).intValue());
+	}
+}
@@ -0,0 +1,65 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.LCHColour;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LCHColourTest {
+
+	/**
+	 * The floating point conversion the integer one replaced.
+	 */
+	private static int[] convertRGBtoLChExact(int red, int green, int blue) {
+		int L = (2990 * red + 5870 * green + 1140 * blue) / 10000;
+
+		double alpha = 0.5 * (2*red - green - blue);
+		double beta = 0.866025404 * (green - blue);
+
+		int C = (int) Math.sqrt(alpha * alpha + beta * beta);
+
+		int h = (int) Math.toDegrees(Math.atan2(beta, alpha));
+		if (h < 0)
+			h = 360 + h;
+		return new int [] {L, C, h};
+	}
+
+	@Test
+	public void testAllColoursWithinADegree() {
+		int hueDifferences = 0;
+		for (int red = 0; red < 256; ++red) {
+			for (int green = 0; green < 256; ++green) {
+				for (int blue = 0; blue < 256; ++blue) {
+					int[] exact = convertRGBtoLChExact(red, green, blue);
+					int lch = LCHColour.packLCH(red, green, blue);
+					Assert.assertEquals(exact[0], LCHColour.lumaOf(lch));
+					Assert.assertEquals(exact[1], LCHColour.chromaOf(lch));
+
+					int hueDifference = Math.abs(exact[2] - LCHColour.hueOf(lch));
+					hueDifference = Math.min(hueDifference, 360 - hueDifference);
+					Assert.assertTrue("Hue of " + red + ", " + green + ", " + blue,
+							hueDifference <= 1);
+					if (hueDifference != 0) {
+						++hueDifferences;
+					}
+				}
+			}
+		}
+		// The hue differs only right at the edges of whole degrees.
+		Assert.assertTrue(hueDifferences < 256 * 256 * 256 / 10000);
+	}
+
+	@Test
+	public void testPrimaries() {
+		LCHColour red = new LCHColour(255, 0, 0);
+		Assert.assertEquals(76, red.getLuma());
+		Assert.assertEquals(255, red.getChroma());
+		Assert.assertEquals(0, red.getHue());
+		LCHColour cyan = new LCHColour(0, 255, 255);
+		Assert.assertEquals(255, cyan.getChroma());
+		Assert.assertEquals(180, cyan.getHue());
+		LCHColour gray = new LCHColour(128, 128, 128);
+		Assert.assertEquals(0, gray.getChroma());
+		Assert.assertEquals(0, gray.getHue());
+	}
+}
@@ -0,0 +1,82 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.LatencyHistogram;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		// 1 to 10000 microseconds.
+		for (int i = 1; i <= 10000; ++i) {
+			histogram.record(i * 1000L);
+		}
+		Assert.assertEquals(10000, histogram.getCount());
+		Assert.assertEquals(10000000, histogram.getMax());
+		Assert.assertEquals(5000500.0, histogram.getMean(), 1e-6);
+		double precision = 1.0 / LatencyHistogram.SUB_BUCKET_COUNT;
+		Assert.assertEquals(5000000, histogram.getPercentile(50), 5000000 * precision);
+		Assert.assertEquals(9900000, histogram.getPercentile(99), 9900000 * precision);
+		// The percentile is never above the maximum.
+		Assert.assertEquals(10000000, histogram.getPercentile(100));
+		Assert.assertEquals(1000, histogram.getPercentile(0), 1000 * precision);
+
+		histogram.reset();
+		Assert.assertEquals(0, histogram.getCount());
+		Assert.assertEquals(0, histogram.getPercentile(50));
+	}
+
+	@Test
+	public void testRelativeError() {
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; ++i) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			long value = (long) Math.exp(random.nextDouble() * Math.log(1e11));
+			histogram.record(value);
+			histogram.record(LatencyHistogram.MAX_VALUE);
+			// The bucket of the value holds it and is narrow.
+			long p50 = histogram.getPercentile(50);
+			Assert.assertTrue(p50 >= value);
+			Assert.assertTrue(p50 - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+		}
+	}
+
+	@Test
+	public void testMonitor() {
+		LatencyMonitor.reset();
+		LatencyMonitor.record(Stage.BAKERY, 2000000);
+		LatencyMonitor.setEnabled(false);
+		LatencyMonitor.record(Stage.BAKERY, 4000000);
+		LatencyMonitor.setEnabled(true);
+		Assert.assertEquals(1, LatencyMonitor.getHistogram(Stage.BAKERY).getCount());
+		Assert.assertEquals(0, LatencyMonitor.getHistogram(Stage.OVERLORD).getCount());
+		Assert.assertTrue(LatencyMonitor.getReport().contains("Bakery"));
+		LatencyMonitor.reset();
+		Assert.assertEquals(0, LatencyMonitor.getHistogram(Stage.BAKERY).getCount());
+	}
+
+	@Test
+	public void testNestedStageIsLeftOut() throws InterruptedException {
+		LatencyMonitor.reset();
+		long start = System.nanoTime();
+		long nestedStart = LatencyMonitor.getNestedTime();
+		long mouthStart = System.nanoTime();
+		Thread.sleep(50);
+		LatencyMonitor.recordNestedSince(Stage.MOUTH_WRITE, mouthStart);
+		LatencyMonitor.recordExcludingNested(Stage.PATH_FINDER, start, nestedStart);
+		long mouth = LatencyMonitor.getHistogram(Stage.MOUTH_WRITE).getMax();
+		long pathFinder = LatencyMonitor.getHistogram(Stage.PATH_FINDER).getMax();
+		Assert.assertTrue(mouth >= 50000000);
+		// Only the work around the write is left.
+		Assert.assertTrue(pathFinder < 25000000);
+		LatencyMonitor.reset();
+	}
+}
@@ -0,0 +1,71 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Blob;
+import group2.sdp.pc.vision.VisualCortex;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class MomentDirectionTest {
+
+	private static final int WIDTH = 640;
+
+	/**
+	 * Fills the blob with the pixels of a T centred at (x, y), facing the
+	 * given direction (counter-clockwise from the x axis, as on the screen).
+	 */
+	private void addT(Blob blob, double x, double y, double direction) {
+		// The stem points along x, the bar is at the back.
+		Area t = new Area(new Rectangle2D.Double(-12, -20, 10, 40));
+		t.add(new Area(new Rectangle2D.Double(-12, -5, 38, 10)));
+		AffineTransform transform = new AffineTransform();
+		transform.translate(x, y);
+		transform.rotate(Math.toRadians(-direction));
+		Shape shape = transform.createTransformedShape(t);
+		for (int py = 0; py < 480; ++py) {
+			for (int px = 0; px < WIDTH; ++px) {
+				if (shape.contains(px + 0.5, py + 0.5)) {
+					blob.add(py * WIDTH + px, px, py);
+				}
+			}
+		}
+	}
+
+	private double angleDifference(double a, double b) {
+		double d = Math.abs(a - b) % 360;
+		return Math.min(d, 360 - d);
+	}
+
+	@Test
+	public void testDirections() {
+		VisualCortex cortex = new VisualCortex(null);
+		Blob blob = new Blob();
+		for (int direction = 0; direction < 360; direction += 15) {
+			blob.reset(WIDTH);
+			addT(blob, 320.3, 240.7, direction);
+			double found = cortex.momentDirection(blob);
+			Assert.assertTrue("Direction " + direction + " found as " + found,
+					angleDifference(direction, found) < 1);
+		}
+	}
+
+	@Test
+	public void testSymmetricShapeIsInconclusive() {
+		VisualCortex cortex = new VisualCortex(null);
+		Blob blob = new Blob();
+		blob.reset(WIDTH);
+		// A bar has an axis but no front.
+		for (int y = 100; y < 110; ++y) {
+			for (int x = 100; x < 140; ++x) {
+				blob.add(y * WIDTH + x, x, y);
+			}
+		}
+		Assert.assertEquals(-1.0, cortex.momentDirection(blob));
+	}
+}
@@ -0,0 +1,68 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.breadbin.ObjectHistory;
+import group2.sdp.pc.breadbin.StaticBallInfo;
+import group2.sdp.pc.breadbin.StaticInfo;
+import group2.sdp.pc.breadbin.StaticInfoHistory;
+import group2.sdp.pc.breadbin.StaticRobotInfo;
+
+import java.awt.geom.Point2D;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ObjectHistoryTest {
+
+	@Test
+	public void testWrapAround() {
+		ObjectHistory history = new ObjectHistory(4, true);
+		Assert.assertTrue(history.isEmpty());
+		for (int i = 0; i < 10; ++i) {
+			history.add(new Point2D.Double(i, -i), 10 * i, 100 * i);
+			Assert.assertEquals(Math.min(i + 1, 4), history.size());
+			// The oldest entry kept comes first.
+			int oldest = Math.max(0, i - 3);
+			for (int j = 0; j < history.size(); ++j) {
+				Assert.assertEquals(oldest + j, history.getX(j), 0);
+				Assert.assertEquals(-(oldest + j), history.getY(j), 0);
+				Assert.assertEquals(10 * (oldest + j), history.getFacingDirection(j), 0);
+				Assert.assertEquals(100 * (oldest + j), history.getTimeStamp(j));
+			}
+		}
+		Assert.assertEquals(4, history.getCapacity());
+		Assert.assertTrue(history.isAlfie());
+		try {
+			history.getX(4);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+		history.clear();
+		Assert.assertTrue(history.isEmpty());
+		history.add(new Point2D.Double(5, 6), 7, 8);
+		Assert.assertEquals(5, history.getX(0), 0);
+	}
+
+	@Test
+	public void testStaticInfoHistory() {
+		StaticInfoHistory history = new StaticInfoHistory(3);
+		Assert.assertTrue(history.isEmpty());
+		StaticInfo spi = null;
+		for (int i = 0; i < 5; ++i) {
+			spi = new StaticInfo(
+					new StaticBallInfo(new Point2D.Double(i, 0), i),
+					new StaticRobotInfo(new Point2D.Double(0, i), 90, true, false, i),
+					new StaticRobotInfo(new Point2D.Double(i, i), 180, false, false, i));
+			history.add(spi);
+		}
+		Assert.assertEquals(3, history.size());
+		Assert.assertSame(spi, history.getLast());
+		Assert.assertEquals(2, history.getBallHistory().getX(0), 0);
+		Assert.assertEquals(4, history.getAlfieHistory().getY(2), 0);
+		Assert.assertEquals(90, history.getAlfieHistory().getFacingDirection(1), 0);
+		Assert.assertEquals(180, history.getOpponentHistory().getFacingDirection(1), 0);
+		Assert.assertEquals(3, history.getOpponentHistory().getTimeStamp(1));
+		Assert.assertTrue(history.getAlfieHistory().isAlfie());
+		Assert.assertFalse(history.getOpponentHistory().isAlfie());
+	}
+}
@@ -0,0 +1,112 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Eye;
+import group2.sdp.pc.vision.OpticNerve;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class OpticNerveTest {
+
+	private static final int WIDTH = 8, HEIGHT = 4;
+
+	/**
+	 * How long to wait for the processing thread, in milliseconds.
+	 */
+	private static final long TIMEOUT = 2000;
+
+	/**
+	 * Holds on to the first frame until it is released, and records the
+	 * colour of the first pixel of every frame when it gets it and when it is
+	 * done with it.
+	 */
+	private class SlowConsumer implements ImageConsumer {
+		ArrayList<Integer> pixels = new ArrayList<Integer>();
+		ArrayList<Integer> pixelsWhenDone = new ArrayList<Integer>();
+		boolean released = false;
+
+		@Override
+		public void consume(BufferedImage image) {
+			synchronized (this) {
+				pixels.add(image.getRGB(0, 0) & 0xFFFFFF);
+				notifyAll();
+				long end = System.currentTimeMillis() + TIMEOUT;
+				while (!released && System.currentTimeMillis() < end) {
+					try {
+						wait(TIMEOUT);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				pixelsWhenDone.add(image.getRGB(0, 0) & 0xFFFFFF);
+			}
+		}
+
+		synchronized void waitFor(int count) throws InterruptedException {
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (pixels.size() < count && System.currentTimeMillis() < end) {
+				wait(TIMEOUT);
+			}
+		}
+
+		synchronized void release() {
+			released = true;
+			notifyAll();
+		}
+	}
+
+	private BufferedImage makeFrame(int rgb) {
+		BufferedImage image = Eye.createRGBImage(new byte[WIDTH * HEIGHT * 3], WIDTH, HEIGHT);
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				image.setRGB(x, y, rgb);
+			}
+		}
+		return image;
+	}
+
+	private void waitForProcessed(OpticNerve nerve, long count)
+			throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (nerve.getProcessedFrames() < count
+				&& System.currentTimeMillis() < end) {
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testLatestFrameWins() throws InterruptedException {
+		SlowConsumer consumer = new SlowConsumer();
+		OpticNerve nerve = new OpticNerve(consumer);
+		// The same buffer is reused for every frame, as the driver does.
+		BufferedImage frame = makeFrame(0x000001);
+		nerve.consume(frame);
+		consumer.waitFor(1);
+		Assert.assertEquals(1, consumer.pixels.size());
+
+		// The consumer is still busy with the first frame.
+		for (int i = 2; i <= 5; ++i) {
+			frame.setRGB(0, 0, i);
+			nerve.consume(frame);
+		}
+		Assert.assertEquals(0, nerve.getProcessedFrames());
+		consumer.release();
+		consumer.waitFor(2);
+		waitForProcessed(nerve, 2);
+		nerve.stop();
+
+		// Only the newest of the frames that arrived meanwhile is processed.
+		Assert.assertEquals(2, consumer.pixels.size());
+		Assert.assertEquals(0x000001, consumer.pixels.get(0).intValue());
+		Assert.assertEquals(0x000005, consumer.pixels.get(1).intValue());
+		// The slot of the first frame was not written while it was in use.
+		Assert.assertEquals(0x000001, consumer.pixelsWhenDone.get(0).intValue());
+		Assert.assertEquals(2, nerve.getProcessedFrames());
+		Assert.assertEquals(3, nerve.getDroppedFrames());
+	}
+}
@@ -0,0 +1,144 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.breadbin.DynamicInfo;
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.Bakery;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.OverlayRenderer;
+import group2.sdp.pc.vision.PixelReader;
+import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.VisualCortex.OutputMode;
+import group2.sdp.pc.vision.skeleton.DynamicInfoConsumer;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class OverlayRendererTest {
+
+	private static final int WIDTH = SyntheticFrames.WIDTH, HEIGHT = SyntheticFrames.HEIGHT;
+
+	/**
+	 * How long to wait for the render thread, in milliseconds.
+	 */
+	private static final long TIMEOUT = 2000;
+
+	private class ImageCollector implements ImageConsumer {
+		ArrayList<BufferedImage> images = new ArrayList<BufferedImage>();
+		ArrayList<Integer> centres = new ArrayList<Integer>();
+
+		@Override
+		public synchronized void consume(BufferedImage image) {
+			images.add(image);
+			centres.add(image.getRGB(306, 306) & 0xFFFFFF);
+			notifyAll();
+		}
+
+		synchronized void waitFor(int count) throws InterruptedException {
+			waitFor(count, TIMEOUT);
+		}
+
+		synchronized void waitFor(int count, long timeout)
+				throws InterruptedException {
+			long end = System.currentTimeMillis() + timeout;
+			long left = timeout;
+			while (images.size() < count && left > 0) {
+				wait(left);
+				left = end - System.currentTimeMillis();
+			}
+		}
+
+		synchronized int getCount() {
+			return images.size();
+		}
+
+		synchronized int getCentre(int i) {
+			return centres.get(i);
+		}
+	}
+
+	private class NullConsumer implements DynamicInfoConsumer {
+		@Override
+		public void consumeInfo(DynamicInfo dpi) {
+		}
+	}
+
+	private BufferedImage makeFrame(boolean withBall) {
+		BufferedImage image = SyntheticFrames.createFrame();
+		if (withBall) {
+			Graphics2D g = image.createGraphics();
+			SyntheticFrames.drawBall(g, 300, 300);
+			g.dispose();
+		}
+		return image;
+	}
+
+	@Test
+	public void testDrawsTheForeground() throws InterruptedException {
+		GlobalInfo.setPitchOne(true);
+		ImageCollector collector = new ImageCollector();
+		VisualCortex cortex = new VisualCortex(new Bakery(new NullConsumer()), collector);
+		cortex.consume(makeFrame(false));
+		cortex.consume(makeFrame(true));
+		collector.waitFor(1);
+		Assert.assertEquals(1, collector.images.size());
+		// The ball is drawn in red, in the match mode.
+		Assert.assertEquals(0xFF0000, collector.centres.get(0).intValue());
+
+		// Long enough for several overlays to be due, but none is drawn.
+		cortex.setDrawOverlay(false);
+		long end = System.currentTimeMillis() + 3 * 1000 / OverlayRenderer.DEFAULT_RATE;
+		while (System.currentTimeMillis() < end) {
+			cortex.consume(makeFrame(true));
+		}
+		// The next overlay is of a frame without the ball.
+		cortex.setDrawOverlay(true);
+		end = System.currentTimeMillis() + TIMEOUT;
+		while (collector.getCount() < 2 && System.currentTimeMillis() < end) {
+			cortex.consume(makeFrame(false));
+			collector.waitFor(2, 1000 / OverlayRenderer.DEFAULT_RATE);
+		}
+		cortex.shutdown();
+		Assert.assertTrue(collector.getCount() >= 2);
+		Assert.assertEquals(0, collector.getCentre(1));
+	}
+
+	@Test
+	public void testRateIsCapped() throws InterruptedException {
+		ImageCollector collector = new ImageCollector();
+		OverlayRenderer renderer = new OverlayRenderer(collector, 5);
+		PixelReader reader = new PixelReader();
+		reader.setImage(makeFrame(false));
+		FrameScanner scanner = new FrameScanner();
+		scanner.reset(WIDTH, 0);
+		ColourClassMask mask = new ColourClassMask();
+		Point ball = new Point(306, 281);
+
+		Assert.assertTrue(renderer.submit(reader, scanner, mask, WIDTH, HEIGHT,
+				OutputMode.MATCH, ball, null, -1, null, -1));
+		// Too early for the next one.
+		Assert.assertFalse(renderer.submit(reader, scanner, mask, WIDTH, HEIGHT,
+				OutputMode.MATCH, ball, null, -1, null, -1));
+		collector.waitFor(1);
+		Assert.assertEquals(1, collector.images.size());
+		// The circle around the ball passes below its centroid.
+		Assert.assertEquals(0xFF0000, collector.centres.get(0).intValue());
+
+		Thread.sleep(1000 / 5 + 20);
+		Assert.assertTrue(renderer.isDue());
+		Assert.assertTrue(renderer.submit(reader, scanner, mask, WIDTH, HEIGHT,
+				OutputMode.MATCH, null, null, -1, null, -1));
+		collector.waitFor(2);
+		// The images take turns and are cleared before drawing.
+		Assert.assertNotSame(collector.images.get(0), collector.images.get(1));
+		Assert.assertEquals(0, collector.centres.get(1).intValue());
+		renderer.stop();
+	}
+}
@@ -0,0 +1,52 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Eye;
+import group2.sdp.pc.vision.PixelReader;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class PixelReaderTest {
+
+	private static final int WIDTH = 16, HEIGHT = 8;
+
+	/**
+	 * Fills the image with random colours and checks that the reader reads
+	 * the same colour as getRGB at every pixel.
+	 */
+	private void check(BufferedImage image) {
+		Random random = new Random(1);
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				image.setRGB(x, y, 0xFF000000 | random.nextInt(0x1000000));
+			}
+		}
+		image.setRGB(0, 0, 0xFF123456);
+		PixelReader reader = new PixelReader();
+		reader.setImage(image);
+		Assert.assertEquals(0x123456, reader.getRGB(0, 0));
+		for (int y = 0; y < HEIGHT; ++y) {
+			for (int x = 0; x < WIDTH; ++x) {
+				Assert.assertEquals(image.getRGB(x, y) & 0xFFFFFF,
+						reader.getRGB(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testByteImages() {
+		check(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_3BYTE_BGR));
+		check(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_4BYTE_ABGR));
+		check(Eye.createRGBImage(new byte[WIDTH * HEIGHT * 3], WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void testIntImages() {
+		check(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB));
+		check(new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB));
+	}
+}
@@ -0,0 +1,71 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.breadbin.StaticInfo;
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.DetectorVariant;
+import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.skeleton.StaticInfoConsumer;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class PyramidModeTest {
+
+	/**
+	 * The largest distance between the positions found with and without
+	 * the coarse pass, in cm: about a pixel.
+	 */
+	private static final double POSITION_TOLERANCE = 0.5;
+	private static final double ANGLE_TOLERANCE = 1.0;
+
+	private class InfoCollector implements StaticInfoConsumer {
+		ArrayList<StaticInfo> infos = new ArrayList<StaticInfo>();
+
+		@Override
+		public void consumeInfo(StaticInfo staticInfo) {
+			infos.add(staticInfo);
+		}
+	}
+
+	private ArrayList<StaticInfo> run(DetectorVariant variant) {
+		InfoCollector collector = new InfoCollector();
+		VisualCortex cortex = new VisualCortex(collector);
+		cortex.setVariant(variant);
+		for (int frame = 0; frame < 25; ++frame) {
+			cortex.consume(SyntheticFrames.makeMatchFrame(frame));
+		}
+		return collector.infos;
+	}
+
+	@Test
+	public void testWithinToleranceOfFullResolution() {
+		GlobalInfo.setPitchOne(true);
+		ArrayList<StaticInfo> full = run(DetectorVariant.STANDARD);
+		DetectorVariant[] variants = 
+			{ DetectorVariant.PYRAMID_2, DetectorVariant.PYRAMID_4 };
+		for (DetectorVariant variant : variants) {
+			ArrayList<StaticInfo> coarse = run(variant);
+			Assert.assertEquals(full.size(), coarse.size());
+			for (int i = 0; i < full.size(); ++i) {
+				StaticInfo a = full.get(i);
+				StaticInfo b = coarse.get(i);
+				Assert.assertTrue(a.getBallInfo().getPosition().distance(
+						b.getBallInfo().getPosition()) <= POSITION_TOLERANCE);
+				Assert.assertTrue(a.getAlfieInfo().getPosition().distance(
+						b.getAlfieInfo().getPosition()) <= POSITION_TOLERANCE);
+				Assert.assertTrue(a.getOpponentInfo().getPosition().distance(
+						b.getOpponentInfo().getPosition()) <= POSITION_TOLERANCE);
+				double alfie = Math.abs(a.getAlfieInfo().getFacingDirection()
+						- b.getAlfieInfo().getFacingDirection());
+				Assert.assertTrue(Math.min(alfie, 360 - alfie) <= ANGLE_TOLERANCE);
+				double opponent = Math.abs(a.getOpponentInfo().getFacingDirection()
+						- b.getOpponentInfo().getFacingDirection());
+				Assert.assertTrue(Math.min(opponent, 360 - opponent) <= ANGLE_TOLERANCE);
+			}
+		}
+	}
+}
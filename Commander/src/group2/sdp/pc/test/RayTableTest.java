@@ -0,0 +1,34 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.RayTable;
+import group2.sdp.pc.vision.VisualCortex;
+
+import java.awt.Point;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class RayTableTest {
+
+	@Test
+	public void testMatchesRotatePoint() {
+		VisualCortex cortex = new VisualCortex(null);
+		Point pivot = new Point(320, 240);
+		for (int deg = 0; deg < 360; ++deg) {
+			for (int step = 0; step < RayTable.MAX_LENGTH; ++step) {
+				Point rotated = cortex.rotatePoint(pivot, 
+						new Point(pivot.x + step, pivot.y), deg);
+				Assert.assertEquals(rotated.x - pivot.x, RayTable.getX(deg, step));
+				Assert.assertEquals(rotated.y - pivot.y, RayTable.getY(deg, step));
+			}
+		}
+	}
+
+	@Test
+	public void testNormalise() {
+		Assert.assertEquals(0, RayTable.normalise(360));
+		Assert.assertEquals(359, RayTable.normalise(-1));
+		Assert.assertEquals(10, RayTable.normalise(730));
+	}
+}
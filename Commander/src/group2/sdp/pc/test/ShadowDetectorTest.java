@@ -0,0 +1,118 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.DetectorVariant;
+import group2.sdp.pc.vision.ShadowDetector;
+import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.skeleton.Detector;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+
+import java.awt.image.BufferedImage;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ShadowDetectorTest {
+
+	/**
+	 * How long to wait for the shadow thread, in milliseconds.
+	 */
+	private static final long TIMEOUT = 5000;
+
+	/**
+	 * Finds the ball 5 cm away from where the active detector does, the
+	 * yellow robot facing 20 degrees away, and no blue robot.
+	 */
+	private class OffsetDetector implements Detector {
+		FrameDetections detections = new FrameDetections();
+		int backgrounds = 0;
+		int shutdowns = 0;
+
+		@Override
+		public void setBackground(BufferedImage background) {
+			++backgrounds;
+		}
+
+		@Override
+		public FrameDetections detect(BufferedImage image) {
+			detections.reset();
+			detections.setFound(FrameDetections.BALL, 13, 24, 1, 100);
+			detections.setFound(FrameDetections.YELLOW, 0, 0, 1, 400);
+			detections.setFacingDirection(FrameDetections.YELLOW, 350);
+			return detections;
+		}
+
+		@Override
+		public void shutdown() {
+			++shutdowns;
+		}
+	}
+
+	private void waitForComparisons(ShadowDetector shadow, long count)
+			throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (shadow.getComparedFrames() < count
+				&& System.currentTimeMillis() < end) {
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testDisagreement() throws InterruptedException {
+		OffsetDetector candidate = new OffsetDetector();
+		ShadowDetector shadow = new ShadowDetector(candidate);
+		BufferedImage image = SyntheticFrames.makeMatchFrame(0);
+		shadow.setBackground(image);
+
+		FrameDetections active = new FrameDetections();
+		active.reset();
+		active.setFound(FrameDetections.BALL, 10, 20, 1, 100);
+		active.setFound(FrameDetections.YELLOW, 0, 0, 1, 400);
+		active.setFacingDirection(FrameDetections.YELLOW, 10);
+		active.setFound(FrameDetections.BLUE, 50, 50, 1, 400);
+		Assert.assertTrue(shadow.submit(image, active, 2000000));
+		waitForComparisons(shadow, 1);
+		shadow.stop();
+		shadow.join();
+		Assert.assertEquals(1, candidate.shutdowns);
+
+		Assert.assertEquals(1, shadow.getComparedFrames());
+		Assert.assertEquals(1, candidate.backgrounds);
+		Assert.assertEquals(2.0, shadow.getMeanActiveLatency(), 1e-9);
+		Assert.assertEquals(5.0, shadow.getMeanPositionError(FrameDetections.BALL), 1e-9);
+		Assert.assertEquals(0, shadow.getFoundMismatches(FrameDetections.BALL));
+		// Across 0 degrees the directions are 20 degrees apart, not 340.
+		Assert.assertEquals(20.0, shadow.getMaxAngleError(FrameDetections.YELLOW), 1e-9);
+		Assert.assertEquals(1, shadow.getFoundMismatches(FrameDetections.BLUE));
+
+		shadow.resetStatistics();
+		Assert.assertEquals(0, shadow.getComparedFrames());
+		Assert.assertEquals(0.0, shadow.getMaxPositionError(FrameDetections.BALL), 1e-9);
+	}
+
+	@Test
+	public void testSameVariantAgrees() throws InterruptedException {
+		GlobalInfo.setPitchOne(true);
+		VisualCortex active = new VisualCortex(null);
+		ShadowDetector shadow =
+			new ShadowDetector(DetectorVariant.STANDARD.createShadow(active));
+		active.setShadow(shadow);
+		for (int frame = 0; frame < 10; ++frame) {
+			active.consume(SyntheticFrames.makeMatchFrame(frame));
+			// Give the shadow time, so that most frames are compared.
+			Thread.sleep(20);
+		}
+		// The last frame may still be being compared.
+		waitForComparisons(shadow, 9 - shadow.getSkippedFrames());
+		active.setShadow(null);
+
+		Assert.assertTrue(shadow.getComparedFrames() > 0);
+		Assert.assertEquals(9, shadow.getComparedFrames() + shadow.getSkippedFrames());
+		for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+			Assert.assertEquals(0, shadow.getFoundMismatches(object));
+			Assert.assertEquals(0.0, shadow.getMaxPositionError(object), 1e-9);
+			Assert.assertEquals(0.0, shadow.getMaxAngleError(object), 1e-9);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.BackgroundModel;
+import group2.sdp.pc.vision.Blob;
+import group2.sdp.pc.vision.BlobFinder;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.PixelReader;
+import group2.sdp.pc.vision.StripeScanner;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class StripeScannerTest {
+
+	private static final int WIDTH = SyntheticFrames.WIDTH;
+	private static final int HEIGHT = SyntheticFrames.HEIGHT;
+
+	/**
+	 * Draws objects that cross the borders of the stripes: a U of yellow
+	 * whose arms only meet in the stripe below the one they start in, blue
+	 * areas of equal size, a ball, and noise.
+	 */
+	private BufferedImage makeFrame() {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+				BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		g.setColor(SyntheticFrames.PITCH);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.setColor(SyntheticFrames.YELLOW);
+		g.fillRect(100, 100, 8, 80);
+		g.fillRect(140, 100, 8, 80);
+		g.fillRect(100, 172, 48, 8);
+		g.fillRect(300, 50, 20, 20);
+		g.setColor(SyntheticFrames.BLUE);
+		g.fillRect(400, 110, 10, 20);
+		g.fillRect(400, 300, 10, 20);
+		g.fillRect(500, 10, 30, 460);
+		g.setColor(SyntheticFrames.RED);
+		g.fillOval(250, 232, 14, 14);
+		g.dispose();
+		Random random = new Random(42);
+		for (int i = 0; i < 500; ++i) {
+			Color c = i % 3 == 0 ? SyntheticFrames.YELLOW 
+					: i % 3 == 1 ? SyntheticFrames.BLUE : SyntheticFrames.RED;
+			image.setRGB(random.nextInt(WIDTH), random.nextInt(HEIGHT), c.getRGB());
+		}
+		return image;
+	}
+
+	private void assertSameBlob(Blob expected, Blob actual) {
+		Assert.assertEquals(expected.getSize(), actual.getSize());
+		for (int p = 0; p < expected.getSize(); ++p) {
+			Assert.assertEquals(expected.getPixel(p), actual.getPixel(p));
+		}
+		if (expected.getSize() > 0) {
+			Assert.assertEquals(expected.getCentroid(), actual.getCentroid());
+			Assert.assertEquals(expected.getCentralMomentXX(), actual.getCentralMomentXX());
+			Assert.assertEquals(expected.getCentralMomentXY(), actual.getCentralMomentXY());
+			Assert.assertEquals(expected.getCentralMomentYY(), actual.getCentralMomentYY());
+		}
+	}
+
+	private PixelReader reader;
+	private BackgroundModel background;
+	private ColourLookupTable table;
+
+	/**
+	 * Sets up the reader with the frame of {@link #makeFrame()}, on the
+	 * background of the empty pitch.
+	 */
+	private void readFrame() {
+		GlobalInfo.setPitchOne(true);
+		BufferedImage empty = new BufferedImage(WIDTH, HEIGHT,
+				BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = empty.createGraphics();
+		g.setColor(SyntheticFrames.PITCH);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.dispose();
+		reader = new PixelReader();
+		reader.setImage(empty);
+		background = new BackgroundModel();
+		background.reset(reader);
+		reader.setImage(makeFrame());
+		table = new ColourLookupTable();
+		table.update();
+	}
+
+	@Test
+	public void testSameAsSequential() {
+		readFrame();
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		ColourClassMask sequentialMask = new ColourClassMask();
+		sequentialMask.reset(bounds);
+		FrameScanner sequential = new FrameScanner();
+		sequential.reset(WIDTH, WIDTH * HEIGHT);
+		sequential.scan(reader, background, table, sequentialMask, 
+				0, 0, WIDTH, HEIGHT, 50);
+		BlobFinder finder = new BlobFinder();
+		// The U is the largest yellow area, but not all of the yellow.
+		finder.label(sequential.getPixels(FrameScanner.YELLOW));
+		Assert.assertEquals(8 * 80 * 2 + 32 * 8,
+				finder.getSize(finder.getLargestArea()));
+
+		for (int parallelism = 2; parallelism <= 7; ++parallelism) {
+			StripeScanner stripeScanner = new StripeScanner(parallelism);
+			ColourClassMask parallelMask = new ColourClassMask();
+			parallelMask.reset(bounds);
+			FrameScanner parallel = new FrameScanner();
+			stripeScanner.scan(reader, background, table, parallelMask,
+					0, 0, WIDTH, HEIGHT, 50, null, parallel);
+
+			Assert.assertEquals(sequential.getForegroundCount(),
+					parallel.getForegroundCount());
+			for (int i = 0; i < sequential.getForegroundCount(); ++i) {
+				Assert.assertEquals(sequential.getForeground()[i],
+						parallel.getForeground()[i]);
+			}
+			for (int y = 0; y < HEIGHT; ++y) {
+				for (int x = 0; x < WIDTH; ++x) {
+					Assert.assertEquals(sequentialMask.get(x, y), 
+							parallelMask.get(x, y));
+				}
+			}
+			for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+				Blob pixels = sequential.getPixels(object);
+				assertSameBlob(pixels, parallel.getPixels(object));
+
+				Blob expected = new Blob();
+				finder.label(pixels);
+				finder.extract(finder.getLargestArea(), expected);
+				Blob actual = stripeScanner.getGreatestArea(object, new Blob());
+				assertSameBlob(expected, actual);
+			}
+			stripeScanner.shutdown();
+		}
+	}
+
+	@Test
+	public void testInterruptedScanFindsNothing() {
+		readFrame();
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		ColourClassMask mask = new ColourClassMask();
+		mask.reset(bounds);
+		StripeScanner stripeScanner = new StripeScanner(3);
+		FrameScanner result = new FrameScanner();
+		stripeScanner.scan(reader, background, table, mask,
+				0, 0, WIDTH, HEIGHT, 50, null, result);
+		Assert.assertTrue(result.getForegroundCount() > 0);
+
+		// The stripes of the last frame must not show up in this one.
+		Thread.currentThread().interrupt();
+		stripeScanner.scan(reader, background, table, mask,
+				0, 0, WIDTH, HEIGHT, 50, null, result);
+		Assert.assertTrue(Thread.interrupted());
+		Assert.assertEquals(0, result.getForegroundCount());
+		for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+			Assert.assertEquals(0, result.getPixels(object).getSize());
+			Assert.assertEquals(0, 
+					stripeScanner.getGreatestArea(object, new Blob()).getSize());
+		}
+		stripeScanner.shutdown();
+	}
+}
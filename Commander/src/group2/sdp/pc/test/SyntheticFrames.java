@@ -0,0 +1,120 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.vision.Eye;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the frames that the vision tests run on: the pitch and the objects
+ * on it, in the colours of the default settings of pitch one, so that they
+ * can be told apart without loading the settings.
+ */
+public class SyntheticFrames {
+
+	/**
+	 * The size of the frames of the camera.
+	 */
+	public static final int WIDTH = 640, HEIGHT = 480;
+
+	public static final Color PITCH = new Color(96, 150, 90);
+	public static final Color YELLOW = new Color(200, 195, 180);
+	public static final Color BLUE = new Color(40, 60, 200);
+	public static final Color RED = new Color(220, 30, 30);
+
+	/**
+	 * The diameter of the ball in pixels.
+	 */
+	public static final int BALL_SIZE = 12;
+
+	/**
+	 * Creates a frame of the empty pitch, in the layout of the frames of the
+	 * {@link Eye}.
+	 * @param width The width of the frame.
+	 * @param height The height of the frame.
+	 * @return The frame.
+	 */
+	public static BufferedImage createFrame(int width, int height) {
+		BufferedImage image =
+			Eye.createRGBImage(new byte[width * height * 3], width, height);
+		Graphics2D g = image.createGraphics();
+		g.setColor(PITCH);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return image;
+	}
+
+	/**
+	 * Creates a frame of the empty pitch of the size of the frames of the
+	 * camera.
+	 * @return The frame.
+	 */
+	public static BufferedImage createFrame() {
+		return createFrame(WIDTH, HEIGHT);
+	}
+
+	/**
+	 * Draws the T on the top of a robot. The stem of the T points in the
+	 * facing direction of the robot.
+	 * @param g The graphics to draw with.
+	 * @param colour The colour of the T.
+	 * @param x The x coordinate of the centre of the robot.
+	 * @param y The y coordinate of the centre of the robot.
+	 * @param deg The facing direction of the robot in degrees, as the
+	 * vision system reports it.
+	 */
+	public static void drawT(Graphics2D g, Color colour, double x, double y,
+			double deg) {
+		AffineTransform old = g.getTransform();
+		g.translate(x, y);
+		g.rotate(Math.toRadians(-deg));
+		g.setColor(colour);
+		g.fillRect(-12, -20, 10, 40);
+		g.fillRect(-12, -5, 38, 10);
+		g.setTransform(old);
+	}
+
+	/**
+	 * Draws the ball.
+	 * @param g The graphics to draw with.
+	 * @param x The x coordinate of the top left corner of the ball.
+	 * @param y The y coordinate of the top left corner of the ball.
+	 */
+	public static void drawBall(Graphics2D g, int x, int y) {
+		g.setColor(RED);
+		g.fillOval(x, y, BALL_SIZE, BALL_SIZE);
+	}
+
+	/**
+	 * Draws a frame of a short match: both robots turn and move across the
+	 * pitch and the ball rolls down it. Frame 0 is the empty pitch.
+	 * @param frame The number of the frame.
+	 * @return The frame.
+	 */
+	public static BufferedImage makeMatchFrame(int frame) {
+		return makeMatchFrame(frame, true);
+	}
+
+	/**
+	 * Draws a frame of the short match of {@link #makeMatchFrame(int)},
+	 * possibly without the ball, e.g. while it is hidden by a robot.
+	 * @param frame The number of the frame.
+	 * @param ball True to draw the ball.
+	 * @return The frame.
+	 */
+	public static BufferedImage makeMatchFrame(int frame, boolean ball) {
+		BufferedImage image = createFrame();
+		if (frame > 0) {
+			Graphics2D g = image.createGraphics();
+			drawT(g, YELLOW, 150 + 6 * frame, 220, 11 * frame);
+			drawT(g, BLUE, 420 - 4 * frame, 280, 200 - 7 * frame);
+			if (ball) {
+				drawBall(g, 300, 150 + 3 * frame);
+			}
+			g.dispose();
+		}
+		return image;
+	}
+}
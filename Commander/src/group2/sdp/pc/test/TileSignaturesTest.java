@@ -0,0 +1,122 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.BackgroundModel;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.ColourLookupTable;
+import group2.sdp.pc.vision.FrameScanner;
+import group2.sdp.pc.vision.PixelReader;
+import group2.sdp.pc.vision.TileSignatures;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TileSignaturesTest {
+
+	private static final int WIDTH = 160;
+	private static final int HEIGHT = 128;
+
+	private BufferedImage makeImage(int yellowX, int blueX) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT,
+				BufferedImage.TYPE_3BYTE_BGR);
+		Graphics2D g = image.createGraphics();
+		g.setColor(SyntheticFrames.PITCH);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		if (yellowX >= 0) {
+			g.setColor(SyntheticFrames.YELLOW);
+			g.fillRect(yellowX, 20, 20, 30);
+		}
+		if (blueX >= 0) {
+			g.setColor(SyntheticFrames.BLUE);
+			g.fillRect(blueX, 80, 20, 30);
+		}
+		g.dispose();
+		return image;
+	}
+
+	@Test
+	public void testChangedTiles() {
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		TileSignatures tiles = new TileSignatures();
+		PixelReader reader = new PixelReader();
+		BufferedImage image = makeImage(20, 100);
+		reader.setImage(image);
+		Assert.assertEquals(80, tiles.update(reader, bounds, 30));
+		Assert.assertEquals(80, tiles.getTileCount());
+		Assert.assertEquals(0, tiles.update(reader, bounds, 30));
+
+		// A sampled pixel of the tile at (2, 3); it and its eight
+		// neighbours change.
+		image.setRGB(2 * TileSignatures.TILE_SIZE + 2,
+				3 * TileSignatures.TILE_SIZE + 2, Color.WHITE.getRGB());
+		Assert.assertEquals(9, tiles.update(reader, bounds, 30));
+		Assert.assertTrue(tiles.isChanged(2 * TileSignatures.TILE_SIZE,
+				3 * TileSignatures.TILE_SIZE));
+		Assert.assertTrue(tiles.isChanged(1 * TileSignatures.TILE_SIZE,
+				3 * TileSignatures.TILE_SIZE));
+		Assert.assertTrue(tiles.isChanged(1 * TileSignatures.TILE_SIZE,
+				2 * TileSignatures.TILE_SIZE));
+		Assert.assertFalse(tiles.isChanged(0, 3 * TileSignatures.TILE_SIZE));
+		Assert.assertEquals(0, tiles.update(reader, bounds, 30));
+
+		tiles.invalidate();
+		Assert.assertEquals(80, tiles.update(reader, bounds, 30));
+	}
+
+	@Test
+	public void testIncrementalScanMatchesFullScan() {
+		GlobalInfo.setPitchOne(true);
+		ColourLookupTable table = new ColourLookupTable();
+		table.update();
+		Rectangle bounds = new Rectangle(0, 0, WIDTH, HEIGHT);
+		PixelReader reader = new PixelReader();
+		reader.setImage(makeImage(-1, -1));
+		BackgroundModel background = new BackgroundModel();
+		background.reset(reader);
+
+		TileSignatures tiles = new TileSignatures();
+		ColourClassMask incrementalMask = new ColourClassMask();
+		incrementalMask.reset(bounds);
+		FrameScanner incremental = new FrameScanner();
+		for (int frame = 0; frame < 20; ++frame) {
+			// The yellow block moves, the blue one stays.
+			reader.setImage(makeImage(10 + 5 * frame, 100));
+			tiles.update(reader, bounds, 30);
+			if (frame > 0) {
+				Assert.assertTrue(tiles.getChangedCount() < tiles.getTileCount());
+			}
+			incremental.reset(WIDTH, WIDTH * HEIGHT);
+			incremental.scan(reader, background, table, incrementalMask,
+					0, 0, WIDTH, HEIGHT, 30, tiles);
+
+			ColourClassMask fullMask = new ColourClassMask();
+			fullMask.reset(bounds);
+			FrameScanner full = new FrameScanner();
+			full.reset(WIDTH, WIDTH * HEIGHT);
+			full.scan(reader, background, table, fullMask,
+					0, 0, WIDTH, HEIGHT, 30);
+
+			Assert.assertEquals("frame " + frame, full.getForegroundCount(),
+					incremental.getForegroundCount());
+			for (int i = 0; i < full.getForegroundCount(); ++i) {
+				Assert.assertEquals(full.getForeground()[i],
+						incremental.getForeground()[i]);
+			}
+			for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+				Assert.assertEquals(full.getPixels(object).getSize(),
+						incremental.getPixels(object).getSize());
+			}
+			for (int y = 0; y < HEIGHT; ++y) {
+				for (int x = 0; x < WIDTH; ++x) {
+					Assert.assertEquals(fullMask.get(x, y), incrementalMask.get(x, y));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package group2.sdp.pc.test;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+import group2.sdp.pc.vision.ColourClassMask;
+import group2.sdp.pc.vision.VisualCortex;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TrackingModeTest {
+
+	private static final int FRAME_COUNT = 40;
+
+	/**
+	 * The frame the ball is missing from.
+	 */
+	private static final int MISSING_BALL_FRAME = 15;
+
+	/**
+	 * A speck of yellow, too small to be a robot, far from the windows of
+	 * all objects. It is only classified when the whole frame is scanned.
+	 */
+	private static final int SPECK_X = 590, SPECK_Y = 420, SPECK_SIZE = 4;
+
+	/**
+	 * The frames that are scanned whole in tracking mode: the first one, 
+	 * every tenth one after a full scan, and the one after a miss.
+	 */
+	private static final List<Integer> FULL_SCANS = 
+		Arrays.asList(1, 12, 16, 27, 38);
+
+	private BufferedImage makeFrame(int frame) {
+		BufferedImage image = 
+			SyntheticFrames.makeMatchFrame(frame, frame != MISSING_BALL_FRAME);
+		if (frame > 0) {
+			Graphics2D g = image.createGraphics();
+			g.setColor(SyntheticFrames.YELLOW);
+			g.fillRect(SPECK_X, SPECK_Y, SPECK_SIZE, SPECK_SIZE);
+			g.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * Detects the frames of the match, with tracking on or off.
+	 * @param tracking True to turn tracking on.
+	 * @param speckClassified Filled with whether the speck was classified in
+	 * each frame.
+	 * @return The found flag, position, direction and pixel count of each 
+	 * object in each frame.
+	 */
+	private ArrayList<double[]> run(boolean tracking, 
+			ArrayList<Boolean> speckClassified) {
+		GlobalInfo.setPitchOne(true);
+		VisualCortex cortex = new VisualCortex(null);
+		cortex.setTracking(tracking);
+		// The first frame is taken as the background.
+		cortex.process(makeFrame(0));
+		ArrayList<double[]> results = new ArrayList<double[]>();
+		for (int frame = 1; frame < FRAME_COUNT; ++frame) {
+			FrameDetections detections = cortex.detect(makeFrame(frame));
+			double[] result = new double[5 * FrameDetections.OBJECT_COUNT];
+			for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+				result[5 * object] = detections.isFound(object) ? 1 : 0;
+				result[5 * object + 1] = detections.getX(object);
+				result[5 * object + 2] = detections.getY(object);
+				result[5 * object + 3] = detections.getFacingDirection(object);
+				result[5 * object + 4] = detections.getPixelCount(object);
+			}
+			results.add(result);
+			ColourClassMask mask = cortex.getColourClassMask();
+			speckClassified.add(mask.get(SPECK_X + 1, SPECK_Y + 1) 
+					== ColourClass.YELLOW.ordinal());
+		}
+		cortex.shutdown();
+		return results;
+	}
+
+	@Test
+	public void testSameDetectionsAsFullScan() {
+		ArrayList<Boolean> fullSpeck = new ArrayList<Boolean>();
+		ArrayList<double[]> full = run(false, fullSpeck);
+		ArrayList<Boolean> trackedSpeck = new ArrayList<Boolean>();
+		ArrayList<double[]> tracked = run(true, trackedSpeck);
+
+		for (int frame = 1; frame < FRAME_COUNT; ++frame) {
+			Assert.assertTrue("Frame " + frame, 
+					Arrays.equals(full.get(frame - 1), tracked.get(frame - 1)));
+		}
+		double[] missing = full.get(MISSING_BALL_FRAME - 1);
+		Assert.assertEquals(0.0, missing[5 * FrameDetections.BALL]);
+		Assert.assertEquals(1.0, missing[5 * FrameDetections.YELLOW]);
+		Assert.assertEquals(1.0, missing[5 * FrameDetections.BLUE]);
+
+		// Only the windows are scanned, except for the full scans.
+		for (int frame = 1; frame < FRAME_COUNT; ++frame) {
+			Assert.assertTrue(fullSpeck.get(frame - 1));
+			Assert.assertEquals("Frame " + frame, 
+					FULL_SCANS.contains(frame), 
+					trackedSpeck.get(frame - 1).booleanValue());
+		}
+	}
+}
@@ -2,6 +2,7 @@ package group2.sdp.pc.vision;
 
 import group2.sdp.pc.vision.skeleton.ImageConsumer;
 
+import java.awt.Graphics;
 import java.awt.event.WindowAdapter;
 import java.awt.image.BufferedImage;
 
@@ -12,6 +13,11 @@ import javax.swing.JLabel;
 /**
  * <p><b>Description:</b>	Sets up a window in which to display images passed to it
  * through consume</p>
+ * <p>The images are painted on the event dispatch thread, so consume copies
+ * the latest image into an image of the Artist's own and asks for a repaint.
+ * The images passed in are not kept: the frames of the {@link Eye} wrap 
+ * buffers that the driver reuses. Both images are locked while copying, and
+ * the copy while it is painted, see {@link OverlayRenderer}.</p>
  */
 public class Artist extends WindowAdapter implements ImageConsumer {
 	private static int width = 640, height = 480;
@@ -19,6 +25,12 @@ public class Artist extends WindowAdapter implements ImageConsumer {
 	private JLabel          label;
 	private JFrame          frame;	
 	
+	/**
+	 * The copy of the latest image passed to consume; null until the first
+	 * one. Replaced if an image of a different size or type arrives.
+	 */
+	private volatile BufferedImage image;
+	
 	/**
 	 * The data will be passed to this object, after it is displayed.
 	 */
@@ -26,7 +38,20 @@ public class Artist extends WindowAdapter implements ImageConsumer {
 	
 	@Override
 	public void consume(BufferedImage image) {
-		label.getGraphics().drawImage(image, 0, 0, width, height, null);
+		BufferedImage copy = this.image;
+		if (copy == null
+				|| copy.getWidth() != image.getWidth()
+				|| copy.getHeight() != image.getHeight()
+				|| copy.getType() != image.getType()) {
+			copy = OpticNerve.createCompatibleImage(image);
+		}
+		synchronized (image) {
+			synchronized (copy) {
+				OpticNerve.copyFrame(image, copy);
+			}
+		}
+		this.image = copy;
+		label.repaint();
 		if (consumer != null)
 			consumer.consume(image);
 	}
@@ -44,10 +69,23 @@ public class Artist extends WindowAdapter implements ImageConsumer {
 	/** 
 	 * Creates the UI components and initialises them
 	 */
+	// We do not use serialisation.
+	@SuppressWarnings("serial")
 	private void initGUI(){
 		frame = new JFrame();
 		frame.setLocation(640, 0);
-		label = new JLabel();
+		label = new JLabel() {
+			@Override
+			protected void paintComponent(Graphics g) {
+				super.paintComponent(g);
+				BufferedImage current = image;
+				if (current != null) {
+					synchronized (current) {
+						g.drawImage(current, 0, 0, width, height, null);
+					}
+				}
+			}
+		};
 		frame.getContentPane().add(label);
 		frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
 		frame.addWindowListener(this);
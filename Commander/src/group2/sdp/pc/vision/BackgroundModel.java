@@ -0,0 +1,211 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+
+import java.awt.Rectangle;
+
+/**
+ *<p><b>BackgroundModel:</b> A running model of the empty pitch</br>
+ *<p><b>Description:</b></br>
+ *Holds the colour of each pixel of the empty pitch, and how much the pixel
+ *is expected to vary from frame to frame. It starts from a background image
+ *and then follows the changes in the lighting during a match: the pixels
+ *that are classified as pitch are blended into the background. The
+ *variation of each pixel gives it its own pixel difference threshold, so
+ *that the noisy parts of the pitch do not flood the foreground.
+ *<p><b>Implementation:</b></br>
+ *The colours are exponential moving averages per channel, in fixed point
+ *with {@link #FRACTION_BITS} fractional bits; so is the mean square of the
+ *difference of a pixel from the background. Updating the whole frame every
+ *frame is not needed, as the lighting changes slowly, so the frame is split
+ *in {@link #TILE_SIZE} tiles and a few of them are updated each frame, in
+ *turn.
+ */
+public class BackgroundModel {
+
+	/**
+	 * The number of fractional bits of the averages.
+	 */
+	private static final int FRACTION_BITS = 8;
+	/**
+	 * The weight of a new value in the averages is 1 / 2^RATE_SHIFT.
+	 */
+	private static final int RATE_SHIFT = 5;
+	/**
+	 * The side of the tiles that are updated at a time, in pixels.
+	 */
+	public static final int TILE_SIZE = 16;
+	/**
+	 * Each update goes over this fraction of the tiles, so all of them are
+	 * updated every UPDATE_PERIOD frames.
+	 */
+	private static final int UPDATE_PERIOD = 16;
+	/**
+	 * The threshold of a pixel is at least this many times its standard
+	 * deviation.
+	 */
+	private static final int DEVIATIONS = 3;
+
+	private int width, height;
+
+	/**
+	 * The background as packed RGB values, indexed by y * width + x.
+	 */
+	private int[] colours = new int[0];
+	/**
+	 * The channels of the background in fixed point, indexed by
+	 * 3 * (y * width + x) + channel.
+	 */
+	private int[] channels = new int[0];
+	/**
+	 * The mean square of the differences of the pixels from the background,
+	 * in fixed point.
+	 */
+	private int[] variances = new int[0];
+	/**
+	 * The smallest pixel difference threshold of each pixel, from its
+	 * variance.
+	 */
+	private int[] thresholds = new int[0];
+
+	/**
+	 * The number of the next tile to update.
+	 */
+	private int nextTile;
+
+
+	/**
+	 * Starts the model from the given image of the empty pitch.
+	 * @param image The background image.
+	 */
+	public void reset(PixelReader image) {
+		width = image.getWidth();
+		height = image.getHeight();
+		int size = width * height;
+		if (colours.length != size) {
+			colours = new int[size];
+			channels = new int[3 * size];
+			variances = new int[size];
+			thresholds = new int[size];
+		}
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				int index = y * width + x;
+				int rgb = image.getRGB(x, y);
+				colours[index] = rgb;
+				channels[3 * index] = ((rgb >> 16) & 0xFF) << FRACTION_BITS;
+				channels[3 * index + 1] = ((rgb >> 8) & 0xFF) << FRACTION_BITS;
+				channels[3 * index + 2] = (rgb & 0xFF) << FRACTION_BITS;
+				variances[index] = 0;
+				thresholds[index] = 0;
+			}
+		}
+		nextTile = 0;
+	}
+
+	/**
+	 * Blends the pixels of the next few tiles of the given region into the
+	 * background, if they are classified as pitch: if they matched the
+	 * background or are of the colour of the pitch.
+	 * @param image The frame just scanned.
+	 * @param mask The colour classes of the foreground of the frame.
+	 * @param bounds The region that was scanned.
+	 */
+	public void update(PixelReader image, ColourClassMask mask, Rectangle bounds) {
+		final int pitch = ColourClass.GREEN_PITCH.ordinal();
+		int tilesAcross = (bounds.width + TILE_SIZE - 1) / TILE_SIZE;
+		int tilesDown = (bounds.height + TILE_SIZE - 1) / TILE_SIZE;
+		int tileCount = tilesAcross * tilesDown;
+		if (tileCount == 0) {
+			return;
+		}
+		int tilesPerUpdate = (tileCount + UPDATE_PERIOD - 1) / UPDATE_PERIOD;
+		for (int t = 0; t < tilesPerUpdate; ++t) {
+			int tile = nextTile++ % tileCount;
+			int minX = bounds.x + (tile % tilesAcross) * TILE_SIZE;
+			int minY = bounds.y + (tile / tilesAcross) * TILE_SIZE;
+			int maxX = Math.min(minX + TILE_SIZE, bounds.x + bounds.width);
+			int maxY = Math.min(minY + TILE_SIZE, bounds.y + bounds.height);
+			for (int y = minY; y < maxY; ++y) {
+				for (int x = minX; x < maxX; ++x) {
+					int colourClass = mask.get(x, y);
+					if (colourClass == ColourClassMask.NONE || colourClass == pitch) {
+						updatePixel(y * width + x, image.getRGB(x, y));
+					}
+				}
+			}
+		}
+		nextTile %= tileCount;
+	}
+
+	/**
+	 * Blends a pixel into the background.
+	 * @param index The index of the pixel.
+	 * @param rgb The colour of the pixel in the frame.
+	 */
+	private void updatePixel(int index, int rgb) {
+		int c = 3 * index;
+		int r = channels[c] += ((((rgb >> 16) & 0xFF) << FRACTION_BITS) - channels[c]) >> RATE_SHIFT;
+		int g = channels[c + 1] += ((((rgb >> 8) & 0xFF) << FRACTION_BITS) - channels[c + 1]) >> RATE_SHIFT;
+		int b = channels[c + 2] += (((rgb & 0xFF) << FRACTION_BITS) - channels[c + 2]) >> RATE_SHIFT;
+		int half = 1 << (FRACTION_BITS - 1);
+		int back = ((r + half) >> FRACTION_BITS) << 16
+			| ((g + half) >> FRACTION_BITS) << 8
+			| ((b + half) >> FRACTION_BITS);
+		colours[index] = back;
+
+		int delta =
+			Math.abs(((rgb >> 16) & 0xFF) - ((back >> 16) & 0xFF)) +
+			Math.abs(((rgb >> 8) & 0xFF) - ((back >> 8) & 0xFF)) +
+			Math.abs((rgb & 0xFF) - (back & 0xFF));
+		int variance = variances[index] +=
+			((delta * delta << FRACTION_BITS) - variances[index]) >> RATE_SHIFT;
+		thresholds[index] = DEVIATIONS
+			* (int) Math.sqrt(variance >> FRACTION_BITS);
+	}
+
+	/**
+	 * Get the background as packed RGB values, indexed by y * width + x.
+	 * @return The background.
+	 */
+	public int[] getColours() {
+		return colours;
+	}
+
+	/**
+	 * Get the smallest pixel difference threshold of each pixel, from the
+	 * way it varies, indexed by y * width + x.
+	 * @return The smallest thresholds of the pixels.
+	 */
+	public int[] getThresholds() {
+		return thresholds;
+	}
+
+	/**
+	 * Gets the variance of a pixel: the mean square of the difference (the
+	 * sum of the absolute differences of the channels) of the pixel from
+	 * the background.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @return The variance of the pixel.
+	 */
+	public double getVariance(int x, int y) {
+		return (double) variances[y * width + x] / (1 << FRACTION_BITS);
+	}
+
+	/**
+	 * Get the width of the background.
+	 * @return The width of the background.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the background.
+	 * @return The height of the background.
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
@@ -1,10 +1,8 @@
 package group2.sdp.pc.vision;
 
 import java.awt.geom.Point2D;
-import java.util.LinkedList;
 
-import group2.sdp.pc.breadbin.StaticBallInfo;
-import group2.sdp.pc.breadbin.StaticRobotInfo;
+import group2.sdp.pc.breadbin.ObjectHistory;
 import group2.sdp.pc.vision.skeleton.BakerySkeleton;
 import group2.sdp.pc.vision.skeleton.DynamicInfoConsumer;
 
@@ -49,11 +47,11 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected double computeBallRollingSpeed(
-			LinkedList<StaticBallInfo> ballHistoryInfos) {
+			ObjectHistory ballHistory) {
 		// algorithm finds average position from last 3 points then average of 3
 		// before that
 		// and uses these two average positions and times to calculate speed
-		int historySize=ballHistoryInfos.size();
+		int historySize=ballHistory.size();
 		if (historySize < 6) {
 			if (VERBOSE) {
 				System.out.println("Not enough history ball speed 0");
@@ -61,11 +59,11 @@ public class Bakery extends BakerySkeleton {
 			return 0;
 		}
 		// find average position of last 3 points
-		Point2D recentAvg = findAverageBallPoint(ballHistoryInfos, ballHistoryInfos.size()-1 , ballHistoryInfos.size()-3);
-		long recentTime = findAverageTime(ballHistoryInfos, ballHistoryInfos.size()-1 , ballHistoryInfos.size()-3);
+		Point2D recentAvg = findAveragePoint(ballHistory, historySize-1 , historySize-3);
+		long recentTime = findAverageTime(ballHistory, historySize-1 , historySize-3);
 		//find average of previous 3 points
-		Point2D oldAvg = findAverageBallPoint(ballHistoryInfos, ballHistoryInfos.size()-4 , ballHistoryInfos.size()-6);
-		long oldTime = findAverageTime(ballHistoryInfos, ballHistoryInfos.size()-4 , ballHistoryInfos.size()-6);
+		Point2D oldAvg = findAveragePoint(ballHistory, historySize-4 , historySize-6);
+		long oldTime = findAverageTime(ballHistory, historySize-4 , historySize-6);
 
 		// test if ball is moving
 		if (oldAvg.distance(recentAvg) < MOVING_THRESHOLD) {
@@ -81,11 +79,11 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected double computeBallRollingDirection(
-			LinkedList<StaticBallInfo> ballHistoryInfos) {
+			ObjectHistory ballHistory) {
 		// algorithm finds average position from last 3 points then average of 3
 		// before that
 		// and uses these two average positions and times to calculate angle
-		int numPoints=ballHistoryInfos.size();
+		int numPoints=ballHistory.size();
 		double angle;
 		if (numPoints < 6) {
 			if (VERBOSE) {
@@ -95,8 +93,8 @@ public class Bakery extends BakerySkeleton {
 		}
 		
 		// find average of last 3 points
-		Point2D recentAvg = findAverageBallPoint(ballHistoryInfos, numPoints-1 , numPoints-3);
-		Point2D oldAvg = findAverageBallPoint(ballHistoryInfos, numPoints-4 , numPoints-6);		
+		Point2D recentAvg = findAveragePoint(ballHistory, numPoints-1 , numPoints-3);
+		Point2D oldAvg = findAveragePoint(ballHistory, numPoints-4 , numPoints-6);		
 		// test if ball is moving
 		if (oldAvg.distance(recentAvg) < MOVING_THRESHOLD) {
 			return 0;
@@ -116,11 +114,11 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected double computeRobotTravelSpeed(
-			LinkedList<StaticRobotInfo> historyInfos) {
+			ObjectHistory history) {
 		// algorithm finds average position from last 3 points then average of 3
 		// before that
 		// and uses these two average positions and times to calculate speed
-		int numPoints=historyInfos.size();
+		int numPoints=history.size();
 		// at beginning when no history speed cannot be calculated
 		if (numPoints < 6) {
 			if (VERBOSE) {
@@ -133,10 +131,10 @@ public class Bakery extends BakerySkeleton {
 		
 		// find average position of last 3 points and then average of points before
 		
-		Point2D recentAvg = findAverageRobotPoint(historyInfos, numPoints-1 , numPoints-3);
-		Point2D oldAvg = findAverageRobotPoint(historyInfos, numPoints-4 , numPoints-6);
-		long recentTime = findAverageTimeR(historyInfos, numPoints-1 , numPoints-3);
-		long oldTime = findAverageTimeR(historyInfos, numPoints-4 , numPoints-6);
+		Point2D recentAvg = findAveragePoint(history, numPoints-1 , numPoints-3);
+		Point2D oldAvg = findAveragePoint(history, numPoints-4 , numPoints-6);
+		long recentTime = findAverageTime(history, numPoints-1 , numPoints-3);
+		long oldTime = findAverageTime(history, numPoints-4 , numPoints-6);
 		// test if robot is moving
 		if (oldAvg.distance(recentAvg) < MOVING_THRESHOLD) {
 			return 0;
@@ -148,19 +146,19 @@ public class Bakery extends BakerySkeleton {
 	}
 
 	protected double correctRobotFacingDirection(
-			LinkedList<StaticRobotInfo> historyInfos) {
+			ObjectHistory history) {
 		// if we are correcting more than half the frames in the last 10 frames
 		// then
 		// set method to stop correcting for next 10 frames to avoid loop. use
 		// vision values instead
 		// use seperate counters for different robots (i.e Alfie and not Alfie).
 		
-		double currentFacing = historyInfos.getLast().getFacingDirection();
+		double currentFacing = history.getFacingDirection(history.size()-1);
 		//check for negative values (i.e robot is missing)
 		if (currentFacing < 0) {
 			return currentFacing;
 		}
-		if (historyInfos.getLast().isAlfie()) {
+		if (history.isAlfie()) {
 			if (stopAflie > 0) {
 				stopAflie--;
 				return currentFacing;
@@ -176,7 +174,7 @@ public class Bakery extends BakerySkeleton {
 				correctionsAlfie = 0;
 			}
 
-			if (historyInfos.isEmpty()) {
+			if (history.isEmpty()) {
 				return 0;
 			}
 			counterAlfie++;
@@ -196,13 +194,13 @@ public class Bakery extends BakerySkeleton {
 				correctionsOp = 0;
 			}
 
-			if (historyInfos.isEmpty()) {
+			if (history.isEmpty()) {
 				return 0;
 			}
 			counterOp++;
 		}
 
-		if (historyInfos.size() < 6) {
+		if (history.size() < 6) {
 			return currentFacing;
 		}
 		int numSim = 0;
@@ -210,9 +208,9 @@ public class Bakery extends BakerySkeleton {
 		double alternative = 0.0;
 		double angle = currentFacing;
 		// loop through previous points and count how many are similar
-		for (int i = historyInfos.size() - 2; i >= historyInfos.size() - 6
+		for (int i = history.size() - 2; i >= history.size() - 6
 				&& i >= 1; i--) {
-			double angleOld = historyInfos.get(i).getFacingDirection();
+			double angleOld = history.getFacingDirection(i);
 			// current threshold=90
 			if (isSimilarAngle(angleOld , angle, 90)) {
 				numSim++;
@@ -225,7 +223,7 @@ public class Bakery extends BakerySkeleton {
 			return angle;
 		} else {
 			// correct angle because of extreme value
-			if (historyInfos.getLast().isAlfie()) {
+			if (history.isAlfie()) {
 				correctionsAlfie++;
 			} else {
 				correctionsOp++;
@@ -236,26 +234,26 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected double computeRobotTravelDirection(
-			LinkedList<StaticRobotInfo> historyInfos) {
+			ObjectHistory history) {
 		// algorithm finds average position from last 3 points then average of 3
 		// before that
 		// and uses these two average positions and times to calculate angle
 		double angle;
-		int numPoints=historyInfos.size();
+		int numPoints=history.size();
 		if (numPoints < 6) {
 			if (VERBOSE) {
 				System.out.println("Not enough history robot direction set to facing direction");
 			}
-			return historyInfos.getLast().getFacingDirection();
+			return history.getFacingDirection(numPoints-1);
 		}
 		
 		
-		Point2D recentAvg = findAverageRobotPoint(historyInfos, numPoints-1 , numPoints-3);
-		Point2D oldAvg = findAverageRobotPoint(historyInfos, numPoints-4 , numPoints-6);
+		Point2D recentAvg = findAveragePoint(history, numPoints-1 , numPoints-3);
+		Point2D oldAvg = findAveragePoint(history, numPoints-4 , numPoints-6);
 		
 		// test if robot is moving
 		if (oldAvg.distance(recentAvg) < MOVING_THRESHOLD) {
-			return historyInfos.getLast().getFacingDirection();
+			return history.getFacingDirection(numPoints-1);
 		}
 		// now calculate angle
 		double xDiff = recentAvg.getX() - oldAvg.getX();
@@ -272,17 +270,17 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected double computeRobotRotatingSpeed(
-			LinkedList<StaticRobotInfo> historyInfos) {
+			ObjectHistory history) {
 		
 		// We can only calculate rotation speed if we have enough frames		
-		if(historyInfos.size() >= 3) {
+		if(history.size() >= 3) {
 			
-			StaticRobotInfo recentRobot = historyInfos.get(historyInfos.size()-1);
-			StaticRobotInfo oldRobot = historyInfos.get(historyInfos.size()-3);
-			double time2 = recentRobot.getTimeStamp();
-			double time1 = oldRobot.getTimeStamp();
-			double angle2 = recentRobot.getFacingDirection();
-			double angle1 = oldRobot.getFacingDirection();
+			int recent = history.size()-1;
+			int old = history.size()-3;
+			double time2 = history.getTimeStamp(recent);
+			double time1 = history.getTimeStamp(old);
+			double angle2 = history.getFacingDirection(recent);
+			double angle1 = history.getFacingDirection(old);
 			double bigAngle;
 			double smallAngle;
 			double angleDifference;
@@ -323,15 +321,13 @@ public class Bakery extends BakerySkeleton {
 
 	@Override
 	protected boolean isRobotRotatingCCW(
-			LinkedList<StaticRobotInfo> historyInfos) {
+			ObjectHistory history) {
 		
 		// We can only calculate rotation speed if we have enough frames		
-		if(historyInfos.size() >= 3) {
+		if(history.size() >= 3) {
 		
-			StaticRobotInfo recentRobot = historyInfos.get(historyInfos.size()-1);
-			StaticRobotInfo oldRobot = historyInfos.get(historyInfos.size()-3);
-			double angle2 = recentRobot.getFacingDirection();
-			double angle1 = oldRobot.getFacingDirection();
+			double angle2 = history.getFacingDirection(history.size()-1);
+			double angle1 = history.getFacingDirection(history.size()-3);
 			//not rotating case
 			if(isSimilarAngle(angle2, angle1 , ROTATING_THRESHOLD)){
 				return false;
@@ -367,18 +363,18 @@ public class Bakery extends BakerySkeleton {
 
 
 	/**
-	 * Works out the average time of a set of ballInfos. Bounds used to set how much of the info is used for average.
-	 * @param ballHistoryInfos list of ballInfos
-	 * @param upperBound	index of first ball used in average
-	 * @param lowerBound	index of last ball used in average
-	 * @return average time for given set balls within bounds
+	 * Works out the average time of a part of the history of an object. Bounds used to set how much of the history is used for average.
+	 * @param history the history of the object
+	 * @param upperBound	index of first entry used in average
+	 * @param lowerBound	index of last entry used in average
+	 * @return average time for the entries within bounds
 	 */
 	
-	protected long findAverageTime(LinkedList<StaticBallInfo> ballHistoryInfos, int upperBound, int lowerBound){
+	protected long findAverageTime(ObjectHistory history, int upperBound, int lowerBound){
 		long sum = 0;
 		int numPoints=(upperBound-lowerBound)+1;
 		for(int i=lowerBound ; i <= upperBound ; i++){
-			sum+=ballHistoryInfos.get(i).getTimeStamp();
+			sum+=history.getTimeStamp(i);
 			
 		}
 		long average =sum/numPoints;
@@ -387,60 +383,20 @@ public class Bakery extends BakerySkeleton {
 	
 	
 	/**
-	 * Works out the average point of a set of ballInfos. Bounds used to set how much of the info is used for average.
-	 * @param ballHistoryInfos list of ballInfos
-	 * @param upperBound	index of first ball used in average
-	 * @param lowerBound	index of last ball used in average
-	 * @return average point for given set balls within bounds
+	 * Works out the average point of a part of the history of an object. Bounds used to set how much of the history is used for average.
+	 * @param history the history of the object
+	 * @param upperBound	index of first entry used in average
+	 * @param lowerBound	index of last entry used in average
+	 * @return average point for the entries within bounds
 	 */
 	
-	protected Point2D findAverageBallPoint(LinkedList<StaticBallInfo> ballHistoryInfos, int upperBound, int lowerBound){
+	protected Point2D findAveragePoint(ObjectHistory history, int upperBound, int lowerBound){
 		double sumx = 0.0;
 		double sumy = 0.0;
 		int numPoints=(upperBound-lowerBound)+1;
 		for(int i=lowerBound ; i <= upperBound ; i++){
-			sumx+=ballHistoryInfos.get(i).getPosition().getX();
-			sumy+=ballHistoryInfos.get(i).getPosition().getY();
-		}
-		Point2D.Double average= new Point2D.Double(sumx/numPoints , sumy/numPoints);
-		return average;
-	}
-	
-	/**
-	 * Works out the average time of a set of robotInfos. Bounds used to set how much of the info is used for average.
-	 * @param ballHistoryInfos list of robotInfos
-	 * @param upperBound	index of first robot used in average
-	 * @param lowerBound	index of last robot used in average
-	 * @return average time for given set robotInfos within bounds
-	 */
-	
-	protected long findAverageTimeR(LinkedList<StaticRobotInfo> robotHistoryInfos, int upperBound, int lowerBound){
-		long sum = 0;
-		int numPoints=(upperBound-lowerBound)+1;
-		for(int i=lowerBound ; i <= upperBound ; i++){
-			sum+=robotHistoryInfos.get(i).getTimeStamp();
-			
-		}
-		long average =sum/numPoints;
-		return average;
-	}
-	
-	
-	/**
-	 * Works out the average point of a set of robotInfos. Bounds used to set how much of the info is used for average.
-	 * @param ballHistoryInfos list of ballInfos
-	 * @param upperBound	index of first robot used in average
-	 * @param lowerBound	index of last robot used in average
-	 * @return average point for given set robotInfos within bounds
-	 */
-	
-	protected Point2D findAverageRobotPoint(LinkedList<StaticRobotInfo> robotHistoryInfos, int upperBound, int lowerBound){
-		double sumx = 0.0;
-		double sumy = 0.0;
-		int numPoints=(upperBound-lowerBound)+1;
-		for(int i=lowerBound ; i <= upperBound ; i++){
-			sumx+=robotHistoryInfos.get(i).getPosition().getX();
-			sumy+=robotHistoryInfos.get(i).getPosition().getY();
+			sumx+=history.getX(i);
+			sumy+=history.getY(i);
 		}
 		Point2D.Double average= new Point2D.Double(sumx/numPoints , sumy/numPoints);
 		return average;
@@ -0,0 +1,329 @@
+package group2.sdp.pc.vision;
+
+import java.awt.Point;
+
+/**
+ * A set of pixels of a frame, e.g. all the yellow pixels or the connected
+ * area of a T, together with the sums needed to compute its moments, up to
+ * the third order. The
+ * pixels are stored as indices (y * width + x) in a buffer that grows when
+ * needed and is reused between frames. Each pixel may have a weight, e.g.
+ * how much it differs from the background, for the weighted centroid.
+ */
+public class Blob {
+
+	/**
+	 * The initial capacity of the pixel buffer.
+	 */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/**
+	 * The width of the frame the pixels are in.
+	 */
+	private int width;
+
+	/**
+	 * The indices of the pixels; only the first size are valid.
+	 */
+	private int[] pixels = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * The weights of the pixels, by position.
+	 */
+	private int[] weights = new int[INITIAL_CAPACITY];
+	private long sumW, sumWX, sumWY;
+
+	private long sumX, sumY;
+	private long sumXX, sumXY, sumYY;
+	private long sumXXX, sumXXY, sumXYY, sumYYY;
+
+	/**
+	 * The bounding box of the pixels, inclusive.
+	 */
+	private int minX, minY, maxX, maxY;
+
+
+	/**
+	 * Removes all pixels from the blob.
+	 * @param width The width of the frame the next pixels are in.
+	 */
+	public void reset(int width) {
+		this.width = width;
+		size = 0;
+		sumX = sumY = 0;
+		sumW = sumWX = sumWY = 0;
+		sumXX = sumXY = sumYY = 0;
+		sumXXX = sumXXY = sumXYY = sumYYY = 0;
+		minX = minY = Integer.MAX_VALUE;
+		maxX = maxY = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Adds a pixel of weight 1 to the blob.
+	 * @param index The index of the pixel: y * width + x.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 */
+	public void add(int index, int x, int y) {
+		add(index, x, y, 1);
+	}
+
+	/**
+	 * Adds a pixel to the blob.
+	 * @param index The index of the pixel: y * width + x.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @param weight The weight of the pixel in the weighted centroid.
+	 */
+	public void add(int index, int x, int y, int weight) {
+		if (size == pixels.length) {
+			int[] newPixels = new int[pixels.length * 2];
+			System.arraycopy(pixels, 0, newPixels, 0, size);
+			pixels = newPixels;
+			int[] newWeights = new int[pixels.length];
+			System.arraycopy(weights, 0, newWeights, 0, size);
+			weights = newWeights;
+		}
+		weights[size] = weight;
+		pixels[size++] = index;
+		sumW += weight;
+		sumWX += (long) weight * x;
+		sumWY += (long) weight * y;
+		sumX += x;
+		sumY += y;
+		int xx = x * x;
+		int xy = x * y;
+		int yy = y * y;
+		sumXX += xx;
+		sumXY += xy;
+		sumYY += yy;
+		sumXXX += (long) xx * x;
+		sumXXY += (long) xx * y;
+		sumXYY += (long) xy * y;
+		sumYYY += (long) yy * y;
+		if (x < minX) minX = x;
+		if (x > maxX) maxX = x;
+		if (y < minY) minY = y;
+		if (y > maxY) maxY = y;
+	}
+
+	/**
+	 * Adds all pixels of another blob of the same frame to this one, after
+	 * the pixels of this one.
+	 * @param other The blob whose pixels to add.
+	 */
+	public void addAll(Blob other) {
+		if (size + other.size > pixels.length) {
+			int[] newPixels = new int[Math.max(pixels.length * 2, size + other.size)];
+			System.arraycopy(pixels, 0, newPixels, 0, size);
+			pixels = newPixels;
+			int[] newWeights = new int[pixels.length];
+			System.arraycopy(weights, 0, newWeights, 0, size);
+			weights = newWeights;
+		}
+		System.arraycopy(other.pixels, 0, pixels, size, other.size);
+		System.arraycopy(other.weights, 0, weights, size, other.size);
+		size += other.size;
+		sumW += other.sumW;
+		sumWX += other.sumWX;
+		sumWY += other.sumWY;
+		sumX += other.sumX;
+		sumY += other.sumY;
+		sumXX += other.sumXX;
+		sumXY += other.sumXY;
+		sumYY += other.sumYY;
+		sumXXX += other.sumXXX;
+		sumXXY += other.sumXXY;
+		sumXYY += other.sumXYY;
+		sumYYY += other.sumYYY;
+		minX = Math.min(minX, other.minX);
+		minY = Math.min(minY, other.minY);
+		maxX = Math.max(maxX, other.maxX);
+		maxY = Math.max(maxY, other.maxY);
+	}
+
+	/**
+	 * Get the number of pixels in the blob.
+	 * @return The number of pixels in the blob.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Get the width of the frame the pixels are in.
+	 * @return The width of the frame the pixels are in.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Gets the index (y * width + x) of the i-th pixel of the blob.
+	 */
+	public int getPixel(int i) {
+		return pixels[i];
+	}
+
+	/**
+	 * Gets the weight of the i-th pixel of the blob.
+	 */
+	public int getWeight(int i) {
+		return weights[i];
+	}
+
+	/**
+	 * Gets the x coordinate of the i-th pixel of the blob.
+	 */
+	public int getX(int i) {
+		return pixels[i] % width;
+	}
+
+	/**
+	 * Gets the y coordinate of the i-th pixel of the blob.
+	 */
+	public int getY(int i) {
+		return pixels[i] / width;
+	}
+
+	/**
+	 * Get the smallest x coordinate of a pixel in the blob.
+	 * @return The smallest x coordinate of a pixel in the blob.
+	 */
+	public int getMinX() {
+		return minX;
+	}
+
+	/**
+	 * Get the smallest y coordinate of a pixel in the blob.
+	 * @return The smallest y coordinate of a pixel in the blob.
+	 */
+	public int getMinY() {
+		return minY;
+	}
+
+	/**
+	 * Get the largest x coordinate of a pixel in the blob.
+	 * @return The largest x coordinate of a pixel in the blob.
+	 */
+	public int getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * Get the largest y coordinate of a pixel in the blob.
+	 * @return The largest y coordinate of a pixel in the blob.
+	 */
+	public int getMaxY() {
+		return maxY;
+	}
+
+	/**
+	 * Gets the centroid of the blob, rounded down to whole pixels.
+	 * @return The centroid of the blob, or null if the blob is empty.
+	 */
+	public Point getCentroid() {
+		if (size == 0) {
+			return null;
+		}
+		return new Point((int) (sumX / size), (int) (sumY / size));
+	}
+
+	/**
+	 * Gets the x coordinate of the centroid of the blob, in sub-pixel 
+	 * precision.
+	 * @param weighted True to weigh the pixels by their weights.
+	 * @return The x coordinate of the centroid, or NaN if the blob is empty.
+	 */
+	public double getCentroidX(boolean weighted) {
+		return weighted && sumW > 0
+			? (double) sumWX / sumW
+			: (double) sumX / size;
+	}
+
+	/**
+	 * Gets the y coordinate of the centroid of the blob, in sub-pixel 
+	 * precision.
+	 * @param weighted True to weigh the pixels by their weights.
+	 * @return The y coordinate of the centroid, or NaN if the blob is empty.
+	 */
+	public double getCentroidY(boolean weighted) {
+		return weighted && sumW > 0
+			? (double) sumWY / sumW
+			: (double) sumY / size;
+	}
+
+	/**
+	 * Gets the second order central moment of the blob along x: the sum of
+	 * the squared distances of the pixels from the mean, along x.
+	 */
+	public double getCentralMomentXX() {
+		return size == 0 ? 0 : sumXX - (double) sumX * sumX / size;
+	}
+
+	/**
+	 * Gets the mixed second order central moment of the blob.
+	 */
+	public double getCentralMomentXY() {
+		return size == 0 ? 0 : sumXY - (double) sumX * sumY / size;
+	}
+
+	/**
+	 * Gets the second order central moment of the blob along y.
+	 */
+	public double getCentralMomentYY() {
+		return size == 0 ? 0 : sumYY - (double) sumY * sumY / size;
+	}
+
+	/**
+	 * Gets the third order central moment of the blob along x: the sum of 
+	 * the cubed distances of the pixels from the mean, along x.
+	 */
+	public double getCentralMomentXXX() {
+		if (size == 0) {
+			return 0;
+		}
+		double meanX = (double) sumX / size;
+		return sumXXX - 3 * meanX * sumXX + 2 * size * meanX * meanX * meanX;
+	}
+
+	/**
+	 * Gets the mixed third order central moment of the blob, of x twice and
+	 * y once.
+	 */
+	public double getCentralMomentXXY() {
+		if (size == 0) {
+			return 0;
+		}
+		double meanX = (double) sumX / size;
+		double meanY = (double) sumY / size;
+		return sumXXY - 2 * meanX * sumXY - meanY * sumXX 
+			+ 2 * size * meanX * meanX * meanY;
+	}
+
+	/**
+	 * Gets the mixed third order central moment of the blob, of x once and
+	 * y twice.
+	 */
+	public double getCentralMomentXYY() {
+		if (size == 0) {
+			return 0;
+		}
+		double meanX = (double) sumX / size;
+		double meanY = (double) sumY / size;
+		return sumXYY - 2 * meanY * sumXY - meanX * sumYY 
+			+ 2 * size * meanX * meanY * meanY;
+	}
+
+	/**
+	 * Gets the third order central moment of the blob along y.
+	 */
+	public double getCentralMomentYYY() {
+		if (size == 0) {
+			return 0;
+		}
+		double meanY = (double) sumY / size;
+		return sumYYY - 3 * meanY * sumYY + 2 * size * meanY * meanY * meanY;
+	}
+}
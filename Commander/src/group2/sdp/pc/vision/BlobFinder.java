@@ -0,0 +1,278 @@
+package group2.sdp.pc.vision;
+
+/**
+ *<p><b>BlobFinder:</b> A connected component labeller</br>
+ *<p><b>Description:</b></br>
+ *Splits the pixels of a {@link Blob} (e.g. all the yellow pixels of a frame)
+ *into connected areas, using the four neighbours of each pixel. Gives the
+ *area, bounding box and centroid of each area, and can extract an area as a
+ *blob of its own, with all its moments.
+ *<p><b>Implementation:</b></br>
+ *Two passes with union-find over the positions of the pixels in the blob.
+ *The first pass marks each pixel in a label image covering the rows of the
+ *blob and joins it with the marked neighbours; the second one finds the area
+ *of each pixel, sums up the statistics of the areas and clears the label
+ *image. Runs in (nearly) linear time in the number of pixels, uses no
+ *recursion and allocates nothing once its buffers are large enough.
+ *
+ *Areas are numbered in the order of their first pixel in the blob. If the
+ *pixels of the blob are in raster order, so are the areas.
+ */
+public class BlobFinder {
+
+	/**
+	 * For each pixel of the rows of the blob being labelled, one plus the 
+	 * position of the pixel in the blob, or 0 if it is not in the blob. Kept
+	 * all 0 between calls.
+	 */
+	private int[] labels = new int[0];
+
+	/**
+	 * The union-find forest over the positions of the pixels in the blob.
+	 */
+	private int[] parent = new int[0];
+
+	/**
+	 * The area each pixel belongs to, by position in the blob.
+	 */
+	private int[] areaOf = new int[0];
+
+	/**
+	 * The statistics of the areas, indexed by area.
+	 */
+	private int[] size = new int[0];
+	private int[] minX = new int[0], minY = new int[0];
+	private int[] maxX = new int[0], maxY = new int[0];
+	private long[] sumX = new long[0], sumY = new long[0];
+
+	/**
+	 * The number of areas found by the last call to label.
+	 */
+	private int areaCount;
+
+	/**
+	 * The blob labelled last.
+	 */
+	private Blob blob;
+
+
+	/**
+	 * Finds the connected areas of the given pixels.
+	 * @param pixels The pixels to split in connected areas.
+	 * @return The number of areas.
+	 */
+	public int label(Blob pixels) {
+		blob = pixels;
+		int n = pixels.getSize();
+		int width = pixels.getWidth();
+		areaCount = 0;
+		if (n == 0) {
+			return 0;
+		}
+		// The label image covers only the rows of the pixels.
+		int offset = pixels.getMinY() * width;
+		int end = (pixels.getMaxY() + 1) * width;
+		ensureCapacity(n, end - offset);
+		int[] labels = this.labels;
+		int[] parent = this.parent;
+
+		// First pass: join each pixel with its marked neighbours. All four
+		// are checked, so the order of the pixels does not matter.
+		for (int p = 0; p < n; ++p) {
+			int index = pixels.getPixel(p);
+			int x = index % width;
+			int label = index - offset;
+			parent[p] = p;
+			labels[label] = p + 1;
+			if (x > 0 && labels[label - 1] != 0) {
+				union(p, labels[label - 1] - 1);
+			}
+			if (x < width - 1 && labels[label + 1] != 0) {
+				union(p, labels[label + 1] - 1);
+			}
+			if (index - width >= offset && labels[label - width] != 0) {
+				union(p, labels[label - width] - 1);
+			}
+			if (index + width < end && labels[label + width] != 0) {
+				union(p, labels[label + width] - 1);
+			}
+		}
+
+		// Second pass: number the areas and collect their statistics. The
+		// root of an area is its first pixel, so it is reached first.
+		for (int p = 0; p < n; ++p) {
+			int index = pixels.getPixel(p);
+			labels[index - offset] = 0;
+			int root = find(p);
+			int area;
+			if (root == p) {
+				area = areaCount++;
+				size[area] = 0;
+				sumX[area] = sumY[area] = 0;
+				minX[area] = minY[area] = Integer.MAX_VALUE;
+				maxX[area] = maxY[area] = Integer.MIN_VALUE;
+			} else {
+				area = areaOf[root];
+			}
+			areaOf[p] = area;
+			int x = index % width;
+			int y = index / width;
+			++size[area];
+			sumX[area] += x;
+			sumY[area] += y;
+			if (x < minX[area]) minX[area] = x;
+			if (x > maxX[area]) maxX[area] = x;
+			if (y < minY[area]) minY[area] = y;
+			if (y > maxY[area]) maxY[area] = y;
+		}
+		return areaCount;
+	}
+
+	/**
+	 * Finds the root of the tree of the given position, halving the path.
+	 */
+	private int find(int p) {
+		int[] parent = this.parent;
+		while (parent[p] != p) {
+			parent[p] = parent[parent[p]];
+			p = parent[p];
+		}
+		return p;
+	}
+
+	/**
+	 * Joins the trees of the given positions. The smaller root becomes the
+	 * root of both, so the root of a tree is always its first pixel.
+	 */
+	private void union(int p, int q) {
+		int rootP = find(p);
+		int rootQ = find(q);
+		if (rootP < rootQ) {
+			parent[rootQ] = rootP;
+		} else if (rootQ < rootP) {
+			parent[rootP] = rootQ;
+		}
+	}
+
+	/**
+	 * Makes sure the buffers can hold the given number of pixels and the
+	 * label image is large enough.
+	 */
+	private void ensureCapacity(int pixelCount, int frameSize) {
+		if (labels.length < frameSize) {
+			labels = new int[frameSize];
+		}
+		if (parent.length < pixelCount) {
+			int capacity = Math.max(pixelCount, parent.length * 2);
+			parent = new int[capacity];
+			areaOf = new int[capacity];
+			size = new int[capacity];
+			minX = new int[capacity];
+			minY = new int[capacity];
+			maxX = new int[capacity];
+			maxY = new int[capacity];
+			sumX = new long[capacity];
+			sumY = new long[capacity];
+		}
+	}
+
+	/**
+	 * Get the number of areas found by the last call to label.
+	 * @return The number of areas found by the last call to label.
+	 */
+	public int getAreaCount() {
+		return areaCount;
+	}
+
+	/**
+	 * Gets the area with the most pixels. If there is more than one, the
+	 * one that comes first is returned.
+	 * @return The largest area, or -1 if there are none.
+	 */
+	public int getLargestArea() {
+		int best = -1;
+		for (int area = 0; area < areaCount; ++area) {
+			if (best == -1 || size[area] > size[best]) {
+				best = area;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the area of a pixel of the blob labelled last.
+	 * @param position The position of the pixel in the blob.
+	 * @return The area the pixel belongs to.
+	 */
+	public int getAreaOf(int position) {
+		return areaOf[position];
+	}
+
+	/**
+	 * Gets the number of pixels in the given area.
+	 */
+	public int getSize(int area) {
+		return size[area];
+	}
+
+	/**
+	 * Gets the smallest x coordinate of a pixel in the given area.
+	 */
+	public int getMinX(int area) {
+		return minX[area];
+	}
+
+	/**
+	 * Gets the smallest y coordinate of a pixel in the given area.
+	 */
+	public int getMinY(int area) {
+		return minY[area];
+	}
+
+	/**
+	 * Gets the largest x coordinate of a pixel in the given area.
+	 */
+	public int getMaxX(int area) {
+		return maxX[area];
+	}
+
+	/**
+	 * Gets the largest y coordinate of a pixel in the given area.
+	 */
+	public int getMaxY(int area) {
+		return maxY[area];
+	}
+
+	/**
+	 * Gets the mean x coordinate of the pixels in the given area.
+	 */
+	public double getCentroidX(int area) {
+		return (double) sumX[area] / size[area];
+	}
+
+	/**
+	 * Gets the mean y coordinate of the pixels in the given area.
+	 */
+	public double getCentroidY(int area) {
+		return (double) sumY[area] / size[area];
+	}
+
+	/**
+	 * Adds the pixels of the given area to the given blob, which is reset
+	 * first. Thus the blob gets all the moments of the area, and the 
+	 * weights of its pixels.
+	 * @param area The area to extract.
+	 * @param target The blob to put the pixels of the area in.
+	 */
+	public void extract(int area, Blob target) {
+		int width = blob.getWidth();
+		target.reset(width);
+		int n = blob.getSize();
+		for (int p = 0; p < n; ++p) {
+			if (areaOf[p] == area) {
+				int index = blob.getPixel(p);
+				target.add(index, index % width, index / width, blob.getWeight(p));
+			}
+		}
+	}
+}
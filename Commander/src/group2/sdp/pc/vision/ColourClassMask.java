@@ -0,0 +1,101 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ *<p><b>ColourClassMask:</b> The colour classes of a frame</br>
+ *<p><b>Description:</b></br>
+ *Holds the colour class of each pixel of the pitch crop of the frame being
+ *processed, as the ordinal of its {@link ColourClass}, or {@link #NONE} for
+ *the pixels that match the background (or that were not scanned). It is
+ *filled while scanning the frame, so that the later stages (ray casting,
+ *drawing) read the class of a pixel from an array instead of classifying
+ *it again.
+ *<p><b>Note:</b></br>
+ *The mask is refilled in place: only the pixels set in the last frame are
+ *cleared for the next one.
+ */
+public class ColourClassMask {
+
+	/**
+	 * The value of the pixels that have no colour class.
+	 */
+	public static final byte NONE = -1;
+
+	/**
+	 * The part of the frame covered by the mask.
+	 */
+	private Rectangle bounds = new Rectangle();
+
+	/**
+	 * The classes, indexed by (y - bounds.y) * bounds.width + (x - bounds.x).
+	 */
+	private byte[] classes = new byte[0];
+
+
+	/**
+	 * Makes the mask cover the given part of the frame, with no classes.
+	 * @param bounds The part of the frame to cover.
+	 */
+	public void reset(Rectangle bounds) {
+		this.bounds.setBounds(bounds);
+		int size = bounds.width * bounds.height;
+		if (classes.length < size) {
+			classes = new byte[size];
+		}
+		Arrays.fill(classes, 0, size, NONE);
+	}
+
+	/**
+	 * Clears the given pixels, e.g. the foreground of the previous frame.
+	 * @param indices The indices (y * frameWidth + x) of the pixels.
+	 * @param count The number of pixels.
+	 * @param frameWidth The width of the frame.
+	 */
+	public void clear(int[] indices, int count, int frameWidth) {
+		for (int i = 0; i < count; ++i) {
+			int x = indices[i] % frameWidth;
+			int y = indices[i] / frameWidth;
+			if (bounds.contains(x, y)) {
+				classes[(y - bounds.y) * bounds.width + (x - bounds.x)] = NONE;
+			}
+		}
+	}
+
+	/**
+	 * Sets the class of a pixel within the mask.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @param colourClass The ordinal of the class of the pixel.
+	 */
+	public void set(int x, int y, int colourClass) {
+		classes[(y - bounds.y) * bounds.width + (x - bounds.x)] = (byte) colourClass;
+	}
+
+	/**
+	 * Gets the class of a pixel.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @return The ordinal of the class of the pixel, or {@link #NONE} if it
+	 * has none or is outside the mask.
+	 */
+	public int get(int x, int y) {
+		x -= bounds.x;
+		y -= bounds.y;
+		if (x < 0 || y < 0 || x >= bounds.width || y >= bounds.height) {
+			return NONE;
+		}
+		return classes[y * bounds.width + x];
+	}
+
+	/**
+	 * Get the part of the frame covered by the mask.
+	 * @return The part of the frame covered by the mask. Do not modify it.
+	 */
+	public Rectangle getBounds() {
+		return bounds;
+	}
+}
@@ -0,0 +1,146 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LCHColourSettings;
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+
+/**
+ *<p><b>ColourLookupTable:</b> A colour classifier</br>
+ *<p><b>Description:</b></br>
+ *Maps RGB colours to colour classes with a single array read. The table has
+ *one entry per quantised RGB value, holding the ordinal of the colour class
+ *of the middle of the quantisation cell, as given by the colour settings in
+ *the GlobalInfo.
+ *<p><b>Updates:</b></br>
+ *The table is built from the colour settings when first used. Afterwards,
+ *when the settings change (e.g. through the settings window or when loading
+ *them from a file) or the pitch changes, a new table is built on a
+ *background thread. The old one is used until the new one is ready.
+ */
+public class ColourLookupTable {
+
+	private static final boolean VERBOSE = false;
+
+	/**
+	 * The number of bits kept from each channel.
+	 */
+	public static final int BITS_PER_CHANNEL = 6;
+
+	private static final int SHIFT = 8 - BITS_PER_CHANNEL;
+	private static final int CELLS_PER_CHANNEL = 1 << BITS_PER_CHANNEL;
+	private static final int MASK = CELLS_PER_CHANNEL - 1;
+
+	/**
+	 * The colour classes, indexed by their ordinals.
+	 */
+	private static final ColourClass[] CLASSES = ColourClass.values();
+
+	/**
+	 * The table in use; entries are ordinals of colour classes.
+	 */
+	private volatile byte[] table;
+
+	/**
+	 * The settings the table was built from and their version at the time.
+	 */
+	private volatile LCHColourSettings builtSettings;
+	private volatile int builtVersion;
+
+	/**
+	 * Indicates whether a new table is being built.
+	 */
+	private volatile boolean building;
+
+
+	/**
+	 * Makes sure the table matches the current colour settings. The first
+	 * table is built straight away; later ones are built in the background.
+	 * Should be called once per frame, before classifying its pixels.
+	 */
+	public void update() {
+		final LCHColourSettings settings = GlobalInfo.getColourSettings();
+		if (table == null) {
+			build(settings);
+			return;
+		}
+		if (building) {
+			return;
+		}
+		if (settings != builtSettings || settings.getVersion() != builtVersion) {
+			building = true;
+			Thread builder = new Thread("ColourLookupTable") {
+				public void run() {
+					try {
+						build(settings);
+					} finally {
+						building = false;
+					}
+				}
+			};
+			builder.setDaemon(true);
+			builder.start();
+		}
+	}
+
+	/**
+	 * Builds a new table from the given settings and starts using it.
+	 * @param settings The settings to build the table from.
+	 */
+	private void build(LCHColourSettings settings) {
+		long start = System.currentTimeMillis();
+		// Read the version first: if the settings change during the build,
+		// the next update builds the table again.
+		int version = settings.getVersion();
+		byte[] newTable = new byte[CELLS_PER_CHANNEL * CELLS_PER_CHANNEL * CELLS_PER_CHANNEL];
+		int half = (1 << SHIFT) >> 1;
+		LCHColour lch = new LCHColour(0, 0, 0);
+		for (int r = 0; r < CELLS_PER_CHANNEL; ++r) {
+			for (int g = 0; g < CELLS_PER_CHANNEL; ++g) {
+				for (int b = 0; b < CELLS_PER_CHANNEL; ++b) {
+					lch.setRGB(
+							(r << SHIFT) | half,
+							(g << SHIFT) | half,
+							(b << SHIFT) | half
+					);
+					newTable[getCell(r, g, b)] =
+						(byte) settings.getColourClass(lch).ordinal();
+				}
+			}
+		}
+		builtSettings = settings;
+		builtVersion = version;
+		table = newTable;
+		if (VERBOSE) {
+			System.out.println("Colour lookup table built in " +
+					(System.currentTimeMillis() - start) + " ms.");
+		}
+	}
+
+	/**
+	 * Gets the index of the cell of the given quantised channels.
+	 */
+	private static int getCell(int r, int g, int b) {
+		return (r << (2 * BITS_PER_CHANNEL)) | (g << BITS_PER_CHANNEL) | b;
+	}
+
+	/**
+	 * Gets the class of the given colour as an ordinal of ColourClass.
+	 * @param rgb The colour as 0xRRGGBB.
+	 * @return The ordinal of the colour class of the colour.
+	 */
+	public int classify(int rgb) {
+		return table[getCell(
+				(rgb >> (16 + SHIFT)) & MASK,
+				(rgb >> (8 + SHIFT)) & MASK,
+				(rgb >> SHIFT) & MASK)];
+	}
+
+	/**
+	 * Gets the class of the given colour.
+	 * @param rgb The colour as 0xRRGGBB.
+	 * @return The colour class of the colour.
+	 */
+	public ColourClass getColourClass(int rgb) {
+		return CLASSES[classify(rgb)];
+	}
+}
@@ -0,0 +1,110 @@
+package group2.sdp.pc.vision;
+
+/**
+ *<p><b>DetectorVariant:</b> A way of configuring the {@link VisualCortex}</br>
+ *<p><b>Description:</b></br>
+ *The named combinations of the strategies of the visual cortex that can be
+ *switched between during a match, or tried in the shadow of the active one
+ *with a {@link ShadowDetector}: how much of each frame is scanned, how the
+ *positions of the objects are computed and how the directions of the
+ *robots are found.
+ */
+public enum DetectorVariant {
+	STANDARD("Standard", 1, false, false, true),
+	INCREMENTAL("Incremental", 1, true, false, true),
+	PYRAMID_2("Pyramid x2", 2, false, false, true),
+	PYRAMID_4("Pyramid x4", 4, false, false, true),
+	WEIGHTED("Weighted centroids", 1, false, true, true),
+	REGRESSION("Regression only", 1, false, false, false);
+
+	private String name;
+	private int pyramidStep;
+	private boolean incremental;
+	private boolean weightedCentroids;
+	private boolean momentDirections;
+
+	private DetectorVariant(String name, int pyramidStep, boolean incremental,
+			boolean weightedCentroids, boolean momentDirections) {
+		this.name = name;
+		this.pyramidStep = pyramidStep;
+		this.incremental = incremental;
+		this.weightedCentroids = weightedCentroids;
+		this.momentDirections = momentDirections;
+	}
+
+	/**
+	 * Configures the given visual cortex as this variant, from its next 
+	 * frame on. Its other settings, such as tracking and parallelism, are
+	 * kept.
+	 * @param cortex The visual cortex to configure.
+	 */
+	public void apply(VisualCortex cortex) {
+		cortex.setVariant(this);
+	}
+
+	/**
+	 * Get the distance between the pixels scanned in the coarse pass of the
+	 * pyramid mode. With a step over 1, the objects are first looked for in
+	 * a subsampled view of the frame, and then only around the areas found 
+	 * at full resolution, except for every few frames, where the whole 
+	 * frame is scanned.
+	 * @return 2 or 4 to subsample the frame by that much in the coarse pass;
+	 * 1 to scan the whole frame at full resolution.
+	 */
+	public int getPyramidStep() {
+		return pyramidStep;
+	}
+
+	/**
+	 * Get whether to scan only the parts of the frame that changed since
+	 * the last frame, reusing the results of the last frame for the rest.
+	 * The background model goes on following the lighting, but the results
+	 * of a tile only catch up when the tile changes or is refreshed.
+	 * @return True if scanning only the changed parts of the frame.
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	/**
+	 * Get whether the pixels of the objects are weighed by how much they 
+	 * differ from the background when computing their positions. The pixels
+	 * at the edges of the objects, which blend with the pitch, then count 
+	 * less.
+	 * @return True if the pixels are weighed.
+	 */
+	public boolean isWeightedCentroids() {
+		return weightedCentroids;
+	}
+
+	/**
+	 * Get whether the moments of the T are tried before the regression when
+	 * finding the direction of a robot.
+	 * @return True if the moments are tried first.
+	 */
+	public boolean isMomentDirections() {
+		return momentDirections;
+	}
+
+	/**
+	 * Creates a visual cortex configured as this variant, to be run in the
+	 * shadow of the given one. It is given the same tracking and
+	 * parallelism, so that only the variant differs, and does not record 
+	 * its latencies in the pipeline's.
+	 * @param active The visual cortex that is being run.
+	 * @return The new visual cortex.
+	 */
+	public VisualCortex createShadow(VisualCortex active) {
+		VisualCortex cortex = new VisualCortex(null);
+		cortex.setRecordLatencies(false);
+		cortex.setTracking(active.isTracking());
+		cortex.setParallelism(active.getParallelism());
+		apply(cortex);
+		return cortex;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -1,7 +1,19 @@
 package group2.sdp.pc.vision;
 
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 import group2.sdp.pc.vision.skeleton.ImageConsumer;
 
+import java.awt.Point;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.util.List;
 
 import au.edu.jcu.v4l4j.CaptureCallback;
@@ -18,7 +30,54 @@ import au.edu.jcu.v4l4j.exceptions.V4L4JException;
  * construction of the object and the streaming is started. 
  */
 public class Eye implements CaptureCallback {
-	private int width = 640, height = 480;
+	
+	/**
+	 * The way frames are taken from the driver. JPEG makes the driver compress
+	 * every frame, which is then decoded back into an image. RGB asks v4l4j to
+	 * convert the raw YUYV output of the camera to packed RGB bytes, which are
+	 * wrapped in an image as they are, with no codec round trip.
+	 */
+	public enum CaptureMode {
+		JPEG,
+		RGB
+	}
+	
+	/**
+	 * The quality of the JPEG compression used in JPEG mode.
+	 */
+	private static final int JPEG_QUALITY = 80;
+	
+	/**
+	 * The maximum number of distinct driver buffers that are wrapped in RGB 
+	 * mode. v4l4j cycles through a handful of buffers, so this is plenty.
+	 */
+	private static final int MAX_WRAPPED_BUFFERS = 8;
+	
+	/**
+	 * The largest age, in nanoseconds, that a capture time-stamp of the 
+	 * driver may have when the frame arrives. Older or future time-stamps are
+	 * taken to be on a different clock and are ignored.
+	 */
+	private static final long MAX_CAPTURE_AGE = 1000000000L;
+	
+	/**
+	 * The capture time of the frame that is being handed off on the current
+	 * thread, in the time of System.nanoTime(); 0 if no frame is.
+	 */
+	private static final ThreadLocal<long[]> handOffCaptureTime = 
+		new ThreadLocal<long[]>() {
+			@Override
+			protected long[] initialValue() {
+				return new long[1];
+			}
+		};
+	
+	/**
+	 * The size of the frames that are requested from the driver.
+	 */
+	public static final int DEFAULT_WIDTH = 640, DEFAULT_HEIGHT = 480;
+	
+	private int width = DEFAULT_WIDTH, height = DEFAULT_HEIGHT;
 	private static int std = V4L4JConstants.STANDARD_WEBCAM, channel = 0;
 	private static String device = "/dev/video0";
 	
@@ -34,13 +93,45 @@ public class Eye implements CaptureCallback {
 	
 	private ImageConsumer consumer;
 	
+	/**
+	 * The capture mode that was requested on construction.
+	 */
+	private CaptureMode requestedMode;
+	/**
+	 * The capture mode that is actually in use. Differs from the requested one
+	 * if the device could not deliver raw frames.
+	 */
+	private CaptureMode captureMode;
+	
+	/**
+	 * The driver buffers seen so far in RGB mode, together with the images
+	 * that wrap them. The images share their data with the driver buffers.
+	 */
+	private byte[][] wrappedBuffers = new byte[MAX_WRAPPED_BUFFERS][];
+	private BufferedImage[] wrappedImages = new BufferedImage[MAX_WRAPPED_BUFFERS];
+	
 	/**
 	 * Used for printing FPS.
 	 */
 	private long lastFrameTimestamp = 0;
 	
+	/**
+	 * Starts capturing JPEG frames and passes them to the given consumer.
+	 * @param consumer The object that is going to consume the frames.
+	 */
 	public Eye(ImageConsumer consumer) {
+		this(consumer, CaptureMode.JPEG);
+	}
+	
+	/**
+	 * Starts capturing frames in the given mode and passes them to the given 
+	 * consumer. Falls back to JPEG if the device does not support the mode.
+	 * @param consumer The object that is going to consume the frames.
+	 * @param mode The way frames are taken from the driver.
+	 */
+	public Eye(ImageConsumer consumer, CaptureMode mode) {
 		this.consumer = consumer;
+		this.requestedMode = mode;
 		
 		saturation = 100;
 		brightness = 130;
@@ -110,12 +201,122 @@ public class Eye implements CaptureCallback {
 			System.out.println("Cannot set video device settings!");
 			e.printStackTrace();
 		}
-		frameGrabber = videoDevice.getJPEGFrameGrabber(width, height, channel, std, 80);
+		frameGrabber = null;
+		if (requestedMode == CaptureMode.RGB) {
+			if (videoDevice.supportRGBConversion()) {
+				try {
+					frameGrabber = videoDevice.getRGBFrameGrabber(width, height, channel, std);
+					captureMode = CaptureMode.RGB;
+				} catch (V4L4JException e) {
+					System.out.println("Cannot capture raw frames, falling back to JPEG.");
+					e.printStackTrace();
+				}
+			} else {
+				System.out.println("Device does not support raw capture, falling back to JPEG.");
+			}
+		}
+		if (frameGrabber == null) {
+			frameGrabber = videoDevice.getJPEGFrameGrabber(width, height, channel, std, JPEG_QUALITY);
+			captureMode = CaptureMode.JPEG;
+		}
 		frameGrabber.setCaptureCallback(this);
 		width = frameGrabber.getWidth();
 		height = frameGrabber.getHeight();
 		if (VERBOSE)
-			System.out.println("Starting capture at " + width + "x" + height);
+			System.out.println("Starting " + captureMode + " capture at " + width + "x" + height);
+	}
+	
+	/**
+	 * Get the capture mode that is actually in use.
+	 * @return The capture mode that is actually in use.
+	 */
+	public CaptureMode getCaptureMode() {
+		return captureMode;
+	}
+	
+	/**
+	 * Returns an image that shares its data with the given packed RGB frame 
+	 * buffer. The image is created the first time a buffer is seen and reused
+	 * afterwards, so no pixel data is copied or decoded.
+	 * @param bytes The frame buffer, three bytes per pixel in R, G, B order.
+	 * @return An image backed by the given buffer.
+	 */
+	private BufferedImage wrapRGBBuffer(byte[] bytes) {
+		int i = 0;
+		while (i < MAX_WRAPPED_BUFFERS && wrappedBuffers[i] != null) {
+			if (wrappedBuffers[i] == bytes) {
+				return wrappedImages[i];
+			}
+			++i;
+		}
+		BufferedImage image = createRGBImage(bytes, width, height);
+		if (i < MAX_WRAPPED_BUFFERS) {
+			wrappedBuffers[i] = bytes;
+			wrappedImages[i] = image;
+		}
+		return image;
+	}
+	
+	/**
+	 * Creates an image backed by the given packed RGB byte array. The 
+	 * resulting image has a DataBufferByte with band offsets {0, 1, 2}.
+	 * @param bytes Three bytes per pixel in R, G, B order.
+	 * @param width The width of the image.
+	 * @param height The height of the image.
+	 * @return An image that shares its data with the given array.
+	 */
+	public static BufferedImage createRGBImage(byte[] bytes, int width, int height) {
+		DataBuffer buffer = new DataBufferByte(bytes, width * height * 3);
+		PixelInterleavedSampleModel sampleModel = 
+			new PixelInterleavedSampleModel(
+					DataBuffer.TYPE_BYTE, 
+					width, 
+					height, 
+					3, 
+					width * 3, 
+					new int[] {0, 1, 2}
+			);
+		WritableRaster raster = 
+			Raster.createWritableRaster(sampleModel, buffer, new Point(0, 0));
+		ColorModel colorModel = 
+			new ComponentColorModel(
+					ColorSpace.getInstance(ColorSpace.CS_sRGB),
+					false,
+					false,
+					ColorModel.OPAQUE,
+					DataBuffer.TYPE_BYTE
+			);
+		return new BufferedImage(colorModel, raster, false, null);
+	}
+	
+	/**
+	 * Gets the time at which the frame that is being handed off on the 
+	 * current thread was captured. Image consumers called by an Eye can use 
+	 * it to time-stamp the frame.
+	 * @return The capture time in the time of System.nanoTime(), or the 
+	 * current time if the current thread is not handing off a frame of an 
+	 * Eye.
+	 */
+	public static long getCaptureTime() {
+		long captureTime = handOffCaptureTime.get()[0];
+		return captureTime != 0 ? captureTime : System.nanoTime();
+	}
+	
+	/**
+	 * Converts a capture time-stamp of the driver to the time of 
+	 * System.nanoTime(). V4L2 stamps frames with the monotonic clock, which 
+	 * System.nanoTime() also uses on Linux; if the time-stamp does not look
+	 * like it is on that clock, the current time is used instead.
+	 * @param captureMicros The capture time-stamp in microseconds.
+	 * @return The capture time in the time of System.nanoTime().
+	 */
+	private static long toNanoTime(long captureMicros) {
+		long now = System.nanoTime();
+		long captureTime = captureMicros * 1000;
+		if (captureTime <= now && now - captureTime < MAX_CAPTURE_AGE) {
+			return captureTime;
+		}
+		return now;
 	}
 	
 	private void cleanupCapture() {
@@ -147,7 +348,15 @@ public class Eye implements CaptureCallback {
 			}
 			lastFrameTimestamp = currentFrameTimestamp;
 		}
-		consumer.consume(frame.getBufferedImage());
+		long[] captureTime = handOffCaptureTime.get();
+		captureTime[0] = toNanoTime(frame.getCaptureTime());
+		LatencyMonitor.record(Stage.CAPTURE, System.nanoTime() - captureTime[0]);
+		if (captureMode == CaptureMode.RGB) {
+			consumer.consume(wrapRGBBuffer(frame.getBytes()));
+		} else {
+			consumer.consume(frame.getBufferedImage());
+		}
+		captureTime[0] = 0;
 		frame.recycle();
 	}
 }
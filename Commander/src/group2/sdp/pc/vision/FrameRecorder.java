@@ -0,0 +1,547 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.SampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ *<p><b>FrameRecorder:</b> An Image Consumer</br>
+ *<p><b>Description:</b></br>
+ *Records the frames that pass through it to memory-mapped segment files, so
+ *that a match can be replayed offline, and passes them on unchanged to the
+ *image consumer supplied on construction.
+ *<p><b>Format:</b></br>
+ *Each segment file holds up to {@link #FRAMES_PER_SEGMENT} frames of equal
+ *size. It starts with a header of {@link #HEADER_SIZE} bytes:
+ *magic, version, width, height, channel order, capacity and the number of
+ *frames committed so far (all ints). The header is followed by an index with
+ *one {@link #INDEX_ENTRY_SIZE}-byte entry per frame (capture time-stamp in
+ *milliseconds as a long, capture sequence number as an int, and an unused
+ *int), and then by the raw pixel data of the frames, three bytes per pixel.
+ *Recorded frame k is thus in segment k / capacity, at slot k % capacity, and
+ *its offset can be computed directly.
+ *<p><b>Policy:</b></br>
+ *Like the {@link OpticNerve}, frames are copied into a small ring of
+ *preallocated slots on the capture thread, and written to the mapped file on
+ *a writer thread, in order. The first segment is mapped on construction and
+ *the next one is always mapped in the background. If all slots are waiting
+ *to be written, if the next segment is not ready when the current one is
+ *full, or if a frame does not have the size of the log, the frame is skipped
+ *and counted, but still passed on. The live pipeline never waits for the
+ *disk.
+ *<p><b>Copies:</b></br>
+ *The frames are not written straight from the capture buffer: a put into
+ *the mapped file can stall on page faults and write-back when the disk
+ *falls behind, which would stall the capture thread with it. Instead each
+ *frame is copied in full into a slot (921600 bytes for 640x480), which
+ *costs as much as the copy of the OpticNerve (about 0.07 ms), so recording
+ *doubles the copying done on the capture thread. The writer thread then
+ *makes a second copy, from the slot into the mapped file.
+ */
+public class FrameRecorder implements ImageConsumer {
+
+	private static final boolean VERBOSE = false;
+
+	/**
+	 * Identifies a frame log segment: "AFLF".
+	 */
+	public static final int MAGIC = 0x41464C46;
+	/**
+	 * The version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The pixel bytes are in red, green, blue order.
+	 */
+	public static final int CHANNELS_RGB = 0;
+	/**
+	 * The pixel bytes are in blue, green, red order.
+	 */
+	public static final int CHANNELS_BGR = 1;
+
+	/**
+	 * Byte offsets of the header fields.
+	 */
+	public static final int MAGIC_OFFSET = 0;
+	public static final int VERSION_OFFSET = 4;
+	public static final int WIDTH_OFFSET = 8;
+	public static final int HEIGHT_OFFSET = 12;
+	public static final int CHANNELS_OFFSET = 16;
+	public static final int CAPACITY_OFFSET = 20;
+	public static final int COUNT_OFFSET = 24;
+
+	/**
+	 * The size of the header in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+	/**
+	 * The size of a single index entry in bytes.
+	 */
+	public static final int INDEX_ENTRY_SIZE = 16;
+	/**
+	 * The number of bytes per pixel.
+	 */
+	public static final int BYTES_PER_PIXEL = 3;
+	/**
+	 * The number of frames in a segment. About 10 seconds of footage.
+	 */
+	public static final int FRAMES_PER_SEGMENT = 256;
+
+	/**
+	 * The number of slots that frames wait in to be written. The writer can
+	 * fall this many frames behind before frames are skipped.
+	 */
+	private static final int SLOT_COUNT = 4;
+
+	/**
+	 * The object to which the frames are passed on.
+	 */
+	private ImageConsumer consumer;
+
+	/**
+	 * The prefix of the names of the segment files.
+	 */
+	private String filePrefix;
+
+	/**
+	 * The size of the frames of the log. The pixels are written in RGB 
+	 * order.
+	 */
+	private int width, height;
+	private int channelOrder = CHANNELS_RGB;
+
+	/**
+	 * The segment that is being written to and the number of frames in it.
+	 * Only used by the writer thread.
+	 */
+	private MappedByteBuffer segment;
+	private int segmentFrames;
+	/**
+	 * The next segment; mapped in the background. Null until it is ready.
+	 */
+	private volatile MappedByteBuffer nextSegment;
+	/**
+	 * The number of the next segment file to create.
+	 */
+	private int nextSegmentNumber;
+
+	/**
+	 * The preallocated frame slots. Allocated on the first frame, when the
+	 * layout of the frames becomes known.
+	 */
+	private BufferedImage[] slots;
+	/**
+	 * The capture time-stamps and sequence numbers of the frames in the 
+	 * slots.
+	 */
+	private long[] slotTimeStamps = new long[SLOT_COUNT];
+	private long[] slotSequenceNumbers = new long[SLOT_COUNT];
+	/**
+	 * The slot of the oldest frame waiting to be written, and the number of
+	 * frames waiting. The waiting frames are in consecutive slots, wrapping
+	 * around the end.
+	 */
+	private int firstPendingSlot;
+	private int pendingSlots;
+
+	/**
+	 * Used for converting frames that do not have a byte layout.
+	 */
+	private int[] rowBuffer;
+	private byte[] rowBytes;
+
+	private long sequenceNumber;
+	private volatile long recordedFrames;
+	private volatile long skippedFrames;
+
+	/**
+	 * Set when recording stops, either on request or because a segment
+	 * could not be mapped.
+	 */
+	private volatile boolean closed;
+
+	private Thread writerThread;
+	/**
+	 * The thread that maps the next segment; only replaced by the writer
+	 * thread.
+	 */
+	private volatile Thread mapperThread;
+
+
+	/**
+	 * Records frames of the given size to files starting with the given 
+	 * prefix and passes them to the given consumer. The first segment is 
+	 * mapped before returning.
+	 * @param consumer The object to pass the frames on to. Can be null.
+	 * @param filePrefix The prefix of the names of the segment files, e.g.
+	 * "recordings/match1". Segment numbers and extension are appended.
+	 * @param width The width of the frames to record.
+	 * @param height The height of the frames to record.
+	 */
+	public FrameRecorder(ImageConsumer consumer, String filePrefix, 
+			int width, int height) {
+		this.consumer = consumer;
+		this.filePrefix = filePrefix;
+		this.width = width;
+		this.height = height;
+		rowBuffer = new int[width];
+		rowBytes = new byte[width * BYTES_PER_PIXEL];
+		File file = getSegmentFile(filePrefix, nextSegmentNumber++);
+		try {
+			segment = mapSegment(file);
+		} catch (IOException e) {
+			System.err.println("Could not map frame log segment " + file);
+			e.printStackTrace();
+			closed = true;
+			return;
+		}
+		prepareNextSegment(null);
+		writerThread = new Thread("FrameRecorder") {
+			public void run() {
+				writeFrames();
+			}
+		};
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Copies the frame in a free slot for the writer thread and passes it on.
+	 * Never waits for the writer thread.
+	 */
+	@Override
+	public void consume(BufferedImage image) {
+		if (!closed) {
+			long captureTime = Eye.getCaptureTime();
+			if (image.getWidth() == width && image.getHeight() == height) {
+				if (slots == null) {
+					allocateSlots(image);
+				}
+				int slot = -1;
+				synchronized (this) {
+					if (pendingSlots < SLOT_COUNT) {
+						slot = (firstPendingSlot + pendingSlots) % SLOT_COUNT;
+					}
+				}
+				if (slot >= 0) {
+					OpticNerve.copyFrame(image, slots[slot]);
+					// The index holds wall clock times.
+					slotTimeStamps[slot] = System.currentTimeMillis() -
+						(System.nanoTime() - captureTime) / 1000000;
+					slotSequenceNumbers[slot] = sequenceNumber;
+					synchronized (this) {
+						++pendingSlots;
+						notify();
+					}
+				} else {
+					// The writer is behind.
+					skip();
+				}
+			} else {
+				skip();
+			}
+		}
+		++sequenceNumber;
+		if (consumer != null) {
+			consumer.consume(image);
+		}
+	}
+
+	/**
+	 * The body of the writer thread. Writes the frames in the slots, oldest
+	 * first, until the recorder is closed and no frames are left.
+	 */
+	private void writeFrames() {
+		while (true) {
+			int slot;
+			synchronized (this) {
+				while (!closed && pendingSlots == 0) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// Check if we are closed.
+					}
+				}
+				if (pendingSlots == 0) {
+					break;
+				}
+				slot = firstPendingSlot;
+			}
+			boolean recorded = record(slots[slot], 
+					slotTimeStamps[slot], slotSequenceNumbers[slot]);
+			synchronized (this) {
+				if (recorded) {
+					++recordedFrames;
+				} else {
+					++skippedFrames;
+				}
+				firstPendingSlot = (firstPendingSlot + 1) % SLOT_COUNT;
+				--pendingSlots;
+			}
+		}
+		segment.force();
+	}
+
+	/**
+	 * Counts a frame that was skipped on the capture thread.
+	 */
+	private synchronized void skip() {
+		++skippedFrames;
+	}
+
+	/**
+	 * Allocates the slots so that they match the given frame.
+	 * @param image A frame to model the slots after.
+	 */
+	private void allocateSlots(BufferedImage image) {
+		BufferedImage[] newSlots = new BufferedImage[SLOT_COUNT];
+		for (int i = 0; i < SLOT_COUNT; ++i) {
+			newSlots[i] = OpticNerve.createCompatibleImage(image);
+		}
+		slots = newSlots;
+	}
+
+	/**
+	 * Writes the frame in the current segment, moving to the next segment if
+	 * the current one is full. Called on the writer thread.
+	 * @param image The frame to write.
+	 * @param timeStamp The time at which the frame was captured.
+	 * @param sequenceNumber The number of the frame among all frames passed
+	 * to the recorder.
+	 * @return True if the frame was written, false if it was skipped.
+	 */
+	private boolean record(BufferedImage image, long timeStamp, 
+			long sequenceNumber) {
+		if (segmentFrames == FRAMES_PER_SEGMENT) {
+			MappedByteBuffer next = nextSegment;
+			if (next == null) {
+				// The disk is behind.
+				return false;
+			}
+			MappedByteBuffer full = segment;
+			segment = next;
+			segmentFrames = 0;
+			nextSegment = null;
+			prepareNextSegment(full);
+		}
+		int slot = segmentFrames;
+		segment.position(getFrameOffset(FRAMES_PER_SEGMENT, width, height, slot));
+		writePixels(image);
+
+		int entry = HEADER_SIZE + slot * INDEX_ENTRY_SIZE;
+		segment.putLong(entry, timeStamp);
+		segment.putInt(entry + 8, (int) sequenceNumber);
+		// Commit the frame last, so a reader never sees a partial one.
+		segment.putInt(COUNT_OFFSET, slot + 1);
+		++segmentFrames;
+		return true;
+	}
+
+	/**
+	 * Writes the pixels of the image at the current position of the segment.
+	 * Byte images with three interleaved bands are copied in one go.
+	 * @param image The frame to write.
+	 */
+	private void writePixels(BufferedImage image) {
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		SampleModel model = image.getSampleModel();
+		if (buffer instanceof DataBufferByte
+				&& model instanceof ComponentSampleModel
+				&& image.getRaster().getSampleModelTranslateX() == 0
+				&& image.getRaster().getSampleModelTranslateY() == 0) {
+			ComponentSampleModel csm = (ComponentSampleModel) model;
+			if (csm.getPixelStride() == BYTES_PER_PIXEL
+					&& csm.getScanlineStride() == width * BYTES_PER_PIXEL
+					&& getChannelOrder(image) == channelOrder) {
+				byte[] data = ((DataBufferByte) buffer).getData();
+				segment.put(data, buffer.getOffset(), width * height * BYTES_PER_PIXEL);
+				return;
+			}
+		}
+		// Slow path: convert one row at a time.
+		for (int y = 0; y < height; ++y) {
+			image.getRGB(0, y, width, 1, rowBuffer, 0, width);
+			for (int x = 0, i = 0; x < width; ++x) {
+				int rgb = rowBuffer[x];
+				byte r = (byte) (rgb >> 16);
+				byte g = (byte) (rgb >> 8);
+				byte b = (byte) rgb;
+				if (channelOrder == CHANNELS_BGR) {
+					rowBytes[i++] = b; rowBytes[i++] = g; rowBytes[i++] = r;
+				} else {
+					rowBytes[i++] = r; rowBytes[i++] = g; rowBytes[i++] = b;
+				}
+			}
+			segment.put(rowBytes);
+		}
+	}
+
+	/**
+	 * Maps the next segment file on a background thread.
+	 * @param full The segment that was filled up, to be flushed to the disk 
+	 * on the same thread; null if there is none.
+	 */
+	private void prepareNextSegment(final MappedByteBuffer full) {
+		final File file = getSegmentFile(filePrefix, nextSegmentNumber++);
+		Thread mapper = new Thread("FrameRecorder mapper") {
+			public void run() {
+				try {
+					if (full != null) {
+						full.force();
+					}
+					nextSegment = mapSegment(file);
+				} catch (IOException e) {
+					System.err.println("Could not map frame log segment " + file);
+					e.printStackTrace();
+					close();
+				}
+			}
+		};
+		mapper.setDaemon(true);
+		mapperThread = mapper;
+		mapper.start();
+	}
+
+	/**
+	 * Creates the given segment file, maps it and writes its header.
+	 * @param file The file to create.
+	 * @return The mapped segment.
+	 * @throws IOException If the file cannot be created or mapped.
+	 */
+	private MappedByteBuffer mapSegment(File file) throws IOException {
+		if (file.getParentFile() != null) {
+			file.getParentFile().mkdirs();
+		}
+		long size = getSegmentSize(FRAMES_PER_SEGMENT, width, height);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		MappedByteBuffer buffer;
+		try {
+			raf.setLength(size);
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			// The mapping stays valid after the file is closed.
+			raf.close();
+		}
+		buffer.putInt(MAGIC_OFFSET, MAGIC);
+		buffer.putInt(VERSION_OFFSET, VERSION);
+		buffer.putInt(WIDTH_OFFSET, width);
+		buffer.putInt(HEIGHT_OFFSET, height);
+		buffer.putInt(CHANNELS_OFFSET, channelOrder);
+		buffer.putInt(CAPACITY_OFFSET, FRAMES_PER_SEGMENT);
+		buffer.putInt(COUNT_OFFSET, 0);
+		if (VERBOSE) {
+			System.out.println("Mapped frame log segment " + file);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Stops recording. The frames that are waiting in the slots are still 
+	 * written, and the current segment is flushed to the disk on the writer
+	 * thread. Frames are still passed on after this.
+	 */
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notify();
+		}
+	}
+
+	/**
+	 * Waits until the writer thread has written the frames that were 
+	 * waiting when the recorder was closed, and flushed the current segment,
+	 * and until the next segment is mapped. No files are created afterwards.
+	 * @throws InterruptedException If the current thread is interrupted.
+	 */
+	public void join() throws InterruptedException {
+		if (writerThread != null) {
+			writerThread.join();
+		}
+		Thread mapper = mapperThread;
+		if (mapper != null) {
+			mapper.join();
+		}
+	}
+
+	/**
+	 * Finds the order in which the image stores the bytes of a pixel.
+	 * @param image The image to check.
+	 * @return {@link #CHANNELS_RGB} or {@link #CHANNELS_BGR} if the image has
+	 * three interleaved byte bands in that order, -1 otherwise.
+	 */
+	private static int getChannelOrder(BufferedImage image) {
+		SampleModel model = image.getSampleModel();
+		if (!(model instanceof ComponentSampleModel) 
+				|| model.getNumBands() != BYTES_PER_PIXEL) {
+			return -1;
+		}
+		int[] offsets = ((ComponentSampleModel) model).getBandOffsets();
+		if (offsets[0] == 0 && offsets[1] == 1 && offsets[2] == 2) {
+			return CHANNELS_RGB;
+		}
+		if (offsets[0] == 2 && offsets[1] == 1 && offsets[2] == 0) {
+			return CHANNELS_BGR;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the file of the given segment.
+	 * @param filePrefix The prefix of the log.
+	 * @param segmentNumber The number of the segment.
+	 * @return The file of the segment.
+	 */
+	public static File getSegmentFile(String filePrefix, int segmentNumber) {
+		return new File(String.format("%s-%04d.frames", filePrefix, segmentNumber));
+	}
+
+	/**
+	 * Computes the offset of the pixels of a frame in a segment.
+	 * @param capacity The number of frames in the segment.
+	 * @param width The width of the frames.
+	 * @param height The height of the frames.
+	 * @param slot The position of the frame in the segment.
+	 * @return The offset of the pixels of the frame.
+	 */
+	public static int getFrameOffset(int capacity, int width, int height, int slot) {
+		return HEADER_SIZE + capacity * INDEX_ENTRY_SIZE
+			+ slot * width * height * BYTES_PER_PIXEL;
+	}
+
+	/**
+	 * Computes the size of a segment.
+	 * @param capacity The number of frames in the segment.
+	 * @param width The width of the frames.
+	 * @param height The height of the frames.
+	 * @return The size of the segment in bytes.
+	 */
+	public static long getSegmentSize(int capacity, int width, int height) {
+		return getFrameOffset(capacity, width, height, capacity);
+	}
+
+	/**
+	 * Get the number of frames that were written to the log.
+	 * @return The number of frames that were written to the log.
+	 */
+	public long getRecordedFrames() {
+		return recordedFrames;
+	}
+
+	/**
+	 * Get the number of frames that were skipped.
+	 * @return The number of frames that were skipped.
+	 */
+	public long getSkippedFrames() {
+		return skippedFrames;
+	}
+}
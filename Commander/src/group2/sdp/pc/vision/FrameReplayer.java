@@ -0,0 +1,320 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ *<p><b>FrameReplayer:</b> A frame source</br>
+ *<p><b>Description:</b></br>
+ *The counterpart of the {@link Eye}: reads footage recorded by a
+ *{@link FrameRecorder} through memory-mapped buffers and passes it to an
+ *image consumer supplied on construction. Needs neither a camera nor v4l4j.
+ *<p><b>Modes:</b></br>
+ *REAL_TIME paces the frames after their capture time-stamps (scaled by a
+ *speed factor), FAST passes them as fast as the consumer takes them and STEP
+ *passes one frame per call to {@link #step()}.
+ *<p><b>Note:</b></br>
+ *A single image is reused for all frames, like the frames of the Eye.
+ *Consumers that keep a frame must copy it.
+ */
+public class FrameReplayer {
+
+	/**
+	 * The way frames are paced.
+	 */
+	public enum ReplayMode {
+		REAL_TIME,
+		FAST,
+		STEP
+	}
+
+	private static final boolean VERBOSE = false;
+
+	/**
+	 * The object that is going to consume the frames.
+	 */
+	private ImageConsumer consumer;
+
+	private ReplayMode mode;
+
+	/**
+	 * The speed factor used in REAL_TIME mode; 2.0 is twice as fast.
+	 */
+	private double speed = 1.0;
+
+	/**
+	 * The mapped segments of the log, in order.
+	 */
+	private ArrayList<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+
+	private int width, height, channelOrder, capacity;
+
+	/**
+	 * The total number of frames in the log.
+	 */
+	private int frameCount;
+
+	/**
+	 * The number of the next frame to pass. Advanced by the thread that
+	 * replays the frames and moved by {@link #seek(int)} from any thread,
+	 * both while holding the lock.
+	 */
+	private volatile int nextFrame;
+
+	/**
+	 * The image the frames are copied into, and its data.
+	 */
+	private BufferedImage image;
+	private byte[] pixels;
+
+	private volatile boolean running;
+	private Thread replayThread;
+
+
+	/**
+	 * Opens the log with the given prefix.
+	 * @param consumer The object that is going to consume the frames.
+	 * @param filePrefix The prefix the log was recorded with.
+	 * @param mode The way frames are paced.
+	 * @throws IOException If the log cannot be opened or is not a frame log.
+	 */
+	public FrameReplayer(ImageConsumer consumer, String filePrefix,
+			ReplayMode mode) throws IOException {
+		this.consumer = consumer;
+		this.mode = mode;
+		openSegments(filePrefix);
+		if (channelOrder == FrameRecorder.CHANNELS_BGR) {
+			image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+			pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		} else {
+			pixels = new byte[width * height * FrameRecorder.BYTES_PER_PIXEL];
+			image = Eye.createRGBImage(pixels, width, height);
+		}
+	}
+
+	/**
+	 * Maps all segments of the log, in order, until a segment is missing.
+	 * @param filePrefix The prefix the log was recorded with.
+	 * @throws IOException If a segment cannot be mapped or is not valid.
+	 */
+	private void openSegments(String filePrefix) throws IOException {
+		for (int i = 0; ; ++i) {
+			File file = FrameRecorder.getSegmentFile(filePrefix, i);
+			if (!file.exists()) {
+				break;
+			}
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			MappedByteBuffer segment;
+			try {
+				segment = raf.getChannel().map(
+						FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			} finally {
+				raf.close();
+			}
+			if (segment.getInt(FrameRecorder.MAGIC_OFFSET) != FrameRecorder.MAGIC
+					|| segment.getInt(FrameRecorder.VERSION_OFFSET) != FrameRecorder.VERSION) {
+				throw new IOException(file + " is not a frame log segment.");
+			}
+			if (i == 0) {
+				width = segment.getInt(FrameRecorder.WIDTH_OFFSET);
+				height = segment.getInt(FrameRecorder.HEIGHT_OFFSET);
+				channelOrder = segment.getInt(FrameRecorder.CHANNELS_OFFSET);
+				capacity = segment.getInt(FrameRecorder.CAPACITY_OFFSET);
+			}
+			int count = segment.getInt(FrameRecorder.COUNT_OFFSET);
+			segments.add(segment);
+			frameCount += count;
+			if (count < capacity) {
+				// The recording stopped in this segment.
+				break;
+			}
+		}
+		if (segments.isEmpty()) {
+			throw new IOException("No frame log found at " + filePrefix);
+		}
+	}
+
+	/**
+	 * Starts passing frames on a separate thread, unless in STEP mode.
+	 */
+	public void start() {
+		if (mode == ReplayMode.STEP || running) {
+			return;
+		}
+		running = true;
+		replayThread = new Thread("FrameReplayer") {
+			public void run() {
+				replay();
+			}
+		};
+		replayThread.start();
+	}
+
+	/**
+	 * Stops passing frames.
+	 */
+	public void stop() {
+		running = false;
+	}
+
+	/**
+	 * Waits until the replay thread finishes.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void join() throws InterruptedException {
+		if (replayThread != null) {
+			replayThread.join();
+		}
+	}
+
+	/**
+	 * The body of the replay thread.
+	 */
+	private void replay() {
+		long firstTimeStamp = getTimeStamp(nextFrame);
+		long startTime = System.currentTimeMillis();
+		long processingStart = System.nanoTime();
+		int startFrame = nextFrame;
+		while (running && nextFrame < frameCount) {
+			if (mode == ReplayMode.REAL_TIME) {
+				long due = startTime +
+					(long) ((getTimeStamp(nextFrame) - firstTimeStamp) / speed);
+				long wait = due - System.currentTimeMillis();
+				if (wait > 0) {
+					try {
+						Thread.sleep(wait);
+					} catch (InterruptedException e) {
+						// Carry on.
+					}
+				}
+			}
+			step();
+		}
+		running = false;
+		if (VERBOSE) {
+			long duration = System.nanoTime() - processingStart;
+			int frames = nextFrame - startFrame;
+			System.out.println("Replayed " + frames + " frames at " +
+					(frames * 1e9 / duration) + " FPS");
+		}
+	}
+
+	/**
+	 * Passes the next frame to the consumer.
+	 * @return False if there are no more frames, true otherwise.
+	 */
+	public boolean step() {
+		int frame;
+		synchronized (this) {
+			frame = nextFrame;
+			if (frame >= frameCount) {
+				return false;
+			}
+			nextFrame = frame + 1;
+		}
+		MappedByteBuffer segment = segments.get(frame / capacity);
+		int slot = frame % capacity;
+		// Absolute reads would need a slice per frame; the segment is only
+		// ever read from this thread, so moving its position is fine.
+		segment.position(FrameRecorder.getFrameOffset(capacity, width, height, slot));
+		segment.get(pixels, 0, pixels.length);
+		consumer.consume(image);
+		return true;
+	}
+
+	/**
+	 * Moves to the given frame. The next call to {@link #step()} passes it.
+	 * May be called from any thread, also while replaying.
+	 * @param frame The number of the frame, counting from 0.
+	 */
+	public synchronized void seek(int frame) {
+		nextFrame = Math.max(0, Math.min(frame, frameCount));
+	}
+
+	/**
+	 * Gets the capture time-stamp of the given frame.
+	 * @param frame The number of the frame.
+	 * @return The capture time-stamp of the frame in milliseconds, or 0 if 
+	 * there is no such frame.
+	 */
+	public long getTimeStamp(int frame) {
+		if (frame < 0 || frame >= frameCount) {
+			return 0;
+		}
+		MappedByteBuffer segment = segments.get(frame / capacity);
+		int entry = FrameRecorder.HEADER_SIZE +
+			(frame % capacity) * FrameRecorder.INDEX_ENTRY_SIZE;
+		return segment.getLong(entry);
+	}
+
+	/**
+	 * Gets the capture sequence number of the given frame. Gaps in the
+	 * sequence show where the recorder skipped frames.
+	 * @param frame The number of the frame.
+	 * @return The capture sequence number of the frame, or -1 if there is 
+	 * no such frame.
+	 */
+	public int getSequenceNumber(int frame) {
+		if (frame < 0 || frame >= frameCount) {
+			return -1;
+		}
+		MappedByteBuffer segment = segments.get(frame / capacity);
+		int entry = FrameRecorder.HEADER_SIZE +
+			(frame % capacity) * FrameRecorder.INDEX_ENTRY_SIZE;
+		return segment.getInt(entry + 8);
+	}
+
+	/**
+	 * Get the total number of frames in the log.
+	 * @return The total number of frames in the log.
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Get the number of the next frame to pass.
+	 * @return The number of the next frame to pass.
+	 */
+	public int getNextFrame() {
+		return nextFrame;
+	}
+
+	/**
+	 * Set the speed factor used in REAL_TIME mode.
+	 * @param speed The speed factor; 2.0 is twice as fast.
+	 */
+	public void setSpeed(double speed) {
+		this.speed = speed;
+	}
+
+	/**
+	 * Replays a recorded log into a VisualCortex as fast as possible and
+	 * prints the throughput. Usage: FrameReplayer prefix [1|2]
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("Usage: FrameReplayer prefix [pitch number]");
+			return;
+		}
+		GlobalInfo.setPitchOne(args.length < 2 || args[1].equals("1"));
+		VisualCortex cortex = new VisualCortex(null);
+		FrameReplayer replayer = new FrameReplayer(cortex, args[0], ReplayMode.FAST);
+		long start = System.nanoTime();
+		replayer.start();
+		replayer.join();
+		long duration = System.nanoTime() - start;
+		System.out.println(replayer.getFrameCount() + " frames in " +
+				(duration / 1000000) + " ms: " +
+				(replayer.getFrameCount() * 1e9 / duration) + " FPS");
+	}
+}
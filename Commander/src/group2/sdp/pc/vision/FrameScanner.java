@@ -0,0 +1,323 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+
+/**
+ *<p><b>FrameScanner:</b> The first stage of frame processing</br>
+ *<p><b>Description:</b></br>
+ *Scans regions of a frame in memory order. Each pixel is compared to the
+ *background; a pixel is different if the sum of the absolute differences of
+ *its channels from the background exceeds a threshold, or the threshold of
+ *the pixel in the {@link BackgroundModel} if that is higher. The pixels that are
+ *sufficiently different are stored as the foreground, their classes are put
+ *in the {@link ColourClassMask} of the frame, and the ones of the colours of
+ *the objects (the yellow and the blue T and the ball) are added to the blob
+ *of their object, weighted by their difference from the background.
+ *<p><b>Note:</b></br>
+ *Given the {@link TileSignatures} of the frame, only the tiles that changed
+ *are scanned, and the pixels of the rest are taken from the mask of the
+ *last frame. A subsampled view of the frame can be scanned with
+ *{@link #scanCoarse}, to find where the objects are cheaply. All buffers
+ *are reused between frames. Scanners of separate parts of a
+ *frame can be joined with {@link #append(FrameScanner)}.
+ */
+public class FrameScanner {
+
+	/**
+	 * The objects whose pixels are collected.
+	 */
+	public static final int YELLOW = 0;
+	public static final int BLUE = 1;
+	public static final int BALL = 2;
+	public static final int OBJECT_COUNT = 3;
+
+	/**
+	 * The width of the frame and its background.
+	 */
+	private int width;
+
+	/**
+	 * The indices (y * width + x) of the foreground pixels. Only the first
+	 * foregroundCount are valid.
+	 */
+	private int[] foreground = new int[0];
+	private int foregroundCount;
+
+	/**
+	 * The foreground pixels of each object, with their sums.
+	 */
+	private Blob[] objectPixels = { new Blob(), new Blob(), new Blob() };
+
+
+	/**
+	 * Forgets the pixels found so far, to start a new frame.
+	 * @param width The width of the frame.
+	 * @param capacity The largest number of pixels that will be scanned.
+	 */
+	public void reset(int width, int capacity) {
+		this.width = width;
+		if (foreground.length < capacity) {
+			foreground = new int[capacity];
+		}
+		foregroundCount = 0;
+		for (Blob blob : objectPixels) {
+			blob.reset(width);
+		}
+	}
+
+	/**
+	 * Scans a region of the frame. The pixels found are added to the ones
+	 * found so far in the frame.
+	 * @param reader The reader of the frame.
+	 * @param background The background.
+	 * @param colourTable The table that classifies the colours.
+	 * @param mask The mask to put the classes of the foreground pixels in;
+	 * it must cover the region.
+	 * @param minX The left edge of the region.
+	 * @param minY The top edge of the region.
+	 * @param maxX The right edge of the region, exclusive.
+	 * @param maxY The bottom edge of the region, exclusive.
+	 * @param threshold The pixel difference threshold.
+	 */
+	public void scan(PixelReader reader, BackgroundModel background,
+			ColourLookupTable colourTable, ColourClassMask mask, int minX, 
+			int minY, int maxX, int maxY, int threshold) {
+		scan(reader, background, colourTable, mask, minX, minY, maxX, maxY,
+				threshold, null);
+	}
+
+	/**
+	 * Scans a region of the frame, like 
+	 * {@link #scan(PixelReader, BackgroundModel, ColourLookupTable, ColourClassMask, int, int, int, int, int)},
+	 * but only the tiles that changed since they were last scanned. The
+	 * pixels of the other tiles are taken from the mask as it was left by
+	 * the last frame, so the mask must not have been cleared. The pixels are
+	 * still found in memory order.
+	 * @param tiles The tiles that changed, or null to scan the whole region.
+	 */
+	public void scan(PixelReader reader, BackgroundModel background,
+			ColourLookupTable colourTable, ColourClassMask mask, int minX, 
+			int minY, int maxX, int maxY, int threshold, TileSignatures tiles) {
+		int[] backgroundColours = background.getColours();
+		int[] thresholds = background.getThresholds();
+		for (int y = minY; y < maxY; ++y) {
+			if (tiles == null) {
+				scanSpan(reader, backgroundColours, thresholds, colourTable, mask,
+						y, minX, maxX, threshold, false);
+				continue;
+			}
+			for (int x = minX; x < maxX; ) {
+				// The end of the tile of x within the region.
+				int spanEnd = Math.min(maxX, x + TileSignatures.TILE_SIZE
+						- (x - mask.getBounds().x) % TileSignatures.TILE_SIZE);
+				if (tiles.isChanged(x, y)) {
+					scanSpan(reader, backgroundColours, thresholds, colourTable,
+							mask, y, x, spanEnd, threshold, true);
+				} else {
+					reuseSpan(reader, backgroundColours, mask, y, x, spanEnd);
+				}
+				x = spanEnd;
+			}
+		}
+	}
+
+	/**
+	 * Scans a subsampled view of a region of the frame: only the pixels
+	 * whose coordinates are both multiples of step. The pixels found are
+	 * stored in the coordinates of the view, (x / step, y / step), so the
+	 * scanner must have been reset with the width of the view. The mask is
+	 * not touched.
+	 * @param reader The reader of the frame.
+	 * @param background The background.
+	 * @param colourTable The table that classifies the colours.
+	 * @param minX The left edge of the region.
+	 * @param minY The top edge of the region.
+	 * @param maxX The right edge of the region, exclusive.
+	 * @param maxY The bottom edge of the region, exclusive.
+	 * @param step The distance between the pixels scanned.
+	 * @param threshold The pixel difference threshold.
+	 */
+	public void scanCoarse(PixelReader reader, BackgroundModel background,
+			ColourLookupTable colourTable, int minX, int minY, int maxX, 
+			int maxY, int step, int threshold) {
+		final int yellow = ColourClass.YELLOW.ordinal();
+		final int blue = ColourClass.BLUE.ordinal();
+		final int red = ColourClass.RED.ordinal();
+		int frameWidth = background.getWidth();
+		int[] backgroundColours = background.getColours();
+		int[] thresholds = background.getThresholds();
+		int count = foregroundCount;
+		int startX = (minX + step - 1) / step * step;
+		int startY = (minY + step - 1) / step * step;
+		for (int y = startY; y < maxY; y += step) {
+			int row = y * frameWidth;
+			int coarseY = y / step;
+			for (int x = startX; x < maxX; x += step) {
+				int rgb = reader.getRGB(x, y);
+				int back = backgroundColours[row + x];
+				int delta =
+					Math.abs(((rgb >> 16) & 0xFF) - ((back >> 16) & 0xFF)) +
+					Math.abs(((rgb >> 8) & 0xFF) - ((back >> 8) & 0xFF)) +
+					Math.abs((rgb & 0xFF) - (back & 0xFF));
+				if (delta <= threshold || delta <= thresholds[row + x]) {
+					continue;
+				}
+				int coarseX = x / step;
+				int index = coarseY * width + coarseX;
+				int colourClass = colourTable.classify(rgb);
+				foreground[count] = index;
+				++count;
+				if (colourClass == yellow) {
+					objectPixels[YELLOW].add(index, coarseX, coarseY);
+				} else if (colourClass == blue) {
+					objectPixels[BLUE].add(index, coarseX, coarseY);
+				} else if (colourClass == red) {
+					objectPixels[BALL].add(index, coarseX, coarseY);
+				}
+			}
+		}
+		foregroundCount = count;
+	}
+
+	/**
+	 * Scans the pixels of a row from fromX to toX, exclusive.
+	 * @param clear Whether to clear the classes of the background pixels
+	 * in the mask, if it was not cleared.
+	 */
+	private void scanSpan(PixelReader reader, int[] backgroundColours,
+			int[] thresholds, ColourLookupTable colourTable, ColourClassMask mask,
+			int y, int fromX, int toX, int threshold, boolean clear) {
+		final int yellow = ColourClass.YELLOW.ordinal();
+		final int blue = ColourClass.BLUE.ordinal();
+		final int red = ColourClass.RED.ordinal();
+		int[] foreground = this.foreground;
+		Blob yellowPixels = objectPixels[YELLOW];
+		Blob bluePixels = objectPixels[BLUE];
+		Blob ballPixels = objectPixels[BALL];
+		int count = foregroundCount;
+		int row = y * width;
+		for (int x = fromX; x < toX; ++x) {
+			int rgb = reader.getRGB(x, y);
+			int back = backgroundColours[row + x];
+			int delta =
+				Math.abs(((rgb >> 16) & 0xFF) - ((back >> 16) & 0xFF)) +
+				Math.abs(((rgb >> 8) & 0xFF) - ((back >> 8) & 0xFF)) +
+				Math.abs((rgb & 0xFF) - (back & 0xFF));
+			if (delta <= threshold || delta <= thresholds[row + x]) {
+				if (clear) {
+					mask.set(x, y, ColourClassMask.NONE);
+				}
+				continue;
+			}
+			int index = row + x;
+			int colourClass = colourTable.classify(rgb);
+			foreground[count] = index;
+			mask.set(x, y, colourClass);
+			++count;
+			if (colourClass == yellow) {
+				yellowPixels.add(index, x, y, delta);
+			} else if (colourClass == blue) {
+				bluePixels.add(index, x, y, delta);
+			} else if (colourClass == red) {
+				ballPixels.add(index, x, y, delta);
+			}
+		}
+		foregroundCount = count;
+	}
+
+	/**
+	 * Takes the foreground pixels of a row from fromX to toX, exclusive,
+	 * from the classes left in the mask by the last frame. Only the pixels
+	 * of the objects are read, for their weights.
+	 */
+	private void reuseSpan(PixelReader reader, int[] backgroundColours,
+			ColourClassMask mask, int y, int fromX, int toX) {
+		final int yellow = ColourClass.YELLOW.ordinal();
+		final int blue = ColourClass.BLUE.ordinal();
+		final int red = ColourClass.RED.ordinal();
+		int count = foregroundCount;
+		int row = y * width;
+		for (int x = fromX; x < toX; ++x) {
+			int colourClass = mask.get(x, y);
+			if (colourClass == ColourClassMask.NONE) {
+				continue;
+			}
+			int index = row + x;
+			foreground[count] = index;
+			++count;
+			int object;
+			if (colourClass == yellow) {
+				object = YELLOW;
+			} else if (colourClass == blue) {
+				object = BLUE;
+			} else if (colourClass == red) {
+				object = BALL;
+			} else {
+				continue;
+			}
+			int rgb = reader.getRGB(x, y);
+			int back = backgroundColours[index];
+			int delta =
+				Math.abs(((rgb >> 16) & 0xFF) - ((back >> 16) & 0xFF)) +
+				Math.abs(((rgb >> 8) & 0xFF) - ((back >> 8) & 0xFF)) +
+				Math.abs((rgb & 0xFF) - (back & 0xFF));
+			objectPixels[object].add(index, x, y, delta);
+		}
+		foregroundCount = count;
+	}
+
+	/**
+	 * Adds the pixels found by another scanner after the ones found by this
+	 * one. If the two scanned consecutive stripes of a frame, the result is
+	 * the same as if this one scanned both.
+	 * @param other The scanner whose pixels to add.
+	 */
+	public void append(FrameScanner other) {
+		int count = foregroundCount + other.foregroundCount;
+		if (foreground.length < count) {
+			int[] newForeground = new int[count];
+			System.arraycopy(foreground, 0, newForeground, 0, foregroundCount);
+			foreground = newForeground;
+		}
+		System.arraycopy(other.foreground, 0, foreground, foregroundCount,
+				other.foregroundCount);
+		foregroundCount = count;
+		for (int i = 0; i < OBJECT_COUNT; ++i) {
+			objectPixels[i].addAll(other.objectPixels[i]);
+		}
+	}
+
+	/**
+	 * Gets the pixels of the given object.
+	 * @param object {@link #YELLOW}, {@link #BLUE} or {@link #BALL}.
+	 * @return The pixels of the object.
+	 */
+	public Blob getPixels(int object) {
+		return objectPixels[object];
+	}
+
+	/**
+	 * Get the indices (y * width + x) of the foreground pixels. Only the
+	 * first {@link #getForegroundCount()} are valid.
+	 * @return The indices of the foreground pixels.
+	 */
+	public int[] getForeground() {
+		return foreground;
+	}
+
+	/**
+	 * Get the number of foreground pixels.
+	 * @return The number of foreground pixels.
+	 */
+	public int getForegroundCount() {
+		return foregroundCount;
+	}
+
+	/**
+	 * Get the width of the frame.
+	 * @return The width of the frame.
+	 */
+	public int getWidth() {
+		return width;
+	}
+}
@@ -6,8 +6,41 @@ import java.awt.Color;
  * A luma-chroma-hue colour. The definitions of the terms can be found here:
  * http://en.wikipedia.org/wiki/Luma_%28video%29#Rec._601_luma_versus_Rec._709_luma_coefficients
  * http://en.wikipedia.org/wiki/HSL_and_HSV#Hue_and_chroma
+ * 
+ * The conversion from red-green-blue is done with integers only, and is 
+ * also available as static methods that allocate nothing, for the code 
+ * that converts many pixels.
  */
 public class LCHColour {
+
+	/**
+	 * The hues of the table are in units of 1 / HUE_SCALE degrees.
+	 */
+	private static final int HUE_SCALE = 1 << 16;
+	/**
+	 * The number of steps of the ratios in the arctangent table, and the
+	 * number of steps between two entries of the table.
+	 */
+	private static final int ATAN_BITS = 10;
+	private static final int ATAN_STEPS = 1 << ATAN_BITS;
+	/**
+	 * The arctangent of i / ATAN_STEPS, in 1 / HUE_SCALE degrees, for i 
+	 * from 0 to ATAN_STEPS, i.e. for the angles of the first octant.
+	 */
+	private static final int[] ATAN_TABLE = new int[ATAN_STEPS + 1];
+	/**
+	 * The square root of 3, in 1 / 65536, rounded up: the floating point 
+	 * conversion this replaced used a constant a little above it too, so 
+	 * the hues that are whole degrees come out the same.
+	 */
+	private static final long SQRT_3 = 113512;
+
+	static {
+		for (int i = 0; i <= ATAN_STEPS; ++i) {
+			ATAN_TABLE[i] = (int) Math.round(
+					Math.toDegrees(Math.atan((double) i / ATAN_STEPS)) * HUE_SCALE);
+		}
+	}
 	
 	/**
 	 * The luma of the colour.
@@ -28,10 +61,30 @@ public class LCHColour {
 	 * @param c A red-green-blue colour to model the new LCHColour after.
 	 */
 	public LCHColour(Color c) {
-		int [] lch = convertRGBtoLCh(c.getRed(), c.getGreen(), c.getBlue());
-		luma = lch[0];
-		chroma = lch[1];
-		hue = lch[2];
+		setRGB(c.getRed(), c.getGreen(), c.getBlue());
+	}
+	
+	/**
+	 * Converts the specified red-green-blue colour to LCHColour.
+	 * @param red The red component, from 0 to 255.
+	 * @param green The green component, from 0 to 255.
+	 * @param blue The blue component, from 0 to 255.
+	 */
+	public LCHColour(int red, int green, int blue) {
+		setRGB(red, green, blue);
+	}
+
+	/**
+	 * Makes this the LCHColour of the specified red-green-blue colour, so 
+	 * that one object can be reused for many colours.
+	 * @param red The red component, from 0 to 255.
+	 * @param green The green component, from 0 to 255.
+	 * @param blue The blue component, from 0 to 255.
+	 */
+	public void setRGB(int red, int green, int blue) {
+		luma = getLuma(red, green, blue);
+		chroma = getChroma(red, green, blue);
+		hue = getHue(red, green, blue);
 	}
 	
 	/**
@@ -84,29 +137,138 @@ public class LCHColour {
 	
 	
 	/**
-	 * Converts a red-green-blue colour to our approximation of L*C*h* (lookup CIELAB).
-	 * L* is taken from Wikipedia's entry for Luma:
+	 * Converts a red-green-blue colour to our approximation of L*C*h* (lookup 
+	 * CIELAB), packed in one integer: the luma in bits 0-7, the chroma in 
+	 * bits 8-15 and the hue in bits 16-24.
+	 * @see #getLuma(int, int, int)
+	 * @see #getChroma(int, int, int)
+	 * @see #getHue(int, int, int)
+	 */
+	public static int packLCH(int red, int green, int blue) {
+		return getLuma(red, green, blue) 
+			| getChroma(red, green, blue) << 8 
+			| getHue(red, green, blue) << 16;
+	}
+
+	/**
+	 * Gets the luma of a colour packed by {@link #packLCH(int, int, int)}.
+	 */
+	public static int lumaOf(int lch) {
+		return lch & 0xFF;
+	}
+
+	/**
+	 * Gets the chroma of a colour packed by {@link #packLCH(int, int, int)}.
+	 */
+	public static int chromaOf(int lch) {
+		return (lch >> 8) & 0xFF;
+	}
+
+	/**
+	 * Gets the hue of a colour packed by {@link #packLCH(int, int, int)}.
+	 */
+	public static int hueOf(int lch) {
+		return lch >>> 16;
+	}
+
+	/**
+	 * Computes the luma of a red-green-blue colour. L* is taken from 
+	 * Wikipedia's entry for Luma:
 	 * Y = 0.299 * R + 0.587 * G + 0.114 * B    or
 	 * Y = 0.2126* R + 0.7152* G + 0.0722* B    or
 	 * Y = 0.212 * R + 0.701 * G + 0.087 * B
-	 * 
-	 * The hue and chroma (h* and C*) are again taken from Wikipedia: 
+	 * @return The luma, from 0 to 255.
+	 */
+	public static int getLuma(int red, int green, int blue) {
+		return (2990 * red + 5870 * green + 1140 * blue) / 10000;
+	}
+
+	/**
+	 * Computes the chroma of a red-green-blue colour, taken from Wikipedia:
 	 * http://en.wikipedia.org/wiki/HSL_and_HSV#Hue_and_chroma
-	 * @return A three integer array, where the first integer is the luma from
-	 * 0 to 255, the second is the chroma from 0 to 255 and the third one is
-	 * the hue from 0 to 360 
-	 */
-	private int[] convertRGBtoLCh(int red, int green, int blue) {
-		int L = (2990 * red + 5870 * green + 1140 * blue) / 10000;
-		
-		double alpha = 0.5 * (2*red - green - blue);
-		double beta = 0.866025404 * (green - blue);
-		
-		int C = (int) Math.sqrt(alpha * alpha + beta * beta);
-		
-		int h = (int) Math.toDegrees(Math.atan2(beta, alpha));
-		if (h < 0)
-			h = 360 + h;
-		return new int [] {L, C, h};
+	 * 
+	 * The chroma is the length of (alpha, beta), where 
+	 * alpha = (2R - G - B) / 2 and beta = sqrt(3) * (G - B) / 2, rounded 
+	 * down. Thus it is half the integer square root of 
+	 * (2R - G - B)^2 + 3 * (G - B)^2.
+	 * @return The chroma, from 0 to 255.
+	 */
+	public static int getChroma(int red, int green, int blue) {
+		int a = 2 * red - green - blue;
+		int d = green - blue;
+		return sqrt(a * a + 3 * d * d) >> 1;
+	}
+
+	/**
+	 * Computes the hue of a red-green-blue colour: the angle of 
+	 * (alpha, beta), see {@link #getChroma(int, int, int)}, in whole degrees
+	 * rounded towards 0, from 0 to 359. The angle is reduced to the first 
+	 * octant and looked up in a table; it is within a degree of the exact 
+	 * one, and nearly always the same.
+	 * @return The hue, from 0 to 359.
+	 */
+	public static int getHue(int red, int green, int blue) {
+		// alpha and beta, scaled by 2 * 65536.
+		long a = (long) (2 * red - green - blue) << 16;
+		long b = (green - blue) * SQRT_3;
+		long absA = a < 0 ? -a : a;
+		long absB = b < 0 ? -b : b;
+		if (absA == 0 && absB == 0) {
+			return 0;
+		}
+		int angle;
+		if (absA >= absB) {
+			angle = atan(absB, absA);
+		} else {
+			angle = 90 * HUE_SCALE - atan(absA, absB);
+		}
+		if (a < 0) {
+			angle = 180 * HUE_SCALE - angle;
+		}
+		if (b < 0) {
+			angle = -angle;
+		}
+		int h = angle / HUE_SCALE;
+		return h < 0 ? h + 360 : h;
+	}
+
+	/**
+	 * Computes the arctangent of a ratio from 0 to 1 by interpolating 
+	 * between the entries of the table.
+	 * @param numerator The numerator of the ratio.
+	 * @param denominator The denominator of the ratio, not 0.
+	 * @return The arctangent, in 1 / HUE_SCALE degrees.
+	 */
+	private static int atan(long numerator, long denominator) {
+		int ratio = (int) ((numerator << (2 * ATAN_BITS)) / denominator);
+		int i = ratio >> ATAN_BITS;
+		if (i == ATAN_STEPS) {
+			return ATAN_TABLE[ATAN_STEPS];
+		}
+		int fraction = ratio & (ATAN_STEPS - 1);
+		return ATAN_TABLE[i] 
+			+ (((ATAN_TABLE[i + 1] - ATAN_TABLE[i]) * fraction) >> ATAN_BITS);
+	}
+
+	/**
+	 * Computes the integer square root of a non-negative number, i.e. its 
+	 * square root rounded down, one bit at a time.
+	 */
+	private static int sqrt(int n) {
+		int root = 0;
+		int bit = 1 << 30;
+		while (bit > n) {
+			bit >>= 2;
+		}
+		while (bit != 0) {
+			if (n >= root + bit) {
+				n -= root + bit;
+				root = (root >> 1) + bit;
+			} else {
+				root >>= 1;
+			}
+			bit >>= 2;
+		}
+		return root;
 	}
 }
@@ -0,0 +1,267 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+
+/**
+ *<p><b>OpticNerve:</b> An Image Consumer</br>
+ *<p><b>Description:</b></br>
+ *Sits between the {@link Eye} and the image consumer that processes the
+ *frames. Frames are copied into a small ring of preallocated slots on the
+ *capture thread and handed to the consumer on a dedicated processing thread.
+ *<p><b>Policy:</b></br>
+ *Latest frame wins: the processing thread always takes the newest frame. If
+ *a newer frame arrives before the previous one was taken, the previous one is
+ *dropped. Thus the capture thread never waits for processing and the latency
+ *is at most one frame plus the processing time.
+ */
+public class OpticNerve implements ImageConsumer {
+
+	private static final boolean VERBOSE = false;
+
+	/**
+	 * The number of slots: one being written by the capture thread, one
+	 * holding the latest frame and one being processed.
+	 */
+	private static final int SLOT_COUNT = 3;
+
+	/**
+	 * Indicates that there is no slot.
+	 */
+	private static final int NO_SLOT = -1;
+
+	/**
+	 * The object that is going to consume the frames on the processing thread.
+	 */
+	private ImageConsumer consumer;
+
+	/**
+	 * The preallocated frame slots. Allocated on the first frame, when the
+	 * size and layout of the frames become known.
+	 */
+	private BufferedImage[] slots;
+
+	/**
+	 * The values of System.nanoTime() when the frames in the slots were
+	 * captured, see {@link Eye#getCaptureTime()}, and when they were copied
+	 * into the slots.
+	 */
+	private long[] slotCaptureTimes = new long[SLOT_COUNT];
+	private long[] slotTimes = new long[SLOT_COUNT];
+
+	/**
+	 * The slot holding the newest frame that was not taken yet.
+	 */
+	private int latestSlot = NO_SLOT;
+	/**
+	 * The slot that is being processed at the moment.
+	 */
+	private int processingSlot = NO_SLOT;
+
+	/**
+	 * The number of frames that were overwritten before being processed.
+	 */
+	private volatile long droppedFrames;
+	/**
+	 * The number of frames that were passed to the consumer.
+	 */
+	private volatile long processedFrames;
+
+	/**
+	 * Indicates if the processing thread should keep running.
+	 */
+	private volatile boolean running;
+
+	private Thread processingThread;
+
+
+	/**
+	 * Starts the processing thread that passes frames to the given consumer.
+	 * @param consumer The object that is going to consume the frames.
+	 */
+	public OpticNerve(ImageConsumer consumer) {
+		this.consumer = consumer;
+		running = true;
+		processingThread = new Thread("OpticNerve") {
+			public void run() {
+				processFrames();
+			}
+		};
+		processingThread.setDaemon(true);
+		processingThread.start();
+	}
+
+	/**
+	 * Copies the image in a free slot and publishes it as the latest frame.
+	 * Called on the capture thread; never waits for the processing thread.
+	 */
+	@Override
+	public void consume(BufferedImage image) {
+		long captureTime = Eye.getCaptureTime();
+		long start = System.nanoTime();
+		if (slots == null) {
+			allocateSlots(image);
+		}
+		int writeSlot;
+		synchronized (this) {
+			writeSlot = findFreeSlot();
+		}
+		copyFrame(image, slots[writeSlot]);
+		slotCaptureTimes[writeSlot] = captureTime;
+		slotTimes[writeSlot] = LatencyMonitor.recordSince(Stage.COPY, start);
+		synchronized (this) {
+			if (latestSlot != NO_SLOT) {
+				++droppedFrames;
+			}
+			latestSlot = writeSlot;
+			notify();
+		}
+	}
+
+	/**
+	 * The body of the processing thread. Waits for a frame, takes the latest
+	 * one and passes it to the consumer.
+	 */
+	private void processFrames() {
+		while (running) {
+			BufferedImage frame;
+			long captureTime, time;
+			synchronized (this) {
+				while (running && latestSlot == NO_SLOT) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// Check if we are still running.
+					}
+				}
+				if (!running) {
+					return;
+				}
+				processingSlot = latestSlot;
+				latestSlot = NO_SLOT;
+				frame = slots[processingSlot];
+				captureTime = slotCaptureTimes[processingSlot];
+				time = slotTimes[processingSlot];
+			}
+			LatencyMonitor.recordSince(Stage.QUEUE, time);
+			try {
+				consumer.consume(frame);
+				LatencyMonitor.recordSince(Stage.TOTAL, captureTime);
+			} catch (RuntimeException e) {
+				// A bad frame should not kill the processing thread.
+				e.printStackTrace();
+			}
+			synchronized (this) {
+				processingSlot = NO_SLOT;
+			}
+			++processedFrames;
+			if (VERBOSE && processedFrames % 100 == 0) {
+				System.out.println("Processed: " + processedFrames +
+						" dropped: " + droppedFrames);
+			}
+		}
+	}
+
+	/**
+	 * Stops the processing thread. Frames that are consumed afterwards are
+	 * copied but never processed.
+	 */
+	public void stop() {
+		synchronized (this) {
+			running = false;
+			notify();
+		}
+	}
+
+	/**
+	 * Finds a slot that is neither the latest nor the one being processed.
+	 * Must be called while holding the lock.
+	 * @return The index of the free slot.
+	 */
+	private int findFreeSlot() {
+		for (int i = 0; i < SLOT_COUNT; ++i) {
+			if (i != latestSlot && i != processingSlot) {
+				return i;
+			}
+		}
+		// Unreachable, since there are more slots than taken ones.
+		return 0;
+	}
+
+	/**
+	 * Allocates the slots so that they match the given frame.
+	 * @param image A frame to model the slots after.
+	 */
+	private void allocateSlots(BufferedImage image) {
+		BufferedImage[] newSlots = new BufferedImage[SLOT_COUNT];
+		for (int i = 0; i < SLOT_COUNT; ++i) {
+			newSlots[i] = createCompatibleImage(image);
+		}
+		slots = newSlots;
+	}
+
+	/**
+	 * Creates an image of the same size and layout as the given one, that
+	 * does not share its data.
+	 * @param image The image to model the new one after.
+	 * @return The new image.
+	 */
+	static BufferedImage createCompatibleImage(BufferedImage image) {
+		WritableRaster raster =
+			image.getRaster().createCompatibleWritableRaster();
+		return new BufferedImage(
+				image.getColorModel(),
+				raster,
+				image.isAlphaPremultiplied(),
+				null
+		);
+	}
+
+	/**
+	 * Copies the pixels of the source into the target. The two are expected
+	 * to have the same size and layout, see 
+	 * {@link #createCompatibleImage(BufferedImage)}.
+	 * @param source The image to copy.
+	 * @param target The image to copy into.
+	 */
+	static void copyFrame(BufferedImage source, BufferedImage target) {
+		DataBuffer from = source.getRaster().getDataBuffer();
+		DataBuffer to = target.getRaster().getDataBuffer();
+		if (from instanceof DataBufferByte && to instanceof DataBufferByte) {
+			byte[] fromData = ((DataBufferByte) from).getData();
+			byte[] toData = ((DataBufferByte) to).getData();
+			System.arraycopy(fromData, 0, toData, 0,
+					Math.min(fromData.length, toData.length));
+		} else if (from instanceof DataBufferInt && to instanceof DataBufferInt) {
+			int[] fromData = ((DataBufferInt) from).getData();
+			int[] toData = ((DataBufferInt) to).getData();
+			System.arraycopy(fromData, 0, toData, 0,
+					Math.min(fromData.length, toData.length));
+		} else {
+			target.getRaster().setRect(source.getRaster());
+		}
+	}
+
+	/**
+	 * Get the number of frames that were overwritten before being processed.
+	 * @return The number of frames that were overwritten before being processed.
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames;
+	}
+
+	/**
+	 * Get the number of frames that were passed to the consumer.
+	 * @return The number of frames that were passed to the consumer.
+	 */
+	public long getProcessedFrames() {
+		return processedFrames;
+	}
+}
@@ -0,0 +1,371 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+import group2.sdp.pc.vision.VisualCortex.OutputMode;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+import group2.sdp.pc.vision.skeleton.ImageConsumer;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+
+/**
+ *<p><b>OverlayRenderer:</b> The debug overlay of the vision</br>
+ *<p><b>Description:</b></br>
+ *Draws the foreground pixels of a processed frame, coloured by their colour
+ *class (or by their hue, luma or chroma during setup), with circles around
+ *the robots and the ball and the directions of the robots, and passes the
+ *image to an image consumer.
+ *<p><b>Policy:</b></br>
+ *The processing thread only copies what is needed into a snapshot, and only
+ *when a new overlay is due: at most {@link #DEFAULT_RATE} times a second and
+ *never while the previous snapshot is being drawn. The drawing is done on a
+ *dedicated render thread, into two preallocated images that take turns, so
+ *that the image being shown is not the one being drawn. Frames that are
+ *not due are not drawn at all.
+ */
+public class OverlayRenderer {
+
+	/**
+	 * The default number of overlays drawn per second.
+	 */
+	public static final int DEFAULT_RATE = 10;
+
+	private static final int BALL_RADIUS = 25;
+	private static final int ROBOT_RADIUS = 50;
+	private static final int DIRECTION_LENGTH = 100;
+
+	/**
+	 * The colour classes, indexed by their ordinals.
+	 */
+	private static final ColourClass[] COLOUR_CLASSES = ColourClass.values();
+
+	/**
+	 * The object that is going to consume the overlays on the render thread.
+	 */
+	private ImageConsumer consumer;
+
+	/**
+	 * The minimum time between two snapshots, in milliseconds.
+	 */
+	private long period;
+	private long lastSubmitTime;
+
+	/**
+	 * Indicates that a snapshot was taken and is not drawn yet. The
+	 * processing thread only writes the snapshot while this is false and the
+	 * render thread only reads it while this is true.
+	 */
+	private volatile boolean busy;
+
+	/**
+	 * Indicates if the render thread should keep running.
+	 */
+	private volatile boolean running;
+
+	private Thread renderThread;
+
+	/**
+	 * The snapshot of the last submitted frame: the size of the frame, the
+	 * indices of its foreground pixels with their colour classes, and their
+	 * colours in the setup modes.
+	 */
+	private int width, height;
+	private OutputMode mode;
+	private int count;
+	private int[] indices = new int[0];
+	private byte[] classes = new byte[0];
+	private int[] colours = new int[0];
+
+	/**
+	 * The centroids of the objects in the snapshot, in pixels, and the
+	 * directions of the robots, indexed as in {@link FrameDetections}.
+	 */
+	private boolean[] hasCentroid = new boolean[FrameDetections.OBJECT_COUNT];
+	private int[] centroidX = new int[FrameDetections.OBJECT_COUNT];
+	private int[] centroidY = new int[FrameDetections.OBJECT_COUNT];
+	private double[] facingDirection = new double[FrameDetections.OBJECT_COUNT];
+
+	/**
+	 * The two images that are drawn into in turns, allocated when the size
+	 * of the frames becomes known, and the one to draw into next.
+	 */
+	private BufferedImage[] images;
+	private int backImage;
+
+	private LCHColour lch = new LCHColour(0, 0, 0);
+
+
+	/**
+	 * Starts the render thread that passes the overlays to the given
+	 * consumer, at most {@link #DEFAULT_RATE} times a second.
+	 * @param consumer The object that is going to consume the overlays.
+	 */
+	public OverlayRenderer(ImageConsumer consumer) {
+		this(consumer, DEFAULT_RATE);
+	}
+
+	/**
+	 * Starts the render thread that passes the overlays to the given
+	 * consumer.
+	 * @param consumer The object that is going to consume the overlays.
+	 * @param rate The maximum number of overlays per second.
+	 */
+	public OverlayRenderer(ImageConsumer consumer, int rate) {
+		this.consumer = consumer;
+		this.period = 1000 / rate;
+		running = true;
+		renderThread = new Thread("OverlayRenderer") {
+			public void run() {
+				renderOverlays();
+			}
+		};
+		renderThread.setDaemon(true);
+		renderThread.start();
+	}
+
+	/**
+	 * Checks if a new overlay is due: enough time passed since the last
+	 * snapshot and the render thread is done with it. Called on the
+	 * processing thread, before gathering what {@link #submit} needs.
+	 * @return True if the next call to submit will take a snapshot.
+	 */
+	public boolean isDue() {
+		return !busy
+			&& System.currentTimeMillis() - lastSubmitTime >= period;
+	}
+
+	/**
+	 * Takes a snapshot of a processed frame and wakes the render thread up,
+	 * if a new overlay is due. Otherwise does nothing.
+	 * @param reader The reader of the frame, for the setup modes.
+	 * @param scanner The scanner that found the foreground pixels of the frame.
+	 * @param mask The colour classes of the foreground pixels.
+	 * @param width The width of the frame.
+	 * @param height The height of the frame.
+	 * @param mode The mode of the output.
+	 * @param ball The centroid of the ball, or null if it was not found.
+	 * @param yellow The centroid of the yellow robot, or null.
+	 * @param yellowDirection The direction of the yellow robot.
+	 * @param blue The centroid of the blue robot, or null.
+	 * @param blueDirection The direction of the blue robot.
+	 * @return True if a snapshot was taken.
+	 */
+	public boolean submit(PixelReader reader, FrameScanner scanner,
+			ColourClassMask mask, int width, int height, OutputMode mode,
+			Point ball, Point yellow, double yellowDirection,
+			Point blue, double blueDirection) {
+		if (!isDue()) {
+			return false;
+		}
+		lastSubmitTime = System.currentTimeMillis();
+		this.width = width;
+		this.height = height;
+		this.mode = mode;
+
+		count = scanner.getForegroundCount();
+		if (indices.length < count) {
+			indices = new int[count];
+			classes = new byte[count];
+			colours = new int[count];
+		}
+		System.arraycopy(scanner.getForeground(), 0, indices, 0, count);
+		for (int i = 0; i < count; ++i) {
+			int x = indices[i] % width;
+			int y = indices[i] / width;
+			classes[i] = (byte) mask.get(x, y);
+			if (mode != OutputMode.MATCH) {
+				colours[i] = reader.getRGB(x, y);
+			}
+		}
+
+		setCentroid(FrameDetections.BALL, ball, -1);
+		setCentroid(FrameDetections.YELLOW, yellow, yellowDirection);
+		setCentroid(FrameDetections.BLUE, blue, blueDirection);
+
+		synchronized (this) {
+			busy = true;
+			notify();
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the render thread. Snapshots that are submitted afterwards are
+	 * never drawn.
+	 */
+	public void stop() {
+		synchronized (this) {
+			running = false;
+			notify();
+		}
+	}
+
+	private void setCentroid(int object, Point centroid, double direction) {
+		hasCentroid[object] = centroid != null;
+		if (centroid != null) {
+			centroidX[object] = centroid.x;
+			centroidY[object] = centroid.y;
+		}
+		facingDirection[object] = direction;
+	}
+
+	/**
+	 * The body of the render thread. Waits for a snapshot, draws it and
+	 * passes the image to the consumer.
+	 */
+	private void renderOverlays() {
+		while (running) {
+			synchronized (this) {
+				while (running && !busy) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// Check if we are still running.
+					}
+				}
+				if (!running) {
+					return;
+				}
+			}
+			BufferedImage image = null;
+			try {
+				image = render();
+			} catch (RuntimeException e) {
+				// A bad snapshot should not kill the render thread.
+				e.printStackTrace();
+			}
+			busy = false;
+			if (image != null) {
+				consumer.consume(image);
+			}
+		}
+	}
+
+	/**
+	 * Draws the snapshot into the back image and makes it the front one.
+	 * The image is locked while drawing, so that a consumer that locks it
+	 * while showing it never shows half an overlay.
+	 * @return The image that was drawn.
+	 */
+	private BufferedImage render() {
+		if (images == null
+				|| images[0].getWidth() != width
+				|| images[0].getHeight() != height) {
+			images = new BufferedImage[] {
+					new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR),
+					new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR)
+			};
+		}
+		BufferedImage image = images[backImage];
+		backImage = 1 - backImage;
+		synchronized (image) {
+			byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			Arrays.fill(data, (byte) 0);
+			for (int i = 0; i < count; ++i) {
+				setPixel(data, indices[i], pixelColour(i));
+			}
+			Graphics2D graphics = image.createGraphics();
+			drawObject(graphics, FrameDetections.BLUE, Color.BLUE, ROBOT_RADIUS);
+			drawObject(graphics, FrameDetections.YELLOW, Color.YELLOW, ROBOT_RADIUS);
+			drawObject(graphics, FrameDetections.BALL, Color.RED, BALL_RADIUS);
+			graphics.dispose();
+		}
+		return image;
+	}
+
+	/**
+	 * Gets the colour of a foreground pixel of the snapshot: the colour of
+	 * its class in the match mode, or a gray level in the setup modes.
+	 * @param i The position of the pixel in the snapshot.
+	 * @return The colour as RGB.
+	 */
+	private int pixelColour(int i) {
+		if (mode == OutputMode.MATCH) {
+			return classColour(classes[i]);
+		}
+		int rgb = colours[i];
+		lch.setRGB((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+		int v;
+		switch (mode) {
+		case HUE:
+			v = lch.getHue() * 255 / 360;
+			break;
+		case LUMA:
+			v = lch.getLuma();
+			break;
+		default:
+			v = lch.getChroma();
+			break;
+		}
+		return (v << 16) | (v << 8) | v;
+	}
+
+	/**
+	 * Gets the colour that a colour class is shown with.
+	 * @param colourClass The ordinal of the colour class.
+	 * @return The colour as RGB.
+	 */
+	private int classColour(int colourClass) {
+		if (colourClass < 0 || colourClass >= COLOUR_CLASSES.length) {
+			return Color.GRAY.getRGB();
+		}
+		switch (COLOUR_CLASSES[colourClass]) {
+		case RED:
+			return Color.RED.getRGB();
+		case GREEN_PLATE:
+			return Color.GREEN.getRGB();
+		case GREEN_PITCH:
+			return 0x008000;
+		case BLUE:
+			return Color.BLUE.getRGB();
+		case YELLOW:
+			return Color.YELLOW.getRGB();
+		case GRAY:
+			return Color.DARK_GRAY.getRGB();
+		default:
+			return Color.GRAY.getRGB();
+		}
+	}
+
+	/**
+	 * Sets a pixel of an image of type TYPE_3BYTE_BGR.
+	 */
+	private void setPixel(byte[] data, int index, int rgb) {
+		int offset = index * 3;
+		data[offset] = (byte) rgb;
+		data[offset + 1] = (byte) (rgb >> 8);
+		data[offset + 2] = (byte) (rgb >> 16);
+	}
+
+	/**
+	 * Draws a circle around the centroid of an object, if it was found, and
+	 * the direction it is facing, if known.
+	 * @param graphics The graphics of the image.
+	 * @param object The object to draw.
+	 * @param colour The colour of the circle.
+	 * @param radius The radius of the circle.
+	 */
+	private void drawObject(Graphics2D graphics, int object, Color colour,
+			int radius) {
+		if (!hasCentroid[object]) {
+			return;
+		}
+		int x = centroidX[object];
+		int y = centroidY[object];
+		graphics.setColor(colour);
+		graphics.drawOval(x - radius, y - radius, 2 * radius, 2 * radius);
+		double direction = facingDirection[object];
+		if (direction >= 0) {
+			// The Y coordinate of the image grows from top to bottom.
+			double angle = Math.toRadians(direction);
+			graphics.setColor(Color.WHITE);
+			graphics.drawLine(x, y,
+					x + (int) Math.round(DIRECTION_LENGTH * Math.cos(angle)),
+					y - (int) Math.round(DIRECTION_LENGTH * Math.sin(angle)));
+		}
+	}
+}
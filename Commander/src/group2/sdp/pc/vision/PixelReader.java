@@ -0,0 +1,117 @@
+package group2.sdp.pc.vision;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Reads packed RGB values straight from the data buffer of an image, without
+ * going through its colour model. Byte images with three or four interleaved
+ * bands (e.g. the frames of the {@link Eye} and TYPE_3BYTE_BGR) and int RGB
+ * images are read directly; any other image falls back to getRGB.
+ *
+ * Setting a new image does not allocate, so a reader can be reused for
+ * every frame.
+ */
+public class PixelReader {
+
+	private BufferedImage image;
+
+	private byte[] bytes;
+	private int[] ints;
+
+	/**
+	 * The index of pixel (0, 0) in the data array.
+	 */
+	private int base;
+	private int pixelStride;
+	private int scanlineStride;
+	private int redOffset, greenOffset, blueOffset;
+
+	private int width, height;
+
+	/**
+	 * Starts reading the given image.
+	 * @param image The image to read.
+	 */
+	public void setImage(BufferedImage image) {
+		if (image == this.image) {
+			return;
+		}
+		this.image = image;
+		width = image.getWidth();
+		height = image.getHeight();
+		bytes = null;
+		ints = null;
+
+		WritableRaster raster = image.getRaster();
+		DataBuffer buffer = raster.getDataBuffer();
+		SampleModel model = raster.getSampleModel();
+		int translateX = raster.getSampleModelTranslateX();
+		int translateY = raster.getSampleModelTranslateY();
+
+		if (buffer instanceof DataBufferByte
+				&& model instanceof ComponentSampleModel
+				&& model.getNumBands() >= 3) {
+			ComponentSampleModel csm = (ComponentSampleModel) model;
+			bytes = ((DataBufferByte) buffer).getData();
+			pixelStride = csm.getPixelStride();
+			scanlineStride = csm.getScanlineStride();
+			// getOffset(0, 0, band) is the offset of the band; no copy made.
+			// The bands are in the order of the colour model, R, G, B (and
+			// A), whatever the order of the bytes in memory.
+			redOffset = csm.getOffset(0, 0, 0);
+			greenOffset = csm.getOffset(0, 0, 1);
+			blueOffset = csm.getOffset(0, 0, 2);
+			base = buffer.getOffset()
+				- translateY * scanlineStride
+				- translateX * pixelStride;
+		} else if (buffer instanceof DataBufferInt
+				&& (image.getType() == BufferedImage.TYPE_INT_RGB
+						|| image.getType() == BufferedImage.TYPE_INT_ARGB)) {
+			ints = ((DataBufferInt) buffer).getData();
+			pixelStride = 1;
+			scanlineStride = width;
+			base = buffer.getOffset() - translateY * scanlineStride - translateX;
+		}
+	}
+
+	/**
+	 * Gets the colour of the given pixel.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
+	 * @return The colour as 0xRRGGBB.
+	 */
+	public int getRGB(int x, int y) {
+		if (bytes != null) {
+			int i = base + y * scanlineStride + x * pixelStride;
+			return ((bytes[i + redOffset] & 0xFF) << 16)
+				| ((bytes[i + greenOffset] & 0xFF) << 8)
+				| (bytes[i + blueOffset] & 0xFF);
+		} else if (ints != null) {
+			return ints[base + y * scanlineStride + x] & 0xFFFFFF;
+		} else {
+			return image.getRGB(x, y) & 0xFFFFFF;
+		}
+	}
+
+	/**
+	 * Get the width of the image being read.
+	 * @return The width of the image being read.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the image being read.
+	 * @return The height of the image being read.
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
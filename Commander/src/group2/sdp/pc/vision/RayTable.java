@@ -0,0 +1,62 @@
+package group2.sdp.pc.vision;
+
+/**
+ *<p><b>RayTable:</b> Precomputed rays for ray casting</br>
+ *<p><b>Description:</b></br>
+ *For each whole degree, the offsets of the pixels of a ray going out from a
+ *point at that angle, one pixel per step. The offset of step k at angle deg
+ *is the point (k, 0) rotated by deg degrees around the origin and rounded,
+ *exactly as {@link VisualCortex#rotatePoint} does, so that walking a ray
+ *needs no trigonometry and no allocation.
+ */
+public class RayTable {
+
+	/**
+	 * The number of steps of each ray; longer than any T.
+	 */
+	public static final int MAX_LENGTH = 128;
+
+	/**
+	 * The offsets, indexed by degree * MAX_LENGTH + step.
+	 */
+	private static final int[] DX = new int[360 * MAX_LENGTH];
+	private static final int[] DY = new int[360 * MAX_LENGTH];
+
+	static {
+		for (int deg = 0; deg < 360; ++deg) {
+			double rad = Math.toRadians(deg);
+			double cosAngle = Math.cos(rad);
+			double sinAngle = Math.sin(rad);
+			for (int k = 0; k < MAX_LENGTH; ++k) {
+				DX[deg * MAX_LENGTH + k] = (int) Math.round(k * cosAngle);
+				DY[deg * MAX_LENGTH + k] = (int) Math.round(k * sinAngle);
+			}
+		}
+	}
+
+	/**
+	 * Brings an angle in degrees to [0, 360).
+	 */
+	public static int normalise(int deg) {
+		deg %= 360;
+		return deg < 0 ? deg + 360 : deg;
+	}
+
+	/**
+	 * Gets the x offset of a step of a ray.
+	 * @param deg The angle of the ray, in [0, 360).
+	 * @param step The step, in [0, {@link #MAX_LENGTH}).
+	 */
+	public static int getX(int deg, int step) {
+		return DX[deg * MAX_LENGTH + step];
+	}
+
+	/**
+	 * Gets the y offset of a step of a ray.
+	 * @param deg The angle of the ray, in [0, 360).
+	 * @param step The step, in [0, {@link #MAX_LENGTH}).
+	 */
+	public static int getY(int deg, int step) {
+		return DY[deg * MAX_LENGTH + step];
+	}
+}
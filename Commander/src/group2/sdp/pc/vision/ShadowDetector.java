@@ -0,0 +1,377 @@
+package group2.sdp.pc.vision;
+
+import group2.sdp.pc.vision.skeleton.Detector;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
+
+import java.awt.image.BufferedImage;
+
+/**
+ *<p><b>ShadowDetector:</b> A candidate detector on trial</br>
+ *<p><b>Description:</b></br>
+ *Runs a candidate {@link Detector} on the frames of the active one, on its
+ *own thread, and compares the two: how long each takes per frame, how far
+ *apart the positions they find are, how far apart the directions of the
+ *robots are and how often only one of them finds an object. A faster
+ *detector can thus be tried during a match without affecting it.
+ *<p><b>Policy:</b></br>
+ *The active detector submits every frame with its detections. The frame is
+ *copied only if the candidate is done with the previous one; otherwise it
+ *is skipped, so the processing thread never waits for the candidate.
+ */
+public class ShadowDetector {
+
+	private static final boolean VERBOSE = false;
+
+	/**
+	 * The number of compared frames between two reports.
+	 */
+	private static final int REPORT_INTERVAL = 250;
+
+	private static final String[] OBJECT_NAMES = { "Ball", "Yellow", "Blue" };
+
+	/**
+	 * The detector on trial.
+	 */
+	private Detector candidate;
+
+	/**
+	 * The copy of the last submitted frame and the detections of the active
+	 * detector on it. The processing thread only writes them while busy is
+	 * false and the shadow thread only reads them while it is true.
+	 */
+	private BufferedImage frame;
+	private FrameDetections active = new FrameDetections();
+	private long activeNanos;
+	private volatile boolean busy;
+
+	/**
+	 * A copy of a background that the candidate has not been given yet.
+	 */
+	private BufferedImage pendingBackground;
+
+	/**
+	 * Indicates if the shadow thread should keep running.
+	 */
+	private volatile boolean running;
+
+	private Thread shadowThread;
+
+	/**
+	 * The statistics of the comparison. Positions are in centimetres,
+	 * angles in degrees and times in nanoseconds.
+	 */
+	private long comparedFrames;
+	private long skippedFrames;
+	private long activeNanosSum;
+	private long candidateNanosSum;
+	private long candidateNanosMax;
+	private int[] foundMismatches = new int[FrameDetections.OBJECT_COUNT];
+	private int[] positionCount = new int[FrameDetections.OBJECT_COUNT];
+	private double[] positionErrorSum = new double[FrameDetections.OBJECT_COUNT];
+	private double[] positionErrorMax = new double[FrameDetections.OBJECT_COUNT];
+	private int[] angleCount = new int[FrameDetections.OBJECT_COUNT];
+	private double[] angleErrorSum = new double[FrameDetections.OBJECT_COUNT];
+	private double[] angleErrorMax = new double[FrameDetections.OBJECT_COUNT];
+
+
+	/**
+	 * Starts the thread that runs the given candidate detector.
+	 * @param candidate The detector on trial. It is only used on the shadow
+	 * thread.
+	 */
+	public ShadowDetector(Detector candidate) {
+		this.candidate = candidate;
+		running = true;
+		shadowThread = new Thread("ShadowDetector") {
+			public void run() {
+				compareFrames();
+			}
+		};
+		shadowThread.setDaemon(true);
+		shadowThread.start();
+	}
+
+	/**
+	 * Passes a background to the candidate, before the next frame it
+	 * detects.
+	 * @param background The image of the empty pitch; it is copied.
+	 */
+	public void setBackground(BufferedImage background) {
+		BufferedImage copy = OpticNerve.createCompatibleImage(background);
+		OpticNerve.copyFrame(background, copy);
+		synchronized (this) {
+			pendingBackground = copy;
+		}
+	}
+
+	/**
+	 * Submits a frame and the detections of the active detector on it.
+	 * Called on the processing thread; the frame is skipped if the
+	 * candidate is still busy with the previous one.
+	 * @param image The frame.
+	 * @param detections The detections of the active detector.
+	 * @param nanos The time the active detector took, in nanoseconds.
+	 * @return True if the frame was taken.
+	 */
+	public boolean submit(BufferedImage image, FrameDetections detections,
+			long nanos) {
+		if (busy) {
+			synchronized (this) {
+				++skippedFrames;
+			}
+			return false;
+		}
+		if (frame == null
+				|| frame.getWidth() != image.getWidth()
+				|| frame.getHeight() != image.getHeight()
+				|| frame.getType() != image.getType()) {
+			frame = OpticNerve.createCompatibleImage(image);
+		}
+		OpticNerve.copyFrame(image, frame);
+		active.reset();
+		for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+			if (detections.isFound(object)) {
+				active.setFound(object, detections.getX(object),
+						detections.getY(object),
+						detections.getConfidence(object),
+						detections.getPixelCount(object));
+			}
+			active.setFacingDirection(object,
+					detections.getFacingDirection(object));
+		}
+		activeNanos = nanos;
+		synchronized (this) {
+			busy = true;
+			notify();
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the shadow thread, which then shuts the candidate down. Frames
+	 * that are submitted afterwards are never compared.
+	 */
+	public void stop() {
+		synchronized (this) {
+			running = false;
+			notify();
+		}
+	}
+
+	/**
+	 * Waits until the shadow thread has stopped and shut the candidate down.
+	 * @throws InterruptedException If the current thread is interrupted.
+	 */
+	public void join() throws InterruptedException {
+		shadowThread.join();
+	}
+
+	/**
+	 * The body of the shadow thread. Waits for a frame, runs the candidate
+	 * on it and compares the result to the active detections. Shuts the 
+	 * candidate down when stopped.
+	 */
+	private void compareFrames() {
+		try {
+			while (running) {
+				BufferedImage background;
+				synchronized (this) {
+					while (running && !busy) {
+						try {
+							wait();
+						} catch (InterruptedException e) {
+							// Check if we are still running.
+						}
+					}
+					if (!running) {
+						return;
+					}
+					background = pendingBackground;
+					pendingBackground = null;
+				}
+				try {
+					if (background != null) {
+						candidate.setBackground(background);
+					}
+					long start = System.nanoTime();
+					FrameDetections detections = candidate.detect(frame);
+					long nanos = System.nanoTime() - start;
+					compare(detections, nanos);
+				} catch (RuntimeException e) {
+					// A bad frame should not kill the shadow thread.
+					e.printStackTrace();
+				}
+				busy = false;
+			}
+		} finally {
+			candidate.shutdown();
+		}
+	}
+
+	/**
+	 * Adds the differences between the candidate and the active detections
+	 * of a frame to the statistics.
+	 * @param detections The detections of the candidate.
+	 * @param nanos The time the candidate took, in nanoseconds.
+	 */
+	private synchronized void compare(FrameDetections detections, long nanos) {
+		++comparedFrames;
+		activeNanosSum += activeNanos;
+		candidateNanosSum += nanos;
+		candidateNanosMax = Math.max(candidateNanosMax, nanos);
+		for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+			if (active.isFound(object) != detections.isFound(object)) {
+				++foundMismatches[object];
+				continue;
+			}
+			if (!active.isFound(object)) {
+				continue;
+			}
+			double dx = active.getX(object) - detections.getX(object);
+			double dy = active.getY(object) - detections.getY(object);
+			double error = Math.sqrt(dx * dx + dy * dy);
+			++positionCount[object];
+			positionErrorSum[object] += error;
+			positionErrorMax[object] = Math.max(positionErrorMax[object], error);
+
+			double a = active.getFacingDirection(object);
+			double b = detections.getFacingDirection(object);
+			if (a >= 0 && b >= 0) {
+				double angle = Math.abs(a - b) % 360;
+				if (angle > 180) {
+					angle = 360 - angle;
+				}
+				++angleCount[object];
+				angleErrorSum[object] += angle;
+				angleErrorMax[object] = Math.max(angleErrorMax[object], angle);
+			}
+		}
+		if (VERBOSE && comparedFrames % REPORT_INTERVAL == 0) {
+			System.out.println(getReport());
+		}
+	}
+
+	/**
+	 * Forgets the statistics collected so far.
+	 */
+	public synchronized void resetStatistics() {
+		comparedFrames = skippedFrames = 0;
+		activeNanosSum = candidateNanosSum = candidateNanosMax = 0;
+		for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+			foundMismatches[object] = positionCount[object] = angleCount[object] = 0;
+			positionErrorSum[object] = positionErrorMax[object] = 0;
+			angleErrorSum[object] = angleErrorMax[object] = 0;
+		}
+	}
+
+	/**
+	 * Gets a summary of the statistics, one line per object.
+	 * @return The summary.
+	 */
+	public synchronized String getReport() {
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(
+				"Shadow: %d frames compared, %d skipped; " +
+				"active %.2f ms, candidate %.2f ms (max %.2f ms)",
+				comparedFrames, skippedFrames,
+				getMeanActiveLatency(), getMeanCandidateLatency(),
+				candidateNanosMax / 1e6));
+		for (int object = 0; object < FrameDetections.OBJECT_COUNT; ++object) {
+			report.append(String.format(
+					"%n  %-6s position %.2f cm (max %.2f), " +
+					"direction %.1f deg (max %.1f), %d found by one only",
+					OBJECT_NAMES[object],
+					getMeanPositionError(object), positionErrorMax[object],
+					getMeanAngleError(object), angleErrorMax[object],
+					foundMismatches[object]));
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Get the number of frames that were compared.
+	 * @return The number of frames that were compared.
+	 */
+	public synchronized long getComparedFrames() {
+		return comparedFrames;
+	}
+
+	/**
+	 * Get the number of frames that were skipped, since the candidate was
+	 * busy.
+	 * @return The number of frames that were skipped.
+	 */
+	public synchronized long getSkippedFrames() {
+		return skippedFrames;
+	}
+
+	/**
+	 * Get the mean time the active detector took on the compared frames.
+	 * @return The mean time, in milliseconds.
+	 */
+	public synchronized double getMeanActiveLatency() {
+		return comparedFrames == 0 ? 0 : activeNanosSum / 1e6 / comparedFrames;
+	}
+
+	/**
+	 * Get the mean time the candidate took on the compared frames.
+	 * @return The mean time, in milliseconds.
+	 */
+	public synchronized double getMeanCandidateLatency() {
+		return comparedFrames == 0 ? 0 : candidateNanosSum / 1e6 / comparedFrames;
+	}
+
+	/**
+	 * Get the number of frames in which only one of the detectors found the
+	 * given object.
+	 * @param object See {@link FrameDetections}.
+	 * @return The number of frames.
+	 */
+	public synchronized int getFoundMismatches(int object) {
+		return foundMismatches[object];
+	}
+
+	/**
+	 * Get the mean distance between the positions of an object found by the
+	 * two detectors, over the frames in which both found it.
+	 * @param object See {@link FrameDetections}.
+	 * @return The mean distance, in centimetres.
+	 */
+	public synchronized double getMeanPositionError(int object) {
+		return positionCount[object] == 0
+			? 0
+			: positionErrorSum[object] / positionCount[object];
+	}
+
+	/**
+	 * Get the largest distance between the positions of an object found by
+	 * the two detectors.
+	 * @param object See {@link FrameDetections}.
+	 * @return The largest distance, in centimetres.
+	 */
+	public synchronized double getMaxPositionError(int object) {
+		return positionErrorMax[object];
+	}
+
+	/**
+	 * Get the mean difference between the directions of a robot found by
+	 * the two detectors, over the frames in which both found one.
+	 * @param object {@link FrameDetections#YELLOW} or {@link FrameDetections#BLUE}.
+	 * @return The mean difference, in degrees.
+	 */
+	public synchronized double getMeanAngleError(int object) {
+		return angleCount[object] == 0
+			? 0
+			: angleErrorSum[object] / angleCount[object];
+	}
+
+	/**
+	 * Get the largest difference between the directions of a robot found
+	 * by the two detectors.
+	 * @param object {@link FrameDetections#YELLOW} or {@link FrameDetections#BLUE}.
+	 * @return The largest difference, in degrees.
+	 */
+	public synchronized double getMaxAngleError(int object) {
+		return angleErrorMax[object];
+	}
+}
@@ -0,0 +1,343 @@
+package group2.sdp.pc.vision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *<p><b>StripeScanner:</b> A parallel frame scanner</br>
+ *<p><b>Description:</b></br>
+ *Splits a region of a frame into horizontal stripes and processes them in
+ *parallel on a fixed pool of threads: each stripe is scanned by its own
+ *{@link FrameScanner} and the pixels of each object in it are split into
+ *connected areas by a {@link BlobFinder}. The results are then joined in
+ *the order of the stripes, and the areas that cross the border of two
+ *stripes are merged.
+ *<p><b>Note:</b></br>
+ *The result is exactly the one of a single FrameScanner and BlobFinder
+ *going over the whole region: the same pixels in the same order, the same
+ *sums, and the same largest areas.
+ */
+public class StripeScanner {
+
+	/**
+	 * The number of stripes, which is also the number of threads.
+	 */
+	private int parallelism;
+
+	private ExecutorService executor;
+
+	private FrameScanner[] stripes;
+	/**
+	 * The labellers of the objects in each stripe: [stripe][object].
+	 */
+	private BlobFinder[][] finders;
+	/**
+	 * The tasks that process the stripes; reused between frames.
+	 */
+	private List<StripeTask> tasks;
+
+	/**
+	 * The joined result of the last scan.
+	 */
+	private FrameScanner result;
+
+	/**
+	 * For each object, the number of the first merged area of each stripe,
+	 * i.e. the areas of stripe s are numbered from areaBase[object][s].
+	 */
+	private int[][] areaBase;
+
+	/**
+	 * The union-find forest over the areas of all stripes, of each object,
+	 * and the sizes of the merged areas (valid at the roots).
+	 */
+	private int[][] areaParent;
+	private int[][] areaSize;
+
+	/**
+	 * Marks the pixels of the last row of a stripe with one plus their
+	 * area, while merging; all 0 otherwise.
+	 */
+	private int[] borderLabels = new int[0];
+
+
+	/**
+	 * Processes one stripe.
+	 */
+	private class StripeTask implements Callable<Object> {
+		private int stripe;
+		private PixelReader reader;
+		private BackgroundModel background;
+		private ColourLookupTable colourTable;
+		private ColourClassMask mask;
+		private TileSignatures tiles;
+		private int minX, minY, maxX, maxY, threshold;
+
+		public StripeTask(int stripe) {
+			this.stripe = stripe;
+		}
+
+		@Override
+		public Object call() {
+			FrameScanner scanner = stripes[stripe];
+			scanner.scan(reader, background, colourTable, mask,
+					minX, minY, maxX, maxY, threshold, tiles);
+			for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+				finders[stripe][object].label(scanner.getPixels(object));
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * Starts the threads that process the stripes.
+	 * @param parallelism The number of stripes and threads.
+	 */
+	public StripeScanner(int parallelism) {
+		this.parallelism = parallelism;
+		executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+			private int count = 0;
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "StripeScanner-" + (count++));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		stripes = new FrameScanner[parallelism];
+		finders = new BlobFinder[parallelism][FrameScanner.OBJECT_COUNT];
+		tasks = new ArrayList<StripeTask>(parallelism);
+		for (int s = 0; s < parallelism; ++s) {
+			stripes[s] = new FrameScanner();
+			for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+				finders[s][object] = new BlobFinder();
+			}
+			tasks.add(new StripeTask(s));
+		}
+		areaBase = new int[FrameScanner.OBJECT_COUNT][parallelism + 1];
+		areaParent = new int[FrameScanner.OBJECT_COUNT][0];
+		areaSize = new int[FrameScanner.OBJECT_COUNT][0];
+	}
+
+	/**
+	 * Scans a region of the frame, see {@link FrameScanner#scan}, and finds
+	 * the connected areas of the objects in it. The stripes fill disjoint 
+	 * parts of the mask.
+	 * @param tiles The tiles that changed, or null to scan the whole region;
+	 * see {@link FrameScanner#scan(PixelReader, BackgroundModel, ColourLookupTable, ColourClassMask, int, int, int, int, int, TileSignatures)}.
+	 * @param result The scanner to put the joined result in. It is reset
+	 * first. If the scan is interrupted, it is left empty.
+	 */
+	public void scan(PixelReader reader, BackgroundModel background,
+			ColourLookupTable colourTable, ColourClassMask mask, int minX, 
+			int minY, int maxX, int maxY, int threshold, TileSignatures tiles,
+			FrameScanner result) {
+		this.result = result;
+		int width = reader.getWidth();
+		int height = maxY - minY;
+		int stripeY = minY;
+		for (int s = 0; s < parallelism; ++s) {
+			// Spread the rows as evenly as possible.
+			int nextY = minY + (int) ((long) height * (s + 1) / parallelism);
+			StripeTask task = tasks.get(s);
+			task.reader = reader;
+			task.background = background;
+			task.colourTable = colourTable;
+			task.mask = mask;
+			task.tiles = tiles;
+			task.minX = minX;
+			task.maxX = maxX;
+			task.minY = stripeY;
+			task.maxY = nextY;
+			task.threshold = threshold;
+			stripes[s].reset(width, Math.max(0, maxX - minX) * (nextY - stripeY));
+			stripeY = nextY;
+		}
+		try {
+			// The futures rethrow what the tasks threw.
+			for (Future<Object> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			// Some stripes may still be being scanned; leave them alone and
+			// find nothing in this frame.
+			Thread.currentThread().interrupt();
+			result.reset(width, 0);
+			for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+				Arrays.fill(areaBase[object], 0);
+			}
+			return;
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+			// All tasks are done; scan the stripes again on this thread, so
+			// that no stripe of an earlier frame is merged.
+			for (StripeTask task : tasks) {
+				task.call();
+			}
+		}
+
+		result.reset(width, 0);
+		for (int s = 0; s < parallelism; ++s) {
+			result.append(stripes[s]);
+		}
+		for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+			mergeAreas(object, width);
+		}
+	}
+
+	/**
+	 * Merges the areas of an object that meet at the borders of the stripes.
+	 * @param object The object.
+	 * @param width The width of the frame.
+	 */
+	private void mergeAreas(int object, int width) {
+		int[] base = areaBase[object];
+		base[0] = 0;
+		for (int s = 0; s < parallelism; ++s) {
+			base[s + 1] = base[s] + finders[s][object].getAreaCount();
+		}
+		int areaCount = base[parallelism];
+		if (areaParent[object].length < areaCount) {
+			areaParent[object] = new int[areaCount * 2];
+			areaSize[object] = new int[areaCount * 2];
+		}
+		int[] parent = areaParent[object];
+		int[] size = areaSize[object];
+		for (int s = 0; s < parallelism; ++s) {
+			BlobFinder finder = finders[s][object];
+			for (int area = 0; area < finder.getAreaCount(); ++area) {
+				parent[base[s] + area] = base[s] + area;
+				size[base[s] + area] = finder.getSize(area);
+			}
+		}
+		if (borderLabels.length < width) {
+			borderLabels = new int[width];
+		}
+		for (int s = 1; s < parallelism; ++s) {
+			Blob above = stripes[s - 1].getPixels(object);
+			Blob below = stripes[s].getPixels(object);
+			int borderY = tasks.get(s).minY;
+			if (above.getSize() == 0 || below.getSize() == 0
+					|| above.getMaxY() != borderY - 1 || below.getMinY() != borderY) {
+				continue;
+			}
+			// The pixels are in raster order, so the last row of the stripe
+			// above is at the end of its blob, the first row of the stripe
+			// below at the start of its blob.
+			int end = above.getSize();
+			int start = end;
+			while (start > 0 && above.getY(start - 1) == borderY - 1) {
+				--start;
+			}
+			BlobFinder aboveFinder = finders[s - 1][object];
+			for (int p = start; p < end; ++p) {
+				borderLabels[above.getX(p)] = base[s - 1] + aboveFinder.getAreaOf(p) + 1;
+			}
+			BlobFinder belowFinder = finders[s][object];
+			for (int p = 0; p < below.getSize() && below.getY(p) == borderY; ++p) {
+				int label = borderLabels[below.getX(p)];
+				if (label != 0) {
+					union(parent, label - 1, base[s] + belowFinder.getAreaOf(p));
+				}
+			}
+			for (int p = start; p < end; ++p) {
+				borderLabels[above.getX(p)] = 0;
+			}
+		}
+		// Sum up the sizes at the roots. The root of an area comes before
+		// the rest of it, so its size is final when its parts are added.
+		for (int area = 0; area < areaCount; ++area) {
+			int root = find(parent, area);
+			if (root != area) {
+				size[root] += size[area];
+			}
+		}
+	}
+
+	private static int find(int[] parent, int p) {
+		while (parent[p] != p) {
+			parent[p] = parent[parent[p]];
+			p = parent[p];
+		}
+		return p;
+	}
+
+	/**
+	 * Joins two areas; the smaller number becomes the root, so that the
+	 * merged areas keep the order of their first pixels.
+	 */
+	private static void union(int[] parent, int p, int q) {
+		int rootP = find(parent, p);
+		int rootQ = find(parent, q);
+		if (rootP < rootQ) {
+			parent[rootQ] = rootP;
+		} else if (rootQ < rootP) {
+			parent[rootP] = rootQ;
+		}
+	}
+
+	/**
+	 * Finds the largest connected area of the pixels of an object in the
+	 * last scan, like {@link BlobFinder#getLargestArea()}. If it holds all
+	 * the pixels of the object, the pixels of the joined result are
+	 * returned as they are. Otherwise the pixels of the area are put in the
+	 * given blob.
+	 * @param object The object.
+	 * @param area A blob to put the largest area in.
+	 * @return The largest area.
+	 */
+	public Blob getGreatestArea(int object, Blob area) {
+		Blob pixels = result.getPixels(object);
+		area.reset(pixels.getWidth());
+		int[] parent = areaParent[object];
+		int[] size = areaSize[object];
+		int areaCount = areaBase[object][parallelism];
+		int best = -1;
+		for (int a = 0; a < areaCount; ++a) {
+			if (parent[a] == a && (best == -1 || size[a] > size[best])) {
+				best = a;
+			}
+		}
+		if (best == -1) {
+			return area;
+		}
+		if (size[best] == pixels.getSize()) {
+			return pixels;
+		}
+		for (int s = 0; s < parallelism; ++s) {
+			Blob stripePixels = stripes[s].getPixels(object);
+			BlobFinder finder = finders[s][object];
+			int base = areaBase[object][s];
+			for (int p = 0; p < stripePixels.getSize(); ++p) {
+				if (find(parent, base + finder.getAreaOf(p)) == best) {
+					area.add(stripePixels.getPixel(p), stripePixels.getX(p),
+							stripePixels.getY(p), stripePixels.getWeight(p));
+				}
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * Get the number of stripes, which is also the number of threads.
+	 * @return The number of stripes.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Stops the threads.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,205 @@
+package group2.sdp.pc.vision;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ *<p><b>TileSignatures:</b> Finds the parts of a frame that changed</br>
+ *<p><b>Description:</b></br>
+ *Splits the scanned part of the frame in {@link #TILE_SIZE} tiles and keeps
+ *a signature of each: a sparse grid of its pixels, as they were when the
+ *tile was last scanned. A tile has changed if any of those pixels differs
+ *from the current frame by more than a tolerance; the eight neighbours of
+ *a changed tile are treated as changed too, so that the edges of moving
+ *objects are not missed. The results of the unchanged tiles can then be
+ *reused instead of scanning them again.
+ *<p><b>Note:</b></br>
+ *Each tile is rescanned at least every {@link #REFRESH_PERIOD} frames, so
+ *that changes that fall between the sampled pixels do not last.
+ */
+public class TileSignatures {
+
+	/**
+	 * The side of the tiles, in pixels.
+	 */
+	public static final int TILE_SIZE = 16;
+	/**
+	 * The distance between the sampled pixels of a tile.
+	 */
+	private static final int SAMPLE_STEP = 4;
+	private static final int SAMPLES_PER_TILE =
+		(TILE_SIZE / SAMPLE_STEP) * (TILE_SIZE / SAMPLE_STEP);
+	/**
+	 * The largest number of frames a tile is reused for.
+	 */
+	private static final int REFRESH_PERIOD = 30;
+
+	/**
+	 * The part of the frame covered by the tiles.
+	 */
+	private Rectangle bounds = new Rectangle();
+	private int tilesAcross, tilesDown;
+
+	/**
+	 * The sampled pixels of each tile, indexed by
+	 * tile * SAMPLES_PER_TILE + sample.
+	 */
+	private int[] samples = new int[0];
+	/**
+	 * The number of frames since each tile was last scanned.
+	 */
+	private int[] ages = new int[0];
+	/**
+	 * Which tiles differ from the samples, before and after adding their
+	 * neighbours.
+	 */
+	private boolean[] differs = new boolean[0];
+	private boolean[] changed = new boolean[0];
+	private int changedCount;
+
+	/**
+	 * Indicates whether the samples are from the last frame scanned.
+	 */
+	private boolean valid;
+
+
+	/**
+	 * Forgets the samples, so that all the tiles are changed in the next
+	 * update; e.g. when the background or the last scan was different.
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	/**
+	 * Compares the tiles of the given part of the frame with their samples,
+	 * and takes new samples of the ones that changed, which are about to be
+	 * scanned.
+	 * @param reader The reader of the frame.
+	 * @param bounds The part of the frame to scan.
+	 * @param tolerance The largest sum of the absolute differences of the
+	 * channels of a sampled pixel from its sample, for the tile to be
+	 * unchanged.
+	 * @return The number of changed tiles.
+	 */
+	public int update(PixelReader reader, Rectangle bounds, int tolerance) {
+		if (!valid || !this.bounds.equals(bounds)) {
+			this.bounds.setBounds(bounds);
+			tilesAcross = (bounds.width + TILE_SIZE - 1) / TILE_SIZE;
+			tilesDown = (bounds.height + TILE_SIZE - 1) / TILE_SIZE;
+			int tileCount = tilesAcross * tilesDown;
+			if (changed.length < tileCount) {
+				samples = new int[tileCount * SAMPLES_PER_TILE];
+				ages = new int[tileCount];
+				differs = new boolean[tileCount];
+				changed = new boolean[tileCount];
+			}
+			Arrays.fill(differs, 0, tileCount, true);
+			valid = true;
+		} else {
+			for (int tile = 0; tile < tilesAcross * tilesDown; ++tile) {
+				differs[tile] = ages[tile] >= REFRESH_PERIOD
+					|| differsFromSamples(reader, tile, tolerance);
+			}
+		}
+
+		changedCount = 0;
+		for (int tileY = 0; tileY < tilesDown; ++tileY) {
+			for (int tileX = 0; tileX < tilesAcross; ++tileX) {
+				int tile = tileY * tilesAcross + tileX;
+				changed[tile] = differsAround(tileX, tileY);
+				if (changed[tile]) {
+					takeSamples(reader, tile);
+					ages[tile] = 0;
+					++changedCount;
+				} else {
+					++ages[tile];
+				}
+			}
+		}
+		return changedCount;
+	}
+
+	/**
+	 * Checks if a tile or any of the eight tiles around it differs from its
+	 * samples.
+	 */
+	private boolean differsAround(int tileX, int tileY) {
+		for (int y = Math.max(0, tileY - 1); y <= Math.min(tilesDown - 1, tileY + 1); ++y) {
+			for (int x = Math.max(0, tileX - 1); x <= Math.min(tilesAcross - 1, tileX + 1); ++x) {
+				if (differs[y * tilesAcross + x]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if any of the sampled pixels of a tile changed.
+	 */
+	private boolean differsFromSamples(PixelReader reader, int tile, int tolerance) {
+		int minX = bounds.x + (tile % tilesAcross) * TILE_SIZE;
+		int minY = bounds.y + (tile / tilesAcross) * TILE_SIZE;
+		int maxX = Math.min(minX + TILE_SIZE, bounds.x + bounds.width);
+		int maxY = Math.min(minY + TILE_SIZE, bounds.y + bounds.height);
+		int s = tile * SAMPLES_PER_TILE;
+		for (int y = minY + SAMPLE_STEP / 2; y < maxY; y += SAMPLE_STEP) {
+			for (int x = minX + SAMPLE_STEP / 2; x < maxX; x += SAMPLE_STEP) {
+				int rgb = reader.getRGB(x, y);
+				int sample = samples[s++];
+				int delta =
+					Math.abs(((rgb >> 16) & 0xFF) - ((sample >> 16) & 0xFF)) +
+					Math.abs(((rgb >> 8) & 0xFF) - ((sample >> 8) & 0xFF)) +
+					Math.abs((rgb & 0xFF) - (sample & 0xFF));
+				if (delta > tolerance) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Takes the samples of a tile from the frame.
+	 */
+	private void takeSamples(PixelReader reader, int tile) {
+		int minX = bounds.x + (tile % tilesAcross) * TILE_SIZE;
+		int minY = bounds.y + (tile / tilesAcross) * TILE_SIZE;
+		int maxX = Math.min(minX + TILE_SIZE, bounds.x + bounds.width);
+		int maxY = Math.min(minY + TILE_SIZE, bounds.y + bounds.height);
+		int s = tile * SAMPLES_PER_TILE;
+		for (int y = minY + SAMPLE_STEP / 2; y < maxY; y += SAMPLE_STEP) {
+			for (int x = minX + SAMPLE_STEP / 2; x < maxX; x += SAMPLE_STEP) {
+				samples[s++] = reader.getRGB(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the tile of the given pixel changed in the last update.
+	 * @param x The x coordinate of the pixel, within the bounds.
+	 * @param y The y coordinate of the pixel, within the bounds.
+	 * @return True if the tile of the pixel has to be scanned.
+	 */
+	public boolean isChanged(int x, int y) {
+		return changed[((y - bounds.y) / TILE_SIZE) * tilesAcross
+		               + (x - bounds.x) / TILE_SIZE];
+	}
+
+	/**
+	 * Get the number of tiles that changed in the last update.
+	 * @return The number of changed tiles.
+	 */
+	public int getChangedCount() {
+		return changedCount;
+	}
+
+	/**
+	 * Get the number of tiles.
+	 * @return The number of tiles.
+	 */
+	public int getTileCount() {
+		return tilesAcross * tilesDown;
+	}
+}
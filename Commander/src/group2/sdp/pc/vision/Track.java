@@ -0,0 +1,81 @@
+package group2.sdp.pc.vision;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+/**
+ * The recent positions of an object on the pitch (the ball or a robot), in
+ * pixels. Used by the {@link VisualCortex} to predict where to look for the
+ * object in the next frame.
+ */
+public class Track {
+
+	/**
+	 * Indicates whether the object was found in the last frame.
+	 */
+	private boolean found;
+
+	/**
+	 * The position of the object in the last frame it was found in.
+	 */
+	private int x, y;
+
+	/**
+	 * The displacement of the object between the last two frames it was
+	 * found in, in pixels per frame.
+	 */
+	private int dx, dy;
+
+
+	/**
+	 * Records the position of the object in the current frame.
+	 * @param position The position of the object, or null if it was not
+	 * found.
+	 */
+	public void update(Point position) {
+		if (position == null) {
+			found = false;
+			dx = dy = 0;
+			return;
+		}
+		if (found) {
+			dx = position.x - x;
+			dy = position.y - y;
+		} else {
+			dx = dy = 0;
+		}
+		x = position.x;
+		y = position.y;
+		found = true;
+	}
+
+	/**
+	 * Forgets the object, e.g. when the background changes.
+	 */
+	public void reset() {
+		found = false;
+		dx = dy = 0;
+	}
+
+	/**
+	 * Computes the window where the object should be in the next frame: a
+	 * square around its predicted position, whose size grows with the speed
+	 * of the object.
+	 * @param window The rectangle to store the window in.
+	 * @param radius The half-size of the window for an object at rest.
+	 * @param speedFactor How many frames' worth of movement to add to the
+	 * radius.
+	 */
+	public void getSearchWindow(Rectangle window, int radius, int speedFactor) {
+		int r = radius + speedFactor * Math.max(Math.abs(dx), Math.abs(dy));
+		window.setBounds(x + dx - r, y + dy - r, 2 * r + 1, 2 * r + 1);
+	}
+
+	/**
+	 * Was the object found in the last frame?
+	 * @return True if the object was found in the last frame.
+	 */
+	public boolean isFound() {
+		return found;
+	}
+}
@@ -1,23 +1,22 @@
 package group2.sdp.pc.vision;
 
-import group2.sdp.pc.breadbin.StaticRobotInfo;
 import group2.sdp.pc.globalinfo.GlobalInfo;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 import group2.sdp.pc.globalinfo.LCHColourSettings.ColourClass;
+import group2.sdp.pc.vision.skeleton.Detector;
+import group2.sdp.pc.vision.skeleton.FrameDetections;
 import group2.sdp.pc.vision.skeleton.ImageConsumer;
 import group2.sdp.pc.vision.skeleton.StaticInfoConsumer;
 import group2.sdp.pc.vision.skeleton.VisualCortexSkeleton;
 
-import java.awt.Color;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import javax.imageio.ImageIO;
 
@@ -43,7 +42,7 @@ import javax.imageio.ImageIO;
  * @author Alfie
  *
  */
-public class VisualCortex extends VisualCortexSkeleton {
+public class VisualCortex extends VisualCortexSkeleton implements Detector {
 
 	/**
 	 * The mode of the output from the processor: MATCH is the default, CHROMA
@@ -71,26 +70,193 @@ public class VisualCortex extends VisualCortexSkeleton {
 
 	private static final boolean VERBOSE = true;
 
-	// true if we want to draw on the raster
-	private static final boolean pleaseDraw = true;
+	/**
+	 * Draws the debug overlay off the processing thread; null if there is
+	 * no image consumer to show it.
+	 */
+	private OverlayRenderer overlay;
+
+	/**
+	 * Indicates whether to draw the debug overlay. Switched off during a 
+	 * match, so that the detection never waits for the drawing.
+	 */
+	private volatile boolean drawOverlay = true;
+
+	/**
+	 * Runs a candidate detector on the frames off the processing thread and
+	 * compares it to this one; null if there is none.
+	 */
+	private volatile ShadowDetector shadow;
+
+	/**
+	 * Indicates whether to record the latencies of the stages of the 
+	 * detection in the {@link LatencyMonitor}. Off for the detectors that 
+	 * are not in the pipeline, such as the ones in a shadow.
+	 */
+	private boolean recordLatencies = true;
 
 	private String backgroundFileName = "background.png";
 	private boolean saveBackground = false;
 
 	/**
-	 * New pixels in the last frame that was processed.
+	 * The model of the empty pitch that the frames are compared to. It 
+	 * follows the changes in the lighting during a match.
+	 */
+	private BackgroundModel background = new BackgroundModel();
+	private int backgroundWidth, backgroundHeight;
+
+	/**
+	 * Collects the pixels of the last processed frame that differ from the
+	 * background, and the ones of each colour class of interest, with their
+	 * sums.
+	 */
+	private FrameScanner scanner = new FrameScanner();
+
+	/**
+	 * The number of stripes the frame is split into when scanning the whole
+	 * of it, each processed by its own thread. 1 means no extra threads.
+	 */
+	private volatile int parallelism = 1;
+
+	/**
+	 * Scans the stripes of the frame in parallel; null if parallelism is 1.
+	 * Replaced at the start of a frame when the parallelism changes.
+	 */
+	private StripeScanner stripeScanner;
+
+	/**
+	 * Indicates whether the connected areas of the last frame were found by
+	 * the stripe scanner.
+	 */
+	private boolean stripesLabelled;
+
+	/**
+	 * The strategies the objects are detected with. Switched from the 
+	 * control station; read once at the start of each frame, so that the
+	 * whole frame is detected with the same variant.
+	 */
+	private volatile DetectorVariant variant = DetectorVariant.STANDARD;
+	/**
+	 * The variant the current frame is detected with.
+	 */
+	private DetectorVariant frameVariant = DetectorVariant.STANDARD;
+
+	/**
+	 * The signatures of the tiles of the frame, in incremental mode.
+	 */
+	private TileSignatures tileSignatures = new TileSignatures();
+
+	/**
+	 * The greatest connected areas of the colour classes of interest.
+	 */
+	private Blob yellowArea = new Blob();
+	private Blob blueArea = new Blob();
+	private Blob ballArea = new Blob();
+
+	/**
+	 * Holds the position on the pitch of the object being detected.
+	 */
+	private Point2D pitchPosition = new Point2D.Double();
+
+	/**
+	 * Indicates whether to look for the objects only around their predicted
+	 * positions, rather than in the whole frame.
+	 */
+	private volatile boolean tracking = false;
+
+	/**
+	 * The number of frames after which the whole frame is scanned in 
+	 * tracking and pyramid mode.
+	 */
+	private static final int FULL_SCAN_INTERVAL = 10;
+	/**
+	 * The half-size of the search windows of objects at rest, in pixels.
+	 */
+	private static final int ROBOT_WINDOW_RADIUS = 40;
+	private static final int BALL_WINDOW_RADIUS = 20;
+	/**
+	 * How many frames' worth of movement to add to the search windows.
+	 */
+	private static final int SPEED_FACTOR = 2;
+
+	private int framesSinceFullScan;
+
+	/**
+	 * The margin added around the candidate areas found in the coarse pass,
+	 * in steps of the coarse pass.
+	 */
+	private static final int PYRAMID_MARGIN = 2;
+	/**
+	 * Collects the pixels of the subsampled view of the frame in the 
+	 * coarse pass.
+	 */
+	private FrameScanner coarseScanner = new FrameScanner();
+
+	private Track ballTrack = new Track();
+	private Track yellowTrack = new Track();
+	private Track blueTrack = new Track();
+
+	/**
+	 * The part of the frame that is scanned when scanning the whole frame,
+	 * and the windows scanned in tracking and pyramid mode.
 	 */
-	private ArrayList<Point> newPixels;
+	private Rectangle scanBounds = new Rectangle();
+	private Rectangle[] searchWindows = {
+			new Rectangle(), new Rectangle(), new Rectangle()
+	};
+
+	/**
+	 * Finds the connected areas of the pixels of a colour.
+	 */
+	private BlobFinder blobFinder = new BlobFinder();
+
+	/**
+	 * The colour classes of the foreground pixels of the pitch crop in the
+	 * last processed frame; read by all the stages after the scan.
+	 */
+	private ColourClassMask classMask = new ColourClassMask();
+
+	/**
+	 * The last pixel probed by {@link #walkRay(int, int, int, boolean)}.
+	 */
+	private int lastProbeX, lastProbeY;
+
+	/**
+	 * Reads the pixels of the frames.
+	 */
+	private PixelReader pixelReader = new PixelReader();
+
+	/**
+	 * Classifies the colours of the pixels.
+	 */
+	private ColourLookupTable colourTable = new ColourLookupTable();
 
 	// values to return
 	private Point blueCentroid, yellowCentroid, ballCentroid;
 	private double directionBlueRobot, directionYellowRobot;
 
+	/**
+	 * The result of the detection of the last frame; filled in place.
+	 */
+	private FrameDetections detections = new FrameDetections();
+
+
 	// used to check if what we think is a robot/ball is 
 	// actually a robot/ball or is noise
 	private final int meanRobotSize = 400;
 	private final int meanBallSize2 = 30;
 	private final int meanBallSize1 = 120;
+	// the bounds of the size of a robot/ball, relative to the mean size
+	private static final double SIZE_UPPER_BOUND = 4.5;
+	private static final double SIZE_LOWER_BOUND = 0.35;
+
+	/**
+	 * The smallest eccentricity and normalised skew of a T for its direction
+	 * to be found from its moments.
+	 * @see #momentDirection(Blob)
+	 */
+	private static final double MIN_MOMENT_ECCENTRICITY = 0.05;
+	private static final double MIN_MOMENT_SKEW = 0.1;
 
 	
 	/**
@@ -99,7 +265,6 @@ public class VisualCortex extends VisualCortexSkeleton {
 	public VisualCortex(StaticInfoConsumer consumer) {
 		super(consumer);
 		extractBackground = true;
-		newPixels = new ArrayList<Point>();
 	}
 
 	/**
@@ -107,9 +272,11 @@ public class VisualCortex extends VisualCortexSkeleton {
 	 */
 	public VisualCortex(Bakery bakery,
 			ImageConsumer imageConsumer) {
-		super(bakery, imageConsumer);
+		super(bakery);
+		if (imageConsumer != null) {
+			overlay = new OverlayRenderer(imageConsumer);
+		}
 		extractBackground = true;
-		newPixels = new ArrayList<Point>();
 	}
 
 	/**
@@ -120,25 +287,53 @@ public class VisualCortex extends VisualCortexSkeleton {
 			if (!saveBackground) {
 				backgroundImage = loadBackgroundImage();
 				if (backgroundImage == null) {
-					backgroundImage = image;
+					backgroundImage = copyImage(image);
 				}
 			} else {
-				backgroundImage = image;
+				backgroundImage = copyImage(image);
 				saveBackgroundImage(backgroundImage);
 			}
+			setBackground(backgroundImage);
+			ShadowDetector shadow = this.shadow;
+			if (shadow != null) {
+				shadow.setBackground(backgroundImage);
+			}
 			extractBackground = false;
 			// Note that the super.process(image) is not called.
 			// This is the case, since we expect that the background
 			// contains no objects worth of detection.
 		} else {
-			newPixels = getDifferentPixels(image);
-			internalImage = drawPixels(image, newPixels);
-			if(pleaseDraw) {
-				drawStuff(internalImage);
-			}
 			super.process(image);
 		}
-		detectRobotsAndBall(image, newPixels);
+	}
+
+	/**
+	 * Scans the frame, detects the robots and the ball in it and submits
+	 * them to the debug overlay, if it is due, and to the shadow detector.
+	 * @see #scanFrame(BufferedImage)
+	 * @see #detectRobotsAndBall(BufferedImage)
+	 */
+	@Override
+	public FrameDetections detect(BufferedImage image) {
+		long start = System.nanoTime();
+		frameVariant = variant;
+		colourTable.update();
+		scanFrame(image);
+		if (recordLatencies) {
+			LatencyMonitor.recordSince(Stage.SCAN, start);
+		}
+		detectRobotsAndBall(image);
+		ShadowDetector shadow = this.shadow;
+		if (shadow != null) {
+			shadow.submit(image, detections, System.nanoTime() - start);
+		}
+		if (overlay != null && drawOverlay) {
+			overlay.submit(pixelReader, scanner, classMask, 
+					backgroundWidth, backgroundHeight, currentMode, 
+					ballCentroid, yellowCentroid, directionYellowRobot, 
+					blueCentroid, directionBlueRobot);
+		}
+		return detections;
 	}
 
 	/**
@@ -149,6 +344,21 @@ public class VisualCortex extends VisualCortexSkeleton {
 		saveBackground = true;
 	}
 
+	/**
+	 * Copies the given image. Needed since frame sources reuse the image of 
+	 * a frame for the frames that follow it.
+	 * @param image The image to copy.
+	 * @return A copy of the image that does not share its data.
+	 */
+	private BufferedImage copyImage(BufferedImage image) {
+		return new BufferedImage(
+				image.getColorModel(), 
+				image.copyData(null), 
+				image.isAlphaPremultiplied(), 
+				null
+		);
+	}
+
 	/**
 	 * Loads the background image from the file that is known to contain it and
 	 * returns it.
@@ -185,153 +395,361 @@ public class VisualCortex extends VisualCortexSkeleton {
 	}
 
 	/**
-	 * The pixels that are sufficiently different from the background are added
-	 * to a list that is returned.
+	 * Starts the background model that the frames are compared to from the
+	 * given image, and forgets the tracks of the objects.
+	 * @param image The background image.
+	 */
+	@Override
+	public void setBackground(BufferedImage image) {
+		backgroundWidth = image.getWidth();
+		backgroundHeight = image.getHeight();
+		PixelReader reader = new PixelReader();
+		reader.setImage(image);
+		background.reset(reader);
+		tileSignatures.invalidate();
+		ballTrack.reset();
+		yellowTrack.reset();
+		blueTrack.reset();
+	}
+
+	/**
+	 * Scans the pitch crop of the frame once, in memory order. Each pixel is
+	 * compared to the background; a pixel is different if the sum of the 
+	 * absolute differences of its channels from the background exceeds the 
+	 * pixel difference threshold of the camera, or the threshold of the pixel
+	 * in the {@link BackgroundModel} if that is higher. The pixels that are 
+	 * sufficiently different are classified and stored by the 
+	 * {@link FrameScanner}, and the ones of the colours we look for are added
+	 * to the blob of their colour.
+	 * 
+	 * In tracking mode, once all objects were found, only windows around 
+	 * their predicted positions are scanned, except for every 
+	 * {@link #FULL_SCAN_INTERVAL}-th frame. When the whole frame is scanned
+	 * and the parallelism is more than 1, it is split into stripes that are
+	 * scanned, and their connected areas found, in parallel.
+	 * 
+	 * After a scan of the whole frame, a part of the background model is 
+	 * updated from the pixels of the frame that are pitch.
+	 * 
+	 * In incremental mode, the scans of the whole frame only go over the 
+	 * tiles that changed since the last frame, see {@link TileSignatures};
+	 * the pixels of the other tiles are the ones found in the last frame.
+	 * 
+	 * In pyramid mode, the frames between the scans of the whole frame 
+	 * start with a coarse pass over a subsampled view of the frame, which 
+	 * finds the candidate areas of the objects; then only windows around 
+	 * them are scanned at full resolution. As long as the whole of an 
+	 * object is in its window, its pixels are exactly the ones a full scan
+	 * would find, so its centroid and direction are within a pixel (and a
+	 * degree) of the ones of the full resolution path; they only differ 
+	 * through the background model, which is not updated in those frames.
+	 * Tracking windows are used instead of the coarse pass when they are 
+	 * available.
 	 * 
 	 * @param image
 	 *            The image to subtract from the background image.
-	 * @return A list of the *different* points.
-	 * @see isDifferent
 	 */
-	private ArrayList<Point> getDifferentPixels(BufferedImage image) {
+	private void scanFrame(BufferedImage image) {
 		Rectangle pitchCrop = GlobalInfo.getCamera().getPitchCrop();
+		int threshold = GlobalInfo.getCamera().getPixelDifferenceThreshold();
 		int minX = Math.max(pitchCrop.x, image.getMinX());
 		int minY = Math.max(pitchCrop.y, image.getMinY());
-		int w = Math.min(pitchCrop.width, image.getWidth());
-		int h = Math.min(pitchCrop.height, image.getHeight());
-
-		int maxX = minX + w;
-		int maxY = minY + h;
-
-		ArrayList<Point> result = new ArrayList<Point>();
-		for (int y = minY; y < maxY; ++y) {
-			for (int x = minX; x < maxX; ++x) {
-				if (isDifferent(image, x, y)) {
-					result.add(new Point(x, y));
+		int maxX = Math.min(minX + Math.min(pitchCrop.width, image.getWidth()),
+				Math.min(image.getWidth(), backgroundWidth));
+		int maxY = Math.min(minY + Math.min(pitchCrop.height, image.getHeight()),
+				Math.min(image.getHeight(), backgroundHeight));
+		scanBounds.setBounds(minX, minY, 
+				Math.max(0, maxX - minX), Math.max(0, maxY - minY));
+
+		pixelReader.setImage(image);
+		boolean tracked = tracking
+				&& ballTrack.isFound() 
+				&& yellowTrack.isFound() 
+				&& blueTrack.isFound();
+		boolean fullScan = framesSinceFullScan >= FULL_SCAN_INTERVAL
+				|| !(tracked || frameVariant.getPyramidStep() > 1);
+		boolean maskKept = classMask.getBounds().equals(scanBounds);
+		if (!maskKept) {
+			classMask.reset(scanBounds);
+		}
+		TileSignatures tiles = null;
+		if (frameVariant.isIncremental() && fullScan) {
+			if (!maskKept) {
+				tileSignatures.invalidate();
+			}
+			tileSignatures.update(pixelReader, scanBounds, threshold);
+			tiles = tileSignatures;
+		} else {
+			// The mask will not be left as the tiles were scanned.
+			tileSignatures.invalidate();
+		}
+		if (maskKept && tiles == null) {
+			// Only the foreground of the last frame has classes.
+			classMask.clear(scanner.getForeground(), 
+					scanner.getForegroundCount(), scanner.getWidth());
+		}
+		// Otherwise the changed tiles clear their own part of the mask.
+		scanner.reset(backgroundWidth, scanBounds.width * scanBounds.height);
+		stripesLabelled = false;
+		updateStripeScanner();
+
+		if (!fullScan) {
+			if (tracked) {
+				setSearchWindows();
+			} else {
+				setCandidateWindows(threshold);
+			}
+			for (Rectangle window : searchWindows) {
+				if (!window.isEmpty()) {
+					scanner.scan(pixelReader, background, colourTable, classMask,
+							window.x, window.y, 
+							window.x + window.width, window.y + window.height, 
+							threshold);
 				}
 			}
+			++framesSinceFullScan;
+		} else if (stripeScanner != null) {
+			stripeScanner.scan(pixelReader, background, colourTable, classMask,
+					minX, minY, maxX, maxY, threshold, tiles, scanner);
+			stripesLabelled = true;
+			framesSinceFullScan = 0;
+			background.update(pixelReader, classMask, scanBounds);
+		} else {
+			scanner.scan(pixelReader, background, colourTable, classMask,
+					minX, minY, maxX, maxY, threshold, tiles);
+			framesSinceFullScan = 0;
+			background.update(pixelReader, classMask, scanBounds);
 		}
-		return result;
 	}
 
 	/**
-	 * Compares if the given pixel in the given image is different from the
-	 * corresponding pixel in the background image. The current implementation
-	 * subtracts the background from the given image and checks if the result
-	 * passes a certain threshold.
-	 * 
-	 * @param image
-	 *            The pixel to compare is taken from this picture.
-	 * @param x
-	 *            The x coordinate of the pixel.
-	 * @param y
-	 *            The y coordinate of the pixel.
-	 * @return True if the specified pixel is different, false otherwise.
-	 */
-	private boolean isDifferent(BufferedImage image, int x, int y) {
-		int threshold = GlobalInfo.getCamera().getPixelDifferenceThreshold();
+	 * Stops the threads of the detector: the render thread of the overlay,
+	 * the threads of the stripe scanner and the shadow detector. Must only
+	 * be called once no more frames are passed to the detector.
+	 */
+	@Override
+	public void shutdown() {
+		if (overlay != null) {
+			overlay.stop();
+		}
+		if (stripeScanner != null) {
+			stripeScanner.shutdown();
+			stripeScanner = null;
+		}
+		setShadow(null);
+	}
 
-		Color imagePixel = new Color(image.getRGB(x, y));
-		Color backPixel = new Color(backgroundImage.getRGB(x, y));
+	/**
+	 * Replaces the stripe scanner if the parallelism was changed since the
+	 * last frame.
+	 */
+	private void updateStripeScanner() {
+		int parallelism = this.parallelism;
+		int current = stripeScanner == null ? 1 : stripeScanner.getParallelism();
+		if (parallelism == current) {
+			return;
+		}
+		if (stripeScanner != null) {
+			stripeScanner.shutdown();
+		}
+		stripeScanner = parallelism > 1 
+			? new StripeScanner(parallelism) 
+			: null;
+	}
 
-		int[] delta = new int[] {
-				Math.abs(imagePixel.getRed() - backPixel.getRed()),
-				Math.abs(imagePixel.getGreen() - backPixel.getGreen()),
-				Math.abs(imagePixel.getBlue() - backPixel.getBlue()) };
+	/**
+	 * Computes the windows around the predicted positions of the ball and 
+	 * the robots, within the scanned part of the frame. Overlapping windows
+	 * are merged, so that no pixel is in two windows.
+	 */
+	private void setSearchWindows() {
+		ballTrack.getSearchWindow(searchWindows[0], BALL_WINDOW_RADIUS, SPEED_FACTOR);
+		yellowTrack.getSearchWindow(searchWindows[1], ROBOT_WINDOW_RADIUS, SPEED_FACTOR);
+		blueTrack.getSearchWindow(searchWindows[2], ROBOT_WINDOW_RADIUS, SPEED_FACTOR);
+		for (Rectangle window : searchWindows) {
+			Rectangle2D.intersect(window, scanBounds, window);
+		}
+		mergeSearchWindows();
+	}
 
-		return delta[0] + delta[1] + delta[2] > threshold;
+	/**
+	 * Finds the candidate areas of the ball and the robots in a coarse pass
+	 * over a subsampled view of the scanned part of the frame, and computes
+	 * the windows around them. Overlapping windows are merged, so that no
+	 * pixel is in two windows.
+	 * @param threshold The pixel difference threshold.
+	 */
+	private void setCandidateWindows(int threshold) {
+		int step = frameVariant.getPyramidStep();
+		coarseScanner.reset((backgroundWidth + step - 1) / step,
+				(scanBounds.width / step + 1) * (scanBounds.height / step + 1));
+		coarseScanner.scanCoarse(pixelReader, background, colourTable,
+				scanBounds.x, scanBounds.y, 
+				scanBounds.x + scanBounds.width, scanBounds.y + scanBounds.height,
+				step, threshold);
+		int margin = PYRAMID_MARGIN * step;
+		for (int object = 0; object < FrameScanner.OBJECT_COUNT; ++object) {
+			Rectangle window = searchWindows[object];
+			window.setBounds(0, 0, 0, 0);
+			Blob pixels = coarseScanner.getPixels(object);
+			if (pixels.getSize() == 0) {
+				continue;
+			}
+			blobFinder.label(pixels);
+			int area = blobFinder.getLargestArea();
+			int x = blobFinder.getMinX(area) * step - margin;
+			int y = blobFinder.getMinY(area) * step - margin;
+			window.setBounds(x, y, 
+					blobFinder.getMaxX(area) * step + margin + 1 - x,
+					blobFinder.getMaxY(area) * step + margin + 1 - y);
+			Rectangle2D.intersect(window, scanBounds, window);
+		}
+		mergeSearchWindows();
+	}
+
+	/**
+	 * Merges the search windows that overlap.
+	 */
+	private void mergeSearchWindows() {
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int i = 0; i < searchWindows.length; ++i) {
+				for (int j = i + 1; j < searchWindows.length; ++j) {
+					Rectangle a = searchWindows[i];
+					Rectangle b = searchWindows[j];
+					if (!a.isEmpty() && !b.isEmpty() && a.intersects(b)) {
+						a.add(b);
+						b.setBounds(0, 0, 0, 0);
+						merged = true;
+					}
+				}
+			}
+		}
 	}
 
 	/**
 	 * This function is where everything except background removal is done. The
 	 * robot 'T's are detected, processed and have their centroids and
-	 * orientations calculated. These values are stored in the respective global
-	 * variables.
+	 * orientations calculated. The centroids are kept in whole pixels for 
+	 * drawing and tracking, and the positions on the pitch, the directions, 
+	 * and how confident each detection is go to the {@link FrameDetections}
+	 * of the frame.
+	 * 
+	 * Only the pixels which are "different" (calculated by background 
+	 * removal) and of the right colour are considered; they are collected
+	 * while scanning the frame.
 	 * 
 	 * @param image
-	 * @param newPixels
-	 *            The pixels which are "different" (calculated by background
-	 *            removal).
-	 * @see #getDifferentPixels(BufferedImage)
-	 * @see #getGreatestArea(ArrayList)
-	 * @see #regressionAndDirection(BufferedImage, ArrayList, boolean)
-	 */
-	public void detectRobotsAndBall(BufferedImage image,
-			ArrayList<Point> newPixels) {
+	 * @see #scanFrame(BufferedImage)
+	 * @see #getGreatestArea(Blob, Blob)
+	 * @see #regressionAndDirection(BufferedImage, Blob, boolean)
+	 */
+	public void detectRobotsAndBall(BufferedImage image) {
 		int meanBallSize = GlobalInfo.isPitchOne()
 			? meanBallSize1
 			: meanBallSize2
 			;
-		ArrayList<Point> yellowPoints = new ArrayList<Point>();
-		ArrayList<Point> bluePoints = new ArrayList<Point>();
-		ArrayList<Point> ballPoints = new ArrayList<Point>();
-		ArrayList<Point> platePoints = new ArrayList<Point>();
-		for (Point p : newPixels) {
-			Color c = new Color(image.getRGB(p.x, p.y));
-			LCHColour lch = new LCHColour(c);
-			ColourClass cc = GlobalInfo.getColourSettings().getColourClass(lch);
-
-			switch (cc) {
-			case RED:
-				ballPoints.add(p);
-				break;
-			case GREEN_PLATE:
-				platePoints.add(p);
-				break;
-			case BLUE:
-				bluePoints.add(p);
-				break;
-			case YELLOW:
-				yellowPoints.add(p);
-				break;
-			}
+		long time = System.nanoTime();
+		Blob yellowPointsClean = getRobotOrBall(FrameScanner.YELLOW, yellowArea, meanRobotSize);
+		Blob bluePointsClean = getRobotOrBall(FrameScanner.BLUE, blueArea, meanRobotSize);
+		Blob ballPointsClean = getRobotOrBall(FrameScanner.BALL, ballArea, meanBallSize);
+		if (recordLatencies) {
+			time = LatencyMonitor.recordSince(Stage.BLOB_FINDING, time);
 		}
-		ArrayList<Point> yellowPointsClean = new ArrayList<Point>(0);
-		ArrayList<Point> bluePointsClean = new ArrayList<Point>(0);
-		ArrayList<Point> ballPointsClean = new ArrayList<Point>(0);
 
-		if (sizeCheck(bluePoints, meanRobotSize)) {
+		this.ballCentroid = ballPointsClean.getCentroid();
+		this.blueCentroid = bluePointsClean.getCentroid();
+		this.yellowCentroid = yellowPointsClean.getCentroid();
 
-			bluePointsClean = getGreatestArea(bluePoints);
+		this.directionBlueRobot = regressionAndDirection(image, bluePointsClean, false) % 360;
+		this.directionYellowRobot = regressionAndDirection(image, yellowPointsClean, true) % 360;
+		if (recordLatencies) {
+			LatencyMonitor.recordSince(Stage.ORIENTATION, time);
 		}
-		if (sizeCheck(yellowPoints, meanRobotSize)) {
 
-			yellowPointsClean = getGreatestArea(yellowPoints);
-		}
-		if (sizeCheck(ballPoints, meanBallSize)) {
+		detections.reset();
+		setDetection(FrameDetections.BALL, ballPointsClean, meanBallSize, false);
+		setDetection(FrameDetections.YELLOW, yellowPointsClean, meanRobotSize, true);
+		setDetection(FrameDetections.BLUE, bluePointsClean, meanRobotSize, true);
+		detections.setFacingDirection(FrameDetections.YELLOW, directionYellowRobot);
+		detections.setFacingDirection(FrameDetections.BLUE, directionBlueRobot);
 
-			ballPointsClean = getGreatestArea(ballPoints);
-		}
+		ballTrack.update(ballCentroid);
+		yellowTrack.update(yellowCentroid);
+		blueTrack.update(blueCentroid);
 
-		this.ballCentroid = calcCentroid(ballPointsClean);
-		this.blueCentroid = calcCentroid(bluePointsClean);
-		this.yellowCentroid = calcCentroid(yellowPointsClean);
+	}
 
-		this.directionBlueRobot = regressionAndDirection(image, bluePointsClean, false) % 360;
-		this.directionYellowRobot = regressionAndDirection(image, yellowPointsClean, true) % 360;
+	/**
+	 * Converts the centroid of an object, in sub-pixel precision and 
+	 * weighted if the variant weighs the centroids, to the pitch and puts 
+	 * it in the detections of the frame.
+	 * @param object The object, see {@link FrameDetections}.
+	 * @param pixels The pixels of the object; it is not found if empty.
+	 * @param expectedSize The expected number of pixels of the object.
+	 * @param plate True if the object is a robot, whose plate is above the
+	 * pitch.
+	 */
+	private void setDetection(int object, Blob pixels, int expectedSize, 
+			boolean plate) {
+		int size = pixels.getSize();
+		if (size == 0) {
+			return;
+		}
+		Point2D position = GlobalInfo.getCalibrationMap().toPitch(
+				pixels.getCentroidX(frameVariant.isWeightedCentroids()), 
+				pixels.getCentroidY(frameVariant.isWeightedCentroids()), 
+				plate, pitchPosition);
+		// 1 at the expected size, less the further the size is from it.
+		double confidence = (double) Math.min(size, expectedSize) 
+			/ Math.max(size, expectedSize);
+		detections.setFound(object, position.getX(), position.getY(), 
+				confidence, size);
+	}
 
+	/**
+	 * Finds the largest connected area of the given pixels and checks if it
+	 * is of the expected size.
+	 * @param object The robot or the ball, see {@link FrameScanner}.
+	 * @param area A blob to put the area in, if needed.
+	 * @param expectedSize ({@link #meanRobotSize}/{@link #meanBallSize})
+	 * @return The area, or an empty blob if there is no area of the 
+	 * expected size.
+	 */
+	private Blob getRobotOrBall(int object, Blob area, int expectedSize) {
+		Blob pixels = scanner.getPixels(object);
+		// Too few pixels for an area of the expected size.
+		if (pixels.getSize() < expectedSize * SIZE_LOWER_BOUND) {
+			area.reset(pixels.getWidth());
+			return area;
+		}
+		Blob result = stripesLabelled
+			? stripeScanner.getGreatestArea(object, area)
+			: getGreatestArea(pixels, area);
+		if (!sizeCheck(result, expectedSize)) {
+			area.reset(pixels.getWidth());
+			return area;
+		}
+		return result;
 	}
 
 	/**
-	 * Given an ArrayList of points we think are a robot,
-	 * perform a check on the size of the ArrayList and
+	 * Given the pixels we think are a robot,
+	 * perform a check on their number and
 	 * decide if it is actually a robot or a noise.
-	 * it is used to prevent the system from crashing when 
-	 * there is a lot of noise on the pitch or whether 
-	 * we think there's a robot present when in reality it 
-	 * is noise from the other robots (wheels, sensors...) 
+	 * it is used to tell whether we think there's a robot 
+	 * present when in reality it is noise from the other 
+	 * robots (wheels, sensors...) 
 	 * 
 	 * @param points
 	 * @param expectedSize ({@link #meanRobotSize}/{@link #meanBallSize})
-	 * @return true if the size of the ArrayList is in bounds
+	 * @return true if the number of pixels is in bounds
 	 */
-	private boolean sizeCheck(ArrayList<Point> points, int expectedSize) {
-		double upperBound = 4.5;
-		double lowerBound = 0.35;
-		
-		int size = points.size(); 
-		if (size > expectedSize * upperBound
-				|| size < expectedSize * lowerBound) {
+	private boolean sizeCheck(Blob points, int expectedSize) {
+		int size = points.getSize(); 
+		if (size > expectedSize * SIZE_UPPER_BOUND
+				|| size < expectedSize * SIZE_LOWER_BOUND) {
 			return false;
 		} else {
 			return true;
@@ -339,56 +757,66 @@ public class VisualCortex extends VisualCortexSkeleton {
 	}
 
 	/**
-	 * Loops through allPoints calling
-	 * {@link #mindFlower(ArrayList,ArrayList,Point)} on pixels in it.
-	 * mindFlower removes pixels from allPoints if it determines they are
-	 * connected to another pixel so this will almost never cycle through the
-	 * *whole* ArrayList.
-	 * @param allPoints
-	 *            the list of points of the same colour
-	 *            (yellowPoints/bluePoints)
-	 * @return the ArrayList of connected pixels in allPoints which form the
+	 * Finds the largest connected area of the given pixels with the 
+	 * {@link BlobFinder}. If the largest area holds all the pixels, the given 
+	 * pixels are returned as they are, with the sums collected while 
+	 * scanning. Otherwise the pixels of the largest area are put in the 
+	 * given area.
+	 * @param pixels
+	 *            the pixels of the same colour
+	 *            (yellowPixels/bluePixels)
+	 * @param area
+	 *            a blob to put the largest area in
+	 * @return the blob of connected pixels in pixels which form the
 	 *         largest area
 	 */
-	public ArrayList<Point> getGreatestArea(ArrayList<Point> allPoints) {
-		ArrayList<Point> bestArea = new ArrayList<Point>();
-		// this while loop should end because mindFlower
-		// removes points from allPoints
-		while (allPoints.size() != 0) {
-			ArrayList<Point> newArea = new ArrayList<Point>();
-
-			newArea.add(allPoints.get(0));
-			allPoints.remove(0);
-			newArea = mindFlower(newArea, allPoints, newArea.get(0));
-			if (newArea.size() > bestArea.size()) {
-				bestArea = newArea;
-			}
+	public Blob getGreatestArea(Blob pixels, Blob area) {
+		area.reset(pixels.getWidth());
+		if (blobFinder.label(pixels) == 0) {
+			return area;
+		}
+		int largest = blobFinder.getLargestArea();
+		if (blobFinder.getSize(largest) == pixels.getSize()) {
+			return pixels;
 		}
-		return bestArea;
+		blobFinder.extract(largest, area);
+		return area;
 	}
 
 	/**
-	 * Uses {@link #findFacingDirection(BufferedImage, Point, boolean)} to get a
-	 * starting direction and then refines it using
-	 * {@link #regression(ArrayList, double, boolean)}.
+	 * Finds the direction of a T from the moments of its pixels, see 
+	 * {@link #momentDirection(Blob)}, unless the variant does not use the
+	 * moments. If the moments are not conclusive, uses {@link #findFacingDirection(BufferedImage, Point, boolean)} to get
+	 * a starting direction and then refines it using
+	 * {@link #regression(Blob, double)}.
 	 * 
 	 * @param image
 	 * @param fixels
 	 * @param isYellow
-	 * @return the direction 0 < x < 360 degrees.
+	 * @return the direction 0 < x < 360 degrees, or -1 if there are no 
+	 * pixels.
 	 */
 	public double regressionAndDirection(BufferedImage image,
-			ArrayList<Point> fixels, boolean isYellow) {
+			Blob fixels, boolean isYellow) {
 
+		if (fixels.getSize() == 0) {
+			return -1;
+		}
+		if (frameVariant.isMomentDirections()) {
+			double momentAngle = momentDirection(fixels);
+			if (momentAngle >= 0) {
+				return momentAngle;
+			}
+		}
 		double angleToReturn = 0;
-		Point fixelsCentroid = calcCentroid(fixels);
+		Point fixelsCentroid = fixels.getCentroid();
 		double direction = (findFacingDirection(image, fixelsCentroid, isYellow));
 
 		double angleReturnedByRegression = 0;
 		double newAngle = direction;
 		// perform regression 5 times on the angle 
 		for (int i = 0; i < 5; i++) {
-			angleReturnedByRegression = regression(fixels, newAngle, isYellow);
+			angleReturnedByRegression = regression(fixels, newAngle);
 			double subtractAngle = Math.toDegrees(Math.atan(angleReturnedByRegression));
 			newAngle -= subtractAngle;
 		}
@@ -398,115 +826,79 @@ public class VisualCortex extends VisualCortexSkeleton {
 	}
 
 	/**
-	 * The function is used to draw pixels on the image we get from
-	 * the camera. It is used once only after we detect the robots
-	 * and the ball.
+	 * Finds the direction of a T from the moments of its pixels, without
+	 * looking at the image. The second order central moments give the two
+	 * axes of the T, along and across its stem. The T is symmetric about
+	 * the axis of its stem, so along the other axis its third order moments
+	 * vanish; that tells the axes apart. Along the stem, the bar at the 
+	 * back makes the pixels spread across the axis behind the centroid 
+	 * (the sum of u * v^2 is negative, u being the coordinate along the 
+	 * axis and v across it) and the stem makes them reach further in front
+	 * of it (the sum of u^3 is positive); that tells the front from the 
+	 * back.
 	 * 
-	 * @param pixels
-	 *            The pixels to draw on a new image.
-	 * @return image
-	 * 				The image with the pixels drawn on it
-	 */
-	private BufferedImage drawPixels(BufferedImage image, List<Point> pixels) {
-		int w = backgroundImage.getWidth();
-		int h = backgroundImage.getHeight();
-		BufferedImage result = new BufferedImage(w, h,
-				BufferedImage.TYPE_3BYTE_BGR);
-		for (Point p : newPixels) {
-			Color c = new Color(image.getRGB(p.x, p.y));
-			LCHColour lch = new LCHColour(c);
-			ColourClass cc = GlobalInfo.getColourSettings().getColourClass(lch);
-
-			Color dc = null;
-			switch (cc) {
-			case RED:
-				dc = Color.RED;
-				break;
-			case GREEN_PLATE:
-				dc = Color.GREEN;
-				break;
-			case GREEN_PITCH:
-				dc = new Color(0, 128, 0);
-				break;
-			case BLUE:
-				dc = Color.BLUE;
-				break;
-			case YELLOW:
-				dc = Color.YELLOW;
-				break;
-			case GRAY:
-				dc = Color.DARK_GRAY;
-				break;
-			default:
-				dc = Color.GRAY;
-				break;
-			}
-			int v;
-			switch (currentMode) {
-			case MATCH:
-				result.setRGB(p.x, p.y, dc.getRGB());
-				break;
-			case HUE:
-				v = lch.getHue() * 255 / 360;
-				result.setRGB(p.x, p.y, new Color(v, v, v).getRGB());
-				break;
-			case LUMA:
-				v = lch.getLuma();
-				result.setRGB(p.x, p.y, new Color(v, v, v).getRGB());
-				break;
-			case CHROMA:
-				v = lch.getChroma();
-				result.setRGB(p.x, p.y, new Color(v, v, v).getRGB());
-				break;
-			}
+	 * @param fixels The pixels of the T.
+	 * @return The direction 0 <= x < 360 degrees, or -1 if the pixels are 
+	 * too round or too symmetric for the moments to tell.
+	 */
+	public double momentDirection(Blob fixels) {
+		double xx = fixels.getCentralMomentXX();
+		double xy = fixels.getCentralMomentXY();
+		double yy = fixels.getCentralMomentYY();
+		double spread = xx + yy;
+		if (fixels.getSize() == 0 || spread <= 0) {
+			return -1;
 		}
-		return result;
-	}
-
-	/**
-	 * Called by {@link #getGreatestArea(ArrayList)}. Looks for adjacent points
-	 * to determine connected areas.
-	 * 
-	 * @param newArea
-	 *            connected pixels are stored in here
-	 * @param allPoints
-	 *            the list of all possible points (e.g. all yellow/blue points)
-	 * @param pixel
-	 *            the pixel to which all other points should be connected
-	 * @return all points connected to pixel which are present in allPoints.
-	 */
-	public ArrayList<Point> mindFlower(ArrayList<Point> newArea,
-			ArrayList<Point> allPoints, Point pixel) {
-		Point north = new Point(pixel.x, pixel.y - 1);
-		Point east = new Point(pixel.x + 1, pixel.y);
-		Point south = new Point(pixel.x, pixel.y + 1);
-		Point west = new Point(pixel.x - 1, pixel.y);
-
-		if (allPoints.remove(north)) {
-			newArea.add(north);
-			mindFlower(newArea, allPoints, north);
+		// How elongated the pixels are: 0 for a disc, 1 for a line.
+		double eccentricity = Math.sqrt((xx - yy) * (xx - yy) + 4 * xy * xy) / spread;
+		if (eccentricity < MIN_MOMENT_ECCENTRICITY) {
+			return -1;
 		}
-		if (allPoints.remove(east)) {
-			newArea.add(east);
-			mindFlower(newArea, allPoints, east);
+		double axis = 0.5 * Math.atan2(2 * xy, xx - yy);
+
+		double xxx = fixels.getCentralMomentXXX();
+		double xxy = fixels.getCentralMomentXXY();
+		double xyy = fixels.getCentralMomentXYY();
+		double yyy = fixels.getCentralMomentYYY();
+		double bestSkew = 0;
+		double bestAngle = 0;
+		for (int i = 0; i < 2; ++i) {
+			double angle = axis + i * Math.PI / 2;
+			double c = Math.cos(angle);
+			double s = Math.sin(angle);
+			double uuu = c * c * c * xxx + 3 * c * c * s * xxy 
+				+ 3 * c * s * s * xyy + s * s * s * yyy;
+			double uvv = c * s * s * xxx + (s * s * s - 2 * s * c * c) * xxy 
+				+ (c * c * c - 2 * s * s * c) * xyy + s * c * c * yyy;
+			// Positive if the T faces along the angle.
+			double skew = uuu - uvv;
+			if (Math.abs(skew) > Math.abs(bestSkew)) {
+				bestSkew = skew;
+				bestAngle = angle;
+			}
 		}
-		if (allPoints.remove(south)) {
-			newArea.add(south);
-			mindFlower(newArea, allPoints, south);
+		// The skew relative to the size and the spread of the pixels.
+		double sigma = Math.sqrt(spread / fixels.getSize());
+		if (Math.abs(bestSkew) < MIN_MOMENT_SKEW * fixels.getSize() * sigma * sigma * sigma) {
+			return -1;
 		}
-		if (allPoints.remove(west)) {
-			newArea.add(west);
-			mindFlower(newArea, allPoints, west);
+		if (bestSkew < 0) {
+			bestAngle += Math.PI;
 		}
-
-		return newArea;
+		// The y axis of the image points down, so the angle is negated.
+		return (360 - Math.toDegrees(bestAngle)) % 360;
 	}
 
+
 	/**
 	 * Cycles through all (360) possible angles and finds the longest unbroken
 	 * line from the centroid. The angle at which this line was found is the
 	 * angle which is returned.
 	 * 
+	 * The lines are walked with the offsets of the {@link RayTable}, and the
+	 * colours of the pixels are looked up in the colour class mask, see 
+	 * {@link #isBlueYellow(int, int, boolean)}.
+	 * 
 	 * @param image
 	 *            The image to draw on
 	 * @param centroid
@@ -529,36 +921,21 @@ public class VisualCortex extends VisualCortexSkeleton {
 			// for every possible direction
 			// rotate by 1 degree at a time
 			for (int i = 0; i < 180; i++) {
-				currentScore = 0;
-				currentScoreOppositeDirection = 0;
-				Point nextPixel = new Point();
-				Point rotatedPixel = new Point(centroid.x,centroid.y);
 				/**
 				 * Do not stop until the next pixel colour is not the colour we
-				 * are looking for. The next pixel is determined by travelling
-				 * in the negative x direction and then rotating the point i
-				 * degrees around the centroid.
+				 * are looking for. The next pixel is the next one on the ray
+				 * at i degrees from the centroid.
 				 */
-				while (isBlueYellow(image, rotatedPixel, isYellow)) {
-					nextPixel = new Point(centroid.x + currentScore, centroid.y);
-					rotatedPixel = rotatePoint(centroid, nextPixel, i);
-					// Since we sort in ascending order, lower
-					// score is longer segments
-					currentScore++;
-				}
+				currentScore = walkRay(centroid.x, centroid.y, i, isYellow);
 				/**
-				 * The second while loop is because the function is checking
+				 * The second walk is because the function is checking
 				 * if a line is 'unbroken' (all pixels on it are the same colour)
 				 * in *both* directions. That is, if the line (centroid, Point(0,1))
 				 * is unbroken, you have to also check if the line (centroid, Point(0,-1))
 				 * is unbroken and only then say that is the right direction.
 				 */
-				rotatedPixel = new Point(centroid.x,centroid.y);
-				while (isBlueYellow(image, rotatedPixel, isYellow)) {
-					nextPixel = new Point(centroid.x + currentScoreOppositeDirection, centroid.y);
-					rotatedPixel = rotatePoint(centroid, nextPixel, i + 180);
-					currentScoreOppositeDirection++;
-				}
+				currentScoreOppositeDirection = 
+					walkRay(centroid.x, centroid.y, i + 180, isYellow);
 				if (currentScore + currentScoreOppositeDirection > bestScore) {
 					if (currentScore > currentScoreOppositeDirection) {
 						bestAngle = i;
@@ -572,6 +949,30 @@ public class VisualCortex extends VisualCortexSkeleton {
 		return 360 - bestAngle;
 	}
 
+	/**
+	 * Walks a ray from the given point while its pixels are of the colour of
+	 * the robot. The first pixel probed is the point itself.
+	 * @param x The x coordinate of the start of the ray.
+	 * @param y The y coordinate of the start of the ray.
+	 * @param deg The angle of the ray, in [0, 360).
+	 * @param isYellow If the robot is yellow
+	 * @return The number of pixels of the colour of the robot found.
+	 */
+	private int walkRay(int x, int y, int deg, boolean isYellow) {
+		int score = 0;
+		int probeX = x;
+		int probeY = y;
+		while (score < RayTable.MAX_LENGTH 
+				&& isBlueYellow(probeX, probeY, isYellow)) {
+			probeX = x + RayTable.getX(deg, score);
+			probeY = y + RayTable.getY(deg, score);
+			++score;
+		}
+		lastProbeX = probeX;
+		lastProbeY = probeY;
+		return score;
+	}
+
 	/**
 	 * Uses the perpendicular angle to the direction of the T to find if 
 	 * the current angle is "flipped" the wrong way. The longest, unbroken perpendicular 
@@ -590,75 +991,37 @@ public class VisualCortex extends VisualCortexSkeleton {
 		if (centroid == null) {
 			return -1;
 		}
-		int currentScore = 0;
-		int currentScoreOppositeDirection = 0;
 		double bestAngle = angle;
 
-		Point lastPointDir = new Point();
-		Point lastPointDirBack = new Point();
-		Point nextPixel = new Point();			
-		Point rotatedPixel = new Point(centroid.x,centroid.y);
 		int lineScore = 0, lineScoreBack = 0;
 
 		if (centroid.x != 0) {
-
-			currentScore = 0;
-			currentScoreOppositeDirection = 0;
 			/**
-			 * Do not stop until the next pixel colour is not the colour we
-			 * are looking for. The next pixel is determined by travelling
-			 * in the negative x direction and then rotating the point i
-			 * degrees around the centroid.
+			 * Walk out from the centroid along the angle, and then the 
+			 * other way, to find the ends of the line through the T. If 
+			 * the first pixel is already of another colour, the end is 
+			 * taken to be (0, 0).
 			 */
-			while (isBlueYellow(image, rotatedPixel, isYellow)) {
-				nextPixel = new Point(centroid.x + currentScore, centroid.y);
-				rotatedPixel = rotatePoint(centroid, nextPixel, (int)angle);
-				currentScore++;
-				lastPointDir = rotatedPixel;
+			int lastPointDirX = 0, lastPointDirY = 0;
+			if (walkRay(centroid.x, centroid.y, 
+					RayTable.normalise((int) angle), isYellow) > 0) {
+				lastPointDirX = lastProbeX;
+				lastPointDirY = lastProbeY;
 			}
-			/**
-			 * The second while loop is because the function is checking
-			 * if a line is 'unbroken' (all pixels on it are the same colour)
-			 * in *both* directions. That is, if the line (centroid, Point(0,1)) 
-			 * is unbroken, you have to also check if the line (centroid, Point(0,-1)) 
-			 * is unbroken and only then say that is the right direction.
-			 */
-			rotatedPixel = new Point(centroid.x,centroid.y);
-			while (isBlueYellow(image, rotatedPixel, isYellow)) {
-				nextPixel = new Point(centroid.x + currentScoreOppositeDirection, centroid.y);
-				rotatedPixel = rotatePoint(centroid, nextPixel, (int) (angle + 180) % 360);
-
-				currentScoreOppositeDirection++;
-				lastPointDirBack = rotatedPixel;
+			int lastPointDirBackX = 0, lastPointDirBackY = 0;
+			if (walkRay(centroid.x, centroid.y, 
+					RayTable.normalise((int) (angle + 180) % 360), isYellow) > 0) {
+				lastPointDirBackX = lastProbeX;
+				lastPointDirBackY = lastProbeY;
 			}
 
-			Point middlePoint = new Point((lastPointDir.x + centroid.x)/2,(lastPointDir.y + centroid.y)/2);
-			rotatedPixel = (Point) middlePoint.clone();
-			while (isBlueYellow(image, rotatedPixel , isYellow)) {
-
-				lineScore++; // Since we sort in ascending order, lower
-				// score is longer segments
-				nextPixel = new Point(middlePoint.x + lineScore, middlePoint.y);
-				rotatedPixel = rotatePoint(middlePoint, new Point(nextPixel.x,
-						nextPixel.y), (int) bestAngle + 90);
-
-			}
-			Point middlePointBack = new Point(
-								(lastPointDirBack.x + centroid.x)/2,
-								(lastPointDirBack.y + centroid.y)/2);
-			rotatedPixel =  (Point) middlePointBack.clone();
-			while (isBlueYellow(image, rotatedPixel, isYellow)) {
-
-				lineScoreBack++; // Since we sort in ascending order, lower
-				// score is longer segments
-				nextPixel = new Point(middlePointBack.x + lineScoreBack,
-										middlePointBack.y);
-				rotatedPixel = rotatePoint(middlePointBack,
-						new Point(nextPixel.x,
-						nextPixel.y),
-						(int) bestAngle + 90);
-
-			}
+			// The widths of the T across the line, half-way to each end.
+			int across = RayTable.normalise((int) bestAngle + 90);
+			// The middle point is probed twice by a walk, but counted once.
+			lineScore = Math.max(0, walkRay((lastPointDirX + centroid.x) / 2, 
+					(lastPointDirY + centroid.y) / 2, across, isYellow) - 1);
+			lineScoreBack = Math.max(0, walkRay((lastPointDirBackX + centroid.x) / 2, 
+					(lastPointDirBackY + centroid.y) / 2, across, isYellow) - 1);
 			if(lineScore > lineScoreBack){
 
 				bestAngle = (bestAngle+180) % 360;
@@ -670,115 +1033,47 @@ public class VisualCortex extends VisualCortexSkeleton {
 	/**
 	 * Performs regression on the pixels, using the angle that
 	 * {@link #findFacingDirection(BufferedImage, Point, boolean)}
-	 * returns as the starting point 
+	 * returns as the starting point. The pixels are rotated by the angle 
+	 * around their centroid and the slope of the least squares line through
+	 * them is returned. Rotation does not change the centroid, so the sums 
+	 * needed for the slope follow from the central moments of the pixels, 
+	 * without going through them again.
 	 * @param fixels
 	 * @param angle
-	 * @return angle
+	 * @return the slope of the regression line
 	 */
-	protected double regression(ArrayList<Point> fixels, double angle, boolean isYellow) {
-
-		// we want the function to be generic:
-		Point actualCentroid = blueCentroid;
-		if (isYellow) {
-			actualCentroid = yellowCentroid;
-		}
-
-		double sumX = 0;
-		double sumY = 0;
-		double productXY = 0;
-		double productXsquared = 0;
-		double productYsquared = 0;
-		int size = fixels.size();
-
-		for (int i = 0; i < fixels.size(); i++) {
-
-			//translate the point onto the main axes
-			int normalisedX = fixels.get(i).x - actualCentroid.x;
-			int normalisedY = fixels.get(i).y - actualCentroid.y;
-
-			//rotate the point while it's still on the main axes
-			double cosAngle = Math.cos(Math.toRadians(angle));
-			double sinAngle = Math.sin(Math.toRadians(angle));
-			double rotatedX = normalisedX * cosAngle
-			- normalisedY * sinAngle;
-			double rotatedY = normalisedX * sinAngle
-			+ normalisedY * cosAngle;
-
-			//translate the point back to its original position
-			rotatedX += actualCentroid.x;
-			rotatedY += actualCentroid.y;
-
-			//sum together the x and y coordinates of every point
-			//in the ArrayList of pixels
-			sumX += rotatedX;
-			sumY += rotatedY;
-
-			productXY += rotatedX * rotatedY;
-
-			productXsquared += Math.pow(rotatedX, 2);
-			productYsquared += Math.pow(rotatedY, 2);
-
-		}
-
-		return (size * productXY - sumX * sumY) / (size * productXsquared - sumX * sumX);
+	protected double regression(Blob fixels, double angle) {
+		double cosAngle = Math.cos(Math.toRadians(angle));
+		double sinAngle = Math.sin(Math.toRadians(angle));
+
+		double xx = fixels.getCentralMomentXX();
+		double xy = fixels.getCentralMomentXY();
+		double yy = fixels.getCentralMomentYY();
+
+		// The central moments of the rotated pixels.
+		double rotatedXY = cosAngle * sinAngle * (xx - yy) 
+			+ (cosAngle * cosAngle - sinAngle * sinAngle) * xy;
+		double rotatedXX = cosAngle * cosAngle * xx 
+			- 2 * cosAngle * sinAngle * xy 
+			+ sinAngle * sinAngle * yy;
+
+		return rotatedXY / rotatedXX;
 	}
 
 	/**
-	 * Checks if a given pixel on the image is blue or is yellow  
-	 * depending on the parameter isYellow
-	 * @param colour The colour you are checking
+	 * Checks if a given pixel of the frame being processed is blue or is 
+	 * yellow depending on the parameter isYellow. The colour class of the 
+	 * pixel is read from the colour class mask, so only the foreground 
+	 * pixels of the pitch can be of either colour.
+	 * @param x The x coordinate of the pixel.
+	 * @param y The y coordinate of the pixel.
 	 * @param isYellow If you are looking for yellow (the other option is blue)
 	 * @return --
 	 */
-	private boolean isBlueYellow(BufferedImage image, Point pixel, boolean isYellow) {
-		boolean returnValue = false;
-		if (!(withinBounds(pixel))) {
-			return false;
-		}
-		Color c = new Color(image.getRGB(pixel.x, pixel.y));
-		LCHColour lch = new LCHColour(c);
-		ColourClass cc = GlobalInfo.getColourSettings().getColourClass(lch);
-		switch (cc) {
-		case BLUE:
-			if (!isYellow) {
-				returnValue = true;
-			}
-			break;
-		case YELLOW:
-			if (isYellow) {
-				returnValue = true;
-			}
-			break;
-		}
-		return returnValue;
-	}
-
-	/**
-	 * For every ArrayList<Point> (robot/ball), calculate its centroid
-	 * @param pixels robot/ball pixels
-	 * @return Point centroid
-	 */
-	public Point calcCentroid(ArrayList<Point> fixels){
-		if (fixels.size() == 0) {
-			return null;
-		}
-		Point centroid = new Point(0,0);
-		Point totalFixels = new Point(0,0);
-
-		for (int i = 0; i < fixels.size(); i++){
-			Point current = fixels.get(i);
-			totalFixels.x += current.x;
-			totalFixels.y += current.y;
-		}
-		if (!fixels.isEmpty()){
-			centroid.x = totalFixels.x / fixels.size();
-			centroid.y = totalFixels.y / fixels.size();}
-		else {
-			if (VERBOSE) {
-				System.out.println("Robot's missing.");
-			}
-		}
-		return centroid;
+	private boolean isBlueYellow(int x, int y, boolean isYellow) {
+		return classMask.get(x, y) == (isYellow
+				? ColourClass.YELLOW.ordinal()
+				: ColourClass.BLUE.ordinal());
 	}
 
 	/**
@@ -802,298 +1097,152 @@ public class VisualCortex extends VisualCortexSkeleton {
 	}
 
 	/**
-	 * Converts from the image coordinate system (in pixels) to a coordinate system
-	 * centred at the physical centre of the pitch (in cm), where y grows upwards and 
-	 * x to the right.
-	 * @param point The point to convert.
-	 * @return The point, converted.
-	 */
-	private Point2D convertPixelsToCm(Point2D point) {
-		Point2D p = new Point2D.Float();
-		Rectangle2D pitchPhysicalRectangle = GlobalInfo.getPitch()
-		.getMinimumEnclosingRectangle();
-		Rectangle pitchImageRectangle = GlobalInfo.getCamera().getPitchCrop();
-
-		double x = linearRemap(point.getX(), pitchImageRectangle.getMinX(),
-				pitchImageRectangle.getWidth(),
-				pitchPhysicalRectangle.getMinX(),
-				pitchPhysicalRectangle.getWidth());
-		double y = linearRemap(point.getY(), pitchImageRectangle.getMinY(),
-				pitchImageRectangle.getHeight(),
-				pitchPhysicalRectangle.getMinY(),
-				pitchPhysicalRectangle.getHeight());
-		p.setLocation(x, -y);
-
-		return p;
+	 * Get the colour classes of the foreground pixels of the pitch in the 
+	 * last processed frame.
+	 * @return The colour class mask of the last processed frame.
+	 */
+	public ColourClassMask getColourClassMask() {
+		return classMask;
 	}
 
 	/**
-	 * Corrects the position of a robot. The converted position is our initial
-	 * estimation of the position, assuming the plate lies on the pitch. There 
-	 * is an error proportional to the distance of the robot from the centre
-	 * of the pitch. This is corrected in this function. Here is a rough 
-	 * sketch:
-	 * Camera
-	 *   .
-	 *   |\
-	 *   | \
-	 *   |  \
-	 * H |   \
-	 *   |____\  <- robot centroid.
-	 *   |   h|\ 
-	 *   |____|_\
-	 *       delta  
-	 *      d
-	 *      
-	 * @param robotPosition The pixel position of the robot. 
-	 * @param convertedPosition The converted position of the robot, before correction.
-	 * @param height The height of the robot.
-	 * @return The corrected position of the robot.
-	 */
-	private Point2D correctRobotPosition(Point robotPosition,
-			Point2D convertedPosition, double height) {
-
-		Rectangle pitchImageRectangle = 
-			GlobalInfo.getCamera().getPitchCrop();
-
-		// Correction
-		double H = GlobalInfo.getCamera().getDistanceFromPitch();
-		double h = height;
-		double d = 
-			robotPosition.distance(
-					pitchImageRectangle.getCenterX(), 
-					pitchImageRectangle.getCenterY()
-			);
-		double delta = d * h / H;
-		double quotient = (d - delta) / d;
-		Point2D result = 
-			new Point2D.Float(
-					(float) (convertedPosition.getX() * quotient),
-					(float) (convertedPosition.getY() * quotient)
-			);
-		return result;
+	 * Get the model of the background that the frames are compared to.
+	 * @return The background model.
+	 */
+	public BackgroundModel getBackgroundModel() {
+		return background;
 	}
 
 	/**
-	 * Changes the coordinate system of a 1-dimensional variable.
-	 * E.g. if you want to move your starting point from 1 to 3, and to
-	 * dilate your range from 3 to 6, this would move 2 to 5:
-	 * 
-	 *         1 2 3 4 5 6 7 8 9
-	 * Input : > .   <
-	 * Output:     >   .       <
-	 * 
-	 * There is a side-effect of 'flipping' the image if you give negative range
-	 * to either of the range arguments:
-	 * 
-	 *         1 2 3 4 5 6 7 8 9
-	 * Input : < .   >
-	 * Output:     >       .   <
+	 * Set the mode of output.
 	 * 
-	 * @param x
-	 * @param x0
-	 * @param domainRange
-	 * @param y0
-	 * @param targetRange
-	 * @return
+	 * @param currentMode
+	 *            The mode of output.
 	 */
-	private double linearRemap(double x, double x0, double domainRange,
-			double y0, double targetRange) {
-		return (x - x0) * (targetRange / domainRange) + y0;
+	public void setCurrentMode(OutputMode currentMode) {
+		this.currentMode = currentMode;
 	}
 
 	/**
-	 * Checks if the point is within the bounds of the background image because 
-	 * we assume the background image is the same size as the current image.
-	 * @param point
-	 * @return
+	 * Set whether to draw the debug overlay. When off, the frames are not
+	 * even copied for the overlay.
+	 * @param drawOverlay True to draw the overlay.
 	 */
-	private boolean withinBounds(Point point) {	
-		int width, height;
-		if (backgroundImage == null) {
-			width = 640;
-			height = 480;
-		} else {
-			width = backgroundImage.getWidth();
-			height = backgroundImage.getHeight();
+	public void setDrawOverlay(boolean drawOverlay) {
+		this.drawOverlay = drawOverlay;
+	}
+
+	/**
+	 * Get whether the debug overlay is drawn.
+	 * @return True if the overlay is drawn.
+	 */
+	public boolean isDrawOverlay() {
+		return drawOverlay;
+	}
+
+	/**
+	 * Set the detector to run in the shadow of this one, on the same frames
+	 * but off the processing thread, or null to stop it. The background of
+	 * this detector is passed to it, if there is one already.
+	 * @param shadow The shadow detector.
+	 */
+	public void setShadow(ShadowDetector shadow) {
+		ShadowDetector old = this.shadow;
+		if (old != null) {
+			old.stop();
 		}
-		if (point.x < 0 || point.x >= width || point.y < 0 || point.y >= height){
-			return false;
-		} else {
-			return true;
+		if (shadow != null && backgroundImage != null) {
+			shadow.setBackground(backgroundImage);
 		}
+		this.shadow = shadow;
 	}
 
 	/**
-	 * Draw a method on a Writable raster derived from the captured image.
-	 * 
-	 * @param raster
-	 *            draw on writable raster
-	 * @param p1
-	 *            point coordinates
-	 * @param colour
-	 *            colour
-	 */
-	private void drawPixel(WritableRaster raster, Point p1, int[] colour) {
-		if (withinBounds(p1)) {
-			try {
-				raster.setPixel(p1.x, p1.y, colour);
-			}
-			catch (Exception exc) {
-				System.out.println("asd");
-			}
-		}
+	 * Get the detector that runs in the shadow of this one.
+	 * @return The shadow detector, or null if there is none.
+	 */
+	public ShadowDetector getShadow() {
+		return shadow;
 	}
 
 	/**
-	 * This function puts together two drawing functions:
-	 * drawCentroidCircle - draw a circle of a certain radius 
-	 * around the centroid of the robot 
-	 * drawRobotFacingDirection - draw the orientation of the robot (a line)
-	 * 
-	 * @param internalImage
-	 */
-	private void drawStuff(BufferedImage internalImage) {
-		WritableRaster raster = internalImage.getRaster();
-		int[] blue = new int[] { 0, 0, 255 };
-		int[] yellow = new int[] { 255, 255, 0 };
-		int[] red = new int[] { 255, 0, 0 };
-		// if there is a blue robot on the pitch,
-		// draw a blue circle around it (facilitates the human eye...)
-		// radius if the circle is 50 for the robots and 25 for the ball
-		// draw orientation of the robot
-		if (blueCentroid != null) {
-			drawCentroidCircle(raster, blueCentroid, blue, 50);
-			drawRobotFacingDirection(raster, this.blueCentroid, this.directionBlueRobot);
+	 * Set whether to record the latencies of the stages of the detection in
+	 * the {@link LatencyMonitor}.
+	 * @param recordLatencies True to record the latencies.
+	 */
+	public void setRecordLatencies(boolean recordLatencies) {
+		this.recordLatencies = recordLatencies;
+	}
 
-		}
-		if (yellowCentroid != null) {
-			drawCentroidCircle(raster, yellowCentroid, yellow, 50);
-			drawRobotFacingDirection(raster, this.yellowCentroid, this.directionYellowRobot);
-		}
-		if (ballCentroid != null) {
-			drawCentroidCircle(raster, ballCentroid, red, 25);
-		}
+	/**
+	 * Get whether the latencies of the stages of the detection are recorded.
+	 * @return True if the latencies are recorded.
+	 */
+	public boolean isRecordLatencies() {
+		return recordLatencies;
 	}
 
 	/**
-	 * Simply used to draw a circle around the point centroid.
-	 * 
-	 * @param raster
-	 * @param centroid
-	 * @param colour
-	 * @param radius
-	 * @see #rotatePoint(Point, Point, int)
-	 */
-	private void drawCentroidCircle(WritableRaster raster, Point centroid,
-			int[] colour, int radius) {
-		/**
-		 * Think of it that way:
-		 * Pick up a point at a distance, say 20 (future radius)
-		 * and start rotating it by 1 degree around another point.
-		 * What will happen in the end is that you will get a circle 
-		 * of radius 20 whose origin is the point around which you rotate. 
-		 */
-		Point pointToRotate = new Point(centroid.x + radius, centroid.y);
-		for (int i = 0; i < 360; i++) {
-			Point previousPointToRotate = new Point(centroid.x + radius, centroid.y);
-			pointToRotate = rotatePoint(centroid, previousPointToRotate, i);
-			// the aim is for us (people) to see where the vision system
-			// thinks the robot is, therefore - draw the point while rotating it
-			drawPixel(raster, pointToRotate, colour);
-		}
+	 * Set the strategies to detect the objects with, from the next frame on.
+	 * @param variant The detector variant.
+	 */
+	public void setVariant(DetectorVariant variant) {
+		this.variant = variant;
 	}
 
 	/**
-	 * Used to draw the facing direction of robots.
-	 * 
-	 * @param raster
-	 * @param point The centroid to draw from.
-	 * @param angle
+	 * Get the strategies the objects are detected with.
+	 * @return The detector variant.
 	 */
-	private void drawRobotFacingDirection(WritableRaster raster, Point realCentroid,
-			double angle) {
-		// we clone the centroid so the increments/decrements don't change the actual value
-		Point centroid = (Point) realCentroid.clone();
-		angle = 360 - angle;
-		double tanAngle = Math.tan(Math.toRadians(angle));
-		int[] colour = {255, 255, 255};
-		if (angle < 270 && angle > 90) {
-			int counter = centroid.x - 100;
-			double b = centroid.y - centroid.x * tanAngle;
-			while (centroid.x > counter) {
-				Point pointToDraw = new Point(centroid.x, (int)(b + centroid.x * tanAngle));
-				drawPixel(raster, pointToDraw, colour);
-				centroid.x--;
-			}
-		} else {
-			int counter = centroid.x + 100;
-			double b = centroid.y - centroid.x * tanAngle;
-			while (centroid.x < counter) {
-				Point pointToDraw = new Point(centroid.x,(int)(b + centroid.x * tanAngle));
-				drawPixel(raster, pointToDraw, colour);
-				centroid.x++;
-			}
-		}
+	public DetectorVariant getVariant() {
+		return variant;
 	}
 
 	/**
-	 * Set the mode of output.
-	 * 
-	 * @param currentMode
-	 *            The mode of output.
+	 * Set whether to look for the objects only around their predicted 
+	 * positions. The whole frame is still scanned every few frames and 
+	 * whenever an object is not found.
+	 * @param tracking True to look only around the predicted positions.
 	 */
-	public void setCurrentMode(OutputMode currentMode) {
-		this.currentMode = currentMode;
+	public void setTracking(boolean tracking) {
+		this.tracking = tracking;
 	}
 
 	/**
-	 * Get the mode of output.
-	 * 
-	 * @return The mode of output.
+	 * Get whether to look for the objects only around their predicted 
+	 * positions.
+	 * @return True if looking only around the predicted positions.
 	 */
-	public OutputMode getCurrentMode() {
-		return currentMode;
+	public boolean isTracking() {
+		return tracking;
 	}
 
 	/**
-	 * @return ball position
+	 * Set the number of stripes the frame is split into when scanning the
+	 * whole of it, each processed by its own thread. More threads lower the
+	 * latency of a frame, at the cost of cores.
+	 * @param parallelism The number of stripes; 1 to scan on the calling
+	 * thread only.
 	 */
-	protected Point2D extractBallPosition(BufferedImage image) {
-		if (ballCentroid == null || ballCentroid.getLocation() == null) {
-			return null;
-		}
-		return convertPixelsToCm(ballCentroid);
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
 	}
 
 	/**
-	 * @return robot positions
+	 * Get the number of stripes the frame is split into when scanning the
+	 * whole of it.
+	 * @return The number of stripes.
 	 */
-	protected Point2D extractRobotPosition(BufferedImage image, boolean yellow) {
-		Point robotPosition = yellow 
-		? yellowCentroid
-				: blueCentroid;
-		if (robotPosition == null) {
-			return null;
-		}
-		Point2D convertedPosition = convertPixelsToCm(robotPosition);
-		return 
-		correctRobotPosition(
-				robotPosition, 
-				convertedPosition, 
-				StaticRobotInfo.getHeight()
-		);
+	public int getParallelism() {
+		return parallelism;
 	}
 
 	/**
-	 * @return angle of the robot facing direction
+	 * Get the mode of output.
+	 * 
+	 * @return The mode of output.
 	 */
-	protected double extractRobotFacingDirection(BufferedImage image,
-			boolean yellow) {
-		if (yellow) {
-			return directionYellowRobot;
-		} else {
-			return directionBlueRobot;
-		}
+	public OutputMode getCurrentMode() {
+		return currentMode;
 	}
 }
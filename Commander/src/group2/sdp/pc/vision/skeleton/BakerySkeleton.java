@@ -3,12 +3,11 @@ package group2.sdp.pc.vision.skeleton;
 import group2.sdp.pc.breadbin.DynamicBallInfo;
 import group2.sdp.pc.breadbin.DynamicInfo;
 import group2.sdp.pc.breadbin.DynamicRobotInfo;
-import group2.sdp.pc.breadbin.StaticBallInfo;
+import group2.sdp.pc.breadbin.ObjectHistory;
 import group2.sdp.pc.breadbin.StaticInfo;
 import group2.sdp.pc.breadbin.StaticInfoHistory;
-import group2.sdp.pc.breadbin.StaticRobotInfo;
-
-import java.util.LinkedList;
+import group2.sdp.pc.globalinfo.LatencyMonitor;
+import group2.sdp.pc.globalinfo.LatencyMonitor.Stage;
 
 /**
  * This class consumes static information about the pitch from an image 
@@ -22,7 +21,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	private static final int MAX_HISTORY_LENGTH = 64;
 
 	/**
-	 * The queue of past static infos. The front of the queue is the oldest SPI.
+	 * The past static infos, oldest first.
 	 */
 	private StaticInfoHistory staticInfoHistory;
 
@@ -40,7 +39,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 */
 	public BakerySkeleton (DynamicInfoConsumer consumer) {
 		this.dynamicConsumer = consumer;
-		staticInfoHistory = new StaticInfoHistory();
+		staticInfoHistory = new StaticInfoHistory(MAX_HISTORY_LENGTH);
 	}
 
 
@@ -49,33 +48,29 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 		if (counter < 10) {
 			counter++;
 		} else {
+			long start = System.nanoTime();
 			addInfoToHistory(spi);
 			DynamicInfo dpi = produceDynamicInfo(spi);
+			LatencyMonitor.recordSince(Stage.BAKERY, start);
 			dynamicConsumer.consumeInfo(dpi);
 		}
 	}
 
 	/**
-	 * Adds the given static info to the internal history queue.
-	 * @param spi The given static info to the internal history queue.
+	 * Adds the given static info to the internal history, forgetting the 
+	 * oldest one if the history is full. The objects that were not found 
+	 * are taken from the last static info.
+	 * @param spi The given static info to the internal history.
 	 */
 	private void addInfoToHistory(StaticInfo spi) {
-		if (staticInfoHistory.size() == MAX_HISTORY_LENGTH) {
-			staticInfoHistory.poll();
-		}
 		if (spi.getBallInfo().getPosition() == null) {
-			StaticBallInfo lastKnownBallInfo = staticInfoHistory.getBallInfos().get(staticInfoHistory.size()-1);
-			spi.setBallInfo(lastKnownBallInfo);
-
+			spi.setBallInfo(staticInfoHistory.getLast().getBallInfo());
 		}
 		if (spi.getAlfieInfo().getPosition() == null) {
-			StaticRobotInfo lastKnownAlfieInfo = staticInfoHistory.getAlfieInfos().get(staticInfoHistory.size()-1);
-			spi.setAlfieInfo(lastKnownAlfieInfo);
-
+			spi.setAlfieInfo(staticInfoHistory.getLast().getAlfieInfo());
 		}
 		if (spi.getOpponentInfo().getPosition() == null) {
-			StaticRobotInfo lastKnownOpponentInfo = staticInfoHistory.getOpponentInfos().get(staticInfoHistory.size()-1);
-			spi.setOpponentInfo(lastKnownOpponentInfo);
+			spi.setOpponentInfo(staticInfoHistory.getLast().getOpponentInfo());
 		}
 		staticInfoHistory.add(spi);
 	}
@@ -90,8 +85,8 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	private DynamicInfo produceDynamicInfo(StaticInfo spi) {
 		
 		// Dynamic ball information
-		double rollingSpeed = computeBallRollingSpeed(staticInfoHistory.getBallInfos());
-		double rollingDirection = computeBallRollingDirection(staticInfoHistory.getBallInfos());
+		double rollingSpeed = computeBallRollingSpeed(staticInfoHistory.getBallHistory());
+		double rollingDirection = computeBallRollingDirection(staticInfoHistory.getBallHistory());
 		DynamicBallInfo ballInfo = new DynamicBallInfo(
 				spi.getBallInfo().getPosition(), 
 				rollingSpeed, 
@@ -111,7 +106,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 				alfieRotatingCCW);
 		
 		alfieInfo.setFacingDirection(
-				correctRobotFacingDirection(staticInfoHistory.getAlfieInfos())
+				correctRobotFacingDirection(staticInfoHistory.getAlfieHistory())
 		);
 		
 		// Dynamic opponent information
@@ -126,7 +121,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 				opponentRotatingSpeed,
 				opponentRotatingCCW);
 		
-		opponentInfo.setFacingDirection(correctRobotFacingDirection(staticInfoHistory.getOpponentInfos()));
+		opponentInfo.setFacingDirection(correctRobotFacingDirection(staticInfoHistory.getOpponentHistory()));
 		
 		// Dynamic pitch information
 		DynamicInfo result = new DynamicInfo(ballInfo, alfieInfo, opponentInfo);
@@ -135,10 +130,10 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 
 	/**
 	 * Computes the rolling speed of the ball. Units are cm/s.
-	 * @param ballHistoryInfos The history of ball infos to use when computing the rolling speed.
+	 * @param ballHistory The history of the ball to use when computing the rolling speed.
 	 * @return The rolling speed of the ball.
 	 */
-	protected abstract double computeBallRollingSpeed(LinkedList<StaticBallInfo> ballHistoryInfos);
+	protected abstract double computeBallRollingSpeed(ObjectHistory ballHistory);
 
 	/**
 	 * Computes the rolling direction of the ball.
@@ -146,10 +141,10 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * The range is [0, 360)
 	 * 3 o'clock is 0 degrees, the angle grows counter clock-wise.
 	 * Thus 12 o'clock is 90 degrees, 9 o'clock is 180 degrees and 6 o'clock is 270 degrees.
-	 * @param ballHistoryInfos The history of ball infos to use when computing the rolling direction. 
+	 * @param ballHistory The history of the ball to use when computing the rolling direction. 
 	 * @return The rolling direction of the ball.
 	 */
-	protected abstract double computeBallRollingDirection(LinkedList<StaticBallInfo> ballHistoryInfos);
+	protected abstract double computeBallRollingDirection(ObjectHistory ballHistory);
 
 	
 	/**
@@ -157,7 +152,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The travel speed of Alfie.
 	 */
 	private double computeAlfieTravelSpeed() {
-		return computeRobotTravelSpeed(staticInfoHistory.getAlfieInfos());
+		return computeRobotTravelSpeed(staticInfoHistory.getAlfieHistory());
 	}
 
 	/**
@@ -169,7 +164,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The travel direction of Alfie.
 	 */
 	private double computeAlfieTravelDirection() {
-		return computeRobotTravelDirection(staticInfoHistory.getAlfieInfos());
+		return computeRobotTravelDirection(staticInfoHistory.getAlfieHistory());
 	}
 
 	/**
@@ -177,7 +172,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The rotating speed of Alfie in degrees per second.
 	 */
 	private double computeAlfieRotatingSpeed() {
-		return computeRobotRotatingSpeed(staticInfoHistory.getAlfieInfos());
+		return computeRobotRotatingSpeed(staticInfoHistory.getAlfieHistory());
 	}
 	
 	/**
@@ -185,7 +180,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return True if Alfie is rotating counter-clock-wise, false otherwise.
 	 */
 	private boolean isAlfieRotatingCCW() {
-		return isRobotRotatingCCW(staticInfoHistory.getAlfieInfos());
+		return isRobotRotatingCCW(staticInfoHistory.getAlfieHistory());
 	}
 
 	
@@ -194,7 +189,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The travel speed of Alfie's opponent
 	 */
 	private double computeOpponentTravelSpeed() {
-		return computeRobotTravelSpeed(staticInfoHistory.getOpponentInfos());
+		return computeRobotTravelSpeed(staticInfoHistory.getOpponentHistory());
 	}
 
 	/**
@@ -206,7 +201,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The travel direction of Alfie's opponent.
 	 */
 	private double computeOpponentTravelDirection() {
-		return computeRobotTravelDirection(staticInfoHistory.getOpponentInfos());
+		return computeRobotTravelDirection(staticInfoHistory.getOpponentHistory());
 	}
 
 	/**
@@ -214,7 +209,7 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * @return The rotating speed of Alfie's opponent in degrees per second.
 	 */
 	private double computeOpponentRotatingSpeed() {
-		return computeRobotRotatingSpeed(staticInfoHistory.getAlfieInfos());
+		return computeRobotRotatingSpeed(staticInfoHistory.getAlfieHistory());
 	}
 	
 	/**
@@ -223,16 +218,16 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * otherwise.
 	 */
 	private boolean isOpponentRotatingCCW() {
-		return isRobotRotatingCCW(staticInfoHistory.getAlfieInfos());
+		return isRobotRotatingCCW(staticInfoHistory.getAlfieHistory());
 	}
 
 
 	/**
 	 * Computes the travel speed of a robot. Units are cm/s.
-	 * @param historyInfos The list of infos to use to compute the travel speed of the robot.
+	 * @param history The history of the robot to use to compute the travel speed of the robot.
 	 * @return The travel speed of the robot.
 	 */
-	protected abstract double computeRobotTravelSpeed(LinkedList<StaticRobotInfo> historyInfos);
+	protected abstract double computeRobotTravelSpeed(ObjectHistory history);
 
 	/**
 	 * Computes the travel direction of a robot. Note that this might be different than the
@@ -241,32 +236,32 @@ public abstract class BakerySkeleton implements StaticInfoConsumer {
 	 * The range is [0, 360)
 	 * 3 o'clock is 0 degrees, the angle grows counter clock-wise.
 	 * Thus 12 o'clock is 90 degrees, 9 o'clock is 180 degrees and 6 o'clock is 270 degrees.
-	 * @param historyInfos The list of infos to use to compute the travel direction of the robot.
+	 * @param history The history of the robot to use to compute the travel direction of the robot.
 	 * @return The travel direction of the robot.
 	 */
-	protected abstract double computeRobotTravelDirection(LinkedList<StaticRobotInfo> historyInfos);
+	protected abstract double computeRobotTravelDirection(ObjectHistory history);
 
 	/**
 	 * Compares against previous frames to remove extreme values from facing direction
-	 * @param historyInfos The list of infos (some used for comparison to current angle).
+	 * @param history The history of the robot (some used for comparison to current angle).
 	 * @return A value for facing direction
 	 */
-	protected abstract double correctRobotFacingDirection(LinkedList<StaticRobotInfo> historyInfos);
+	protected abstract double correctRobotFacingDirection(ObjectHistory history);
 	
 	/**
 	 * Computes rotating speed of the robot, depending on angle on the previous
 	 * frames.
-	 * @param historyInfos The list of Static Robot Info objects to use.
+	 * @param history The history of the robot to use.
 	 * @return The rotating speed of the robot that has the given history.
 	 */
-	protected abstract double computeRobotRotatingSpeed(LinkedList<StaticRobotInfo> historyInfos);
+	protected abstract double computeRobotRotatingSpeed(ObjectHistory history);
 	
 	/**
 	 * Finds out if the robot with the given history is turning 
 	 * counter-clock-wise or not.
-	 * @param historyInfos The list of Static Robot Info objects to use.
+	 * @param history The history of the robot to use.
 	 * @return True if the robot with the given history is turning 
 	 * counter-clock-wise, false otherwise.
 	 */
-	protected abstract boolean isRobotRotatingCCW(LinkedList<StaticRobotInfo> historyInfos);
+	protected abstract boolean isRobotRotatingCCW(ObjectHistory history);
 }
\ No newline at end of file
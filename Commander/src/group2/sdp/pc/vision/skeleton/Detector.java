@@ -0,0 +1,31 @@
+package group2.sdp.pc.vision.skeleton;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Classes implementing this interface can detect the ball and the robots in
+ * the frames of the camera, so that one way of detecting them can be
+ * replaced with, or compared to, another one.
+ */
+public interface Detector {
+
+	/**
+	 * Sets the image of the empty pitch that the frames are compared to.
+	 * @param background The image of the empty pitch.
+	 */
+	public void setBackground(BufferedImage background);
+
+	/**
+	 * Detects the objects in the given frame.
+	 * @param image The frame.
+	 * @return The detections of the frame. They may be reused for the next
+	 * frame, so they should be read before it is detected.
+	 */
+	public FrameDetections detect(BufferedImage image);
+
+	/**
+	 * Stops the threads of the detector, if it has any. Called once no more
+	 * frames are passed to it.
+	 */
+	public void shutdown();
+}
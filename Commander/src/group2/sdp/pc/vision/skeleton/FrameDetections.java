@@ -0,0 +1,128 @@
+package group2.sdp.pc.vision.skeleton;
+
+/**
+ * Description: The result of detecting the objects in a single frame: for
+ *               the ball and each robot, whether it was found, its position
+ *               on the pitch, the direction it faces (for the robots), how
+ *               confident the detection is and how many pixels it is made of.
+ *               One object is filled in place for every frame, so it should
+ *               be read before the next frame is detected.
+ * Contains:    Positions in centimetres w.r.t. the centre of the pitch,
+ *               directions in degrees (3 o'clock is 0 degrees, growing
+ *               counter clock-wise), confidences from 0 to 1 and pixel counts,
+ *               indexed by {@link #BALL}, {@link #YELLOW} and {@link #BLUE}.
+ */
+public class FrameDetections {
+
+	/**
+	 * The objects detected.
+	 */
+	public static final int BALL = 0;
+	public static final int YELLOW = 1;
+	public static final int BLUE = 2;
+	public static final int OBJECT_COUNT = 3;
+
+	private boolean[] found = new boolean[OBJECT_COUNT];
+	private double[] x = new double[OBJECT_COUNT];
+	private double[] y = new double[OBJECT_COUNT];
+	private double[] facingDirection = new double[OBJECT_COUNT];
+	private double[] confidence = new double[OBJECT_COUNT];
+	private int[] pixelCount = new int[OBJECT_COUNT];
+
+
+	/**
+	 * Marks all objects as not found, to start a new frame. The directions
+	 * are set to -1, as when a direction cannot be found.
+	 */
+	public void reset() {
+		for (int object = 0; object < OBJECT_COUNT; ++object) {
+			found[object] = false;
+			x[object] = y[object] = 0;
+			facingDirection[object] = -1;
+			confidence[object] = 0;
+			pixelCount[object] = 0;
+		}
+	}
+
+	/**
+	 * Sets the position of an object that was found.
+	 * @param object {@link #BALL}, {@link #YELLOW} or {@link #BLUE}.
+	 * @param x The x coordinate of the object on the pitch.
+	 * @param y The y coordinate of the object on the pitch.
+	 * @param confidence How confident the detection is, from 0 to 1.
+	 * @param pixelCount The number of pixels of the object.
+	 */
+	public void setFound(int object, double x, double y, double confidence,
+			int pixelCount) {
+		this.found[object] = true;
+		this.x[object] = x;
+		this.y[object] = y;
+		this.confidence[object] = confidence;
+		this.pixelCount[object] = pixelCount;
+	}
+
+	/**
+	 * Set the direction a robot is facing.
+	 * @param object {@link #YELLOW} or {@link #BLUE}.
+	 * @param facingDirection The direction the robot is facing, in degrees,
+	 * or -1 if it could not be found.
+	 */
+	public void setFacingDirection(int object, double facingDirection) {
+		this.facingDirection[object] = facingDirection;
+	}
+
+	/**
+	 * Checks if an object was found in the frame.
+	 * @param object {@link #BALL}, {@link #YELLOW} or {@link #BLUE}.
+	 * @return True if the object was found.
+	 */
+	public boolean isFound(int object) {
+		return found[object];
+	}
+
+	/**
+	 * Gets the x coordinate of an object on the pitch; 0 if it was not found.
+	 */
+	public double getX(int object) {
+		return x[object];
+	}
+
+	/**
+	 * Gets the y coordinate of an object on the pitch; 0 if it was not found.
+	 */
+	public double getY(int object) {
+		return y[object];
+	}
+
+	/**
+	 * Gets the direction a robot is facing, in degrees, or -1 if it could
+	 * not be found.
+	 */
+	public double getFacingDirection(int object) {
+		return facingDirection[object];
+	}
+
+	/**
+	 * Gets how confident the detection of an object is, from 0 to 1; 0 if
+	 * it was not found.
+	 */
+	public double getConfidence(int object) {
+		return confidence[object];
+	}
+
+	/**
+	 * Gets the number of pixels of an object; 0 if it was not found.
+	 */
+	public int getPixelCount(int object) {
+		return pixelCount[object];
+	}
+
+	/**
+	 * Gets the index of the robot of the given colour.
+	 * @param yellow True for the yellow robot, false for the blue one.
+	 * @return {@link #YELLOW} or {@link #BLUE}.
+	 */
+	public static int robot(boolean yellow) {
+		return yellow ? YELLOW : BLUE;
+	}
+}
@@ -48,29 +48,22 @@ public abstract class VisualCortexSkeleton implements ImageConsumer {
 	}
 	
 	/**
-	 * Call this method to process a frame of video. It calls the consumer's 
-	 * consumeInfo() method.
+	 * Call this method to process a frame of video. It detects the objects
+	 * in the frame and calls the consumer's consumeInfo() method.
 	 * @param image The image to process.
 	 */
 	public void process (BufferedImage image) {
-		// Do processing here
+		FrameDetections detections = detect(image);
 		
 		long time = System.currentTimeMillis();
-		Point2D ballPosition = extractBallPosition(image);
-		if (ballPosition == null) {
-			ballPosition = new Point(0,0);
-		}
-		StaticBallInfo ballInfo = new StaticBallInfo(ballPosition,time);
+		StaticBallInfo ballInfo = 
+			new StaticBallInfo(getPosition(detections, FrameDetections.BALL), time);
 		
-		Point2D alfiePosition = extractAlfiePosition(image);
-		double alfieFacingDirection = extractAlfieFacingDirection(image);
-		if (alfiePosition == null) {
-			alfiePosition = new Point(0,0);
-		}
+		int alfie = FrameDetections.robot(GlobalInfo.isYellowAlfie());
 		StaticRobotInfo alfieInfo = 
 			new StaticRobotInfo(
-					alfiePosition, 
-					alfieFacingDirection, 
+					getPosition(detections, alfie), 
+					detections.getFacingDirection(alfie), 
 					true, 
 					false, 
 					time
@@ -80,12 +73,15 @@ public abstract class VisualCortexSkeleton implements ImageConsumer {
 				DynamicInfoChecker.hasBall(alfieInfo, ballInfo.getPosition())
 		);
 		
-		Point2D opponentPosition = extractOpponentPosition(image);
-		if (opponentPosition == null) {
-			opponentPosition = new Point(0,0);
-		}
-		double opponentFacingDirection = extractOpponentFacingDirection(image);
-		StaticRobotInfo opponentInfo = new StaticRobotInfo(opponentPosition, opponentFacingDirection, false, false, time);		
+		int opponent = FrameDetections.robot(!GlobalInfo.isYellowAlfie());
+		StaticRobotInfo opponentInfo = 
+			new StaticRobotInfo(
+					getPosition(detections, opponent), 
+					detections.getFacingDirection(opponent), 
+					false, 
+					false, 
+					time
+			);
 		
 		StaticInfo spi = new StaticInfo(ballInfo, alfieInfo, opponentInfo);
 		
@@ -101,74 +97,26 @@ public abstract class VisualCortexSkeleton implements ImageConsumer {
 	}
 
 	/**
-	 * Extracts the ball position from a given image.
-	 * @param image The image to use to extract the ball position.
-	 * @return The position of the ball in cm, w.r.t. the centre of the pitch.
-	 */
-	protected abstract  Point2D extractBallPosition(BufferedImage image);
-	
-	/**
-	 * Extracts the position of Alfie.
-	 * @param image The image to use to extract the position of Alfie.
-	 * @return The position of Alfie in cm w.r.t. the centre of the pitch.
-	 */
-	private Point2D extractAlfiePosition(BufferedImage image) {
-		return extractRobotPosition(image, GlobalInfo.isYellowAlfie());
-	}
-	
-	/**
-	 * Extracts the direction in which Alfie is facing.
-	 * Units are degrees.
-	 * The range is [0, 360)
-	 * 3 o'clock is 0 degrees, the angle grows counter clock-wise.
-	 * Thus 12 o'clock is 90 degrees, 9 o'clock is 180 degrees and 6 o'clock is 270 degrees.
-	 * @param image The image to use to extract the direction in which Alfie is facing.
-	 * @return The the direction in which Alfie is facing.
-	 */
-	private double extractAlfieFacingDirection(BufferedImage image) {
-		return extractRobotFacingDirection(image, GlobalInfo.isYellowAlfie());
-	}
-
-	/**
-	 * Extracts the position of Alfie's opponent.
-	 * @param image The image to use to extract the position of Alfie's opponent.
-	 * @return The position of Alfie's opponent in cm w.r.t. the centre of the pitch.
-	 */
-	private Point2D extractOpponentPosition(BufferedImage image) {
-		return extractRobotPosition(image, !GlobalInfo.isYellowAlfie());
-	}
-	
-	/**
-	 * Extracts the direction in which Alfie's opponent is facing.
-	 * Units are degrees.
-	 * The range is [0, 360)
-	 * 3 o'clock is 0 degrees, the angle grows counter clock-wise.
-	 * Thus 12 o'clock is 90 degrees, 9 o'clock is 180 degrees and 6 o'clock is 270 degrees.
-	 * @param image The image to use to extract the direction in which Alfie's opponent is facing.
-	 * @return The the direction in which Alfie's opponent is facing.
+	 * Gets the position of an object as a new point, since the detections
+	 * are reused for the next frame.
+	 * @param detections The detections of the frame.
+	 * @param object The object.
+	 * @return The position of the object, or (0, 0) if it was not found.
 	 */
-	private double extractOpponentFacingDirection(BufferedImage image) {
-		return extractRobotFacingDirection(image, !GlobalInfo.isYellowAlfie());
+	private Point2D getPosition(FrameDetections detections, int object) {
+		return new Point(
+				(float) detections.getX(object), 
+				(float) detections.getY(object)
+		);
 	}
-	
-	
-	/**
-	 * Extracts the position of the specified robot.
-	 * @param image The image to use to extract the position of the specified robot.
-	 * @param yellow Should the we look for the yellow robot or not (false means blue robot).
-	 * @return The position of the specified robot.
-	 */
-	protected abstract Point2D extractRobotPosition(BufferedImage image, boolean yellow);
 
 	/**
-	 * Extracts the direction in which the specified robot is facing.
-	 * Units are degrees.
-	 * The range is [0, 360)
-	 * 3 o'clock is 0 degrees, the angle grows counter clock-wise.
-	 * Thus 12 o'clock is 90 degrees, 9 o'clock is 180 degrees and 6 o'clock is 270 degrees.
-	 * @param image The image to use to extract the direction in which the specified robot is facing.
-	 * @param yellow Should the we look for the yellow robot or not (false means blue robot).
-	 * @return The the direction in which the specified robot is facing.
+	 * Detects the ball and the robots in a frame. All of them are detected
+	 * at once, so the parts of the detection they share are done only once,
+	 * and the results all come from the given frame.
+	 * @param image The frame to detect the objects in.
+	 * @return The detections of the frame; the same object may be reused 
+	 * and filled again for the next frame.
 	 */
-	protected abstract double extractRobotFacingDirection(BufferedImage image, boolean yellow);	
+	protected abstract FrameDetections detect(BufferedImage image);
 }